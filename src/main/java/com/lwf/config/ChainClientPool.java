@@ -0,0 +1,503 @@
+package com.lwf.config;
+
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import org.fisco.bcos.sdk.client.Client;
+import org.fisco.bcos.sdk.client.exceptions.ClientException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 多节点链客户端池
+ * 为system.peers中的每个节点建立独立的SDK连接，对外只暴露一个Client代理：
+ * 1. 同步RPC在有界线程池中执行并设置超时，节点卡住时调用方按时返回，不会耗尽请求线程；
+ * 2. 每个节点有熔断器，连续失败达到阈值后停止分配调用，熔断到期后由后台探测成功一次才恢复；
+ * 3. 后台定期用getBlockNumber探测各节点的延迟和块高，按延迟选择节点，块高落后过多的节点不参与选择；
+ * 4. 启动时未连上的节点由后台探测线程继续重连。
+ * 只读调用失败后会换一个节点重试一次；发送交易的调用不重试，避免重复提交。
+ * 事件订阅等需要长期绑定单个节点的组件通过selectPeer/peerClient取得节点连接，
+ * 并注册节点失效监听，在绑定的节点熔断时改用其他节点重建。
+ */
+@Slf4j
+@Accessors(chain = true)
+public class ChainClientPool implements InvocationHandler {
+
+    // 不发起RPC、直接取自当前节点客户端的方法
+    private static final Set<String> LOCAL_METHODS = new HashSet<>(Arrays.asList(
+            "getGroupManagerService", "getCryptoSuite", "getClientNodeVersion", "getCryptoType",
+            "getGroupId", "getBlockLimit", "getEventResource"));
+
+    // 延迟的指数移动平均权重
+    private static final double EWMA_ALPHA = 0.3;
+
+    /**
+     * 只读RPC的超时时间（毫秒）
+     */
+    @Setter
+    private long callTimeoutMs = 5000;
+
+    /**
+     * 发送交易并等待回执的超时时间（毫秒）
+     */
+    @Setter
+    private long transactionTimeoutMs = 30000;
+
+    /**
+     * 执行同步RPC的线程数
+     */
+    @Setter
+    private int callThreads = 32;
+
+    /**
+     * 连续失败多少次后熔断
+     */
+    @Setter
+    private int failureThreshold = 3;
+
+    /**
+     * 熔断持续时间（毫秒）
+     */
+    @Setter
+    private long openMs = 10000;
+
+    /**
+     * 健康探测间隔（毫秒）
+     */
+    @Setter
+    private long probeIntervalMs = 5000;
+
+    /**
+     * 允许落后最高块高的区块数
+     */
+    @Setter
+    private long maxBlockLag = 10;
+
+    private final List<Peer> peers;
+
+    private final Function<String, Client> connector;
+
+    private final Client proxy;
+
+    // 节点熔断时通知的监听器，参数为节点地址
+    private final List<Consumer<String>> failureListeners = new CopyOnWriteArrayList<>();
+
+    private ThreadPoolExecutor callExecutor;
+
+    private ScheduledExecutorService prober;
+
+    /**
+     * @param peers     节点地址列表
+     * @param connector 为单个节点建立连接，失败时抛出异常
+     */
+    public ChainClientPool(List<String> peers, Function<String, Client> connector) {
+        List<Peer> list = new ArrayList<>();
+        for (String address : peers) {
+            list.add(new Peer(address.trim()));
+        }
+        this.peers = Collections.unmodifiableList(list);
+        this.connector = connector;
+        this.proxy = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(),
+                new Class<?>[]{Client.class}, this);
+    }
+
+    /**
+     * 并行连接全部节点并启动后台探测
+     *
+     * @return 至少一个节点连接成功时返回true
+     */
+    public boolean start() {
+        callExecutor = new ThreadPoolExecutor(callThreads, callThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(callThreads * 4), r -> {
+            Thread t = new Thread(r, "chain-client-call");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Thread> connecting = new ArrayList<>();
+        for (Peer peer : peers) {
+            Thread t = new Thread(() -> connect(peer), "chain-client-connect");
+            t.start();
+            connecting.add(t);
+        }
+        for (Thread t : connecting) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        boolean connected = peers.stream().anyMatch(p -> p.client != null);
+        if (!connected) {
+            callExecutor.shutdownNow();
+            return false;
+        }
+        prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chain-client-probe");
+            t.setDaemon(true);
+            return t;
+        });
+        prober.scheduleWithFixedDelay(this::probeAll, probeIntervalMs, probeIntervalMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * 对外使用的客户端代理
+     */
+    public Client client() {
+        return proxy;
+    }
+
+    /**
+     * 选择当前最优的可用节点
+     *
+     * @return 节点地址
+     * @throws ClientException 没有可用节点时抛出
+     */
+    public String selectPeer() {
+        return select().address;
+    }
+
+    /**
+     * 指定节点的SDK连接，节点未连接时返回null
+     * 直接使用该连接的调用不经过超时和熔断，只用于需要绑定单个节点的场景
+     */
+    public Client peerClient(String address) {
+        for (Peer peer : peers) {
+            if (peer.address.equals(address)) {
+                return peer.client;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 注册节点熔断监听，参数为熔断节点的地址；监听器在调用或探测线程中执行，应尽快返回
+     */
+    public void addFailureListener(Consumer<String> listener) {
+        failureListeners.add(listener);
+    }
+
+    /**
+     * 关闭探测线程和全部节点连接
+     */
+    public void shutdown() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+        if (callExecutor != null) {
+            callExecutor.shutdownNow();
+        }
+        for (Peer peer : peers) {
+            if (peer.client != null) {
+                try {
+                    peer.client.stop();
+                } catch (Exception e) {
+                    log.warn("关闭节点连接失败 - 节点: {}, 错误: {}", peer.address, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 各节点状态
+     */
+    public List<Map<String, Object>> stats() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (Peer peer : peers) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("peer", peer.address);
+            item.put("connected", peer.client != null);
+            item.put("healthy", peer.healthy);
+            item.put("circuit", peer.consecutiveFailures < failureThreshold ? "closed"
+                    : peer.openUntil > now ? "open" : "half-open");
+            item.put("consecutiveFailures", peer.consecutiveFailures);
+            item.put("latencyMs", peer.latencyMs < 0 ? null : Math.round(peer.latencyMs));
+            item.put("blockNumber", peer.blockNumber < 0 ? null : peer.blockNumber);
+            item.put("calls", peer.calls.get());
+            item.put("failures", peer.failures.get());
+            item.put("timeouts", peer.timeouts.get());
+            stats.add(item);
+        }
+        return stats;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "ChainClientPool" + addresses();
+            }
+        }
+        if ("stop".equals(method.getName())) {
+            shutdown();
+            return null;
+        }
+        if (LOCAL_METHODS.contains(method.getName()) || method.getReturnType() == void.class) {
+            // 本地方法及带回调的异步调用不阻塞调用方，直接交给当前节点；全部熔断时本地方法仍可用
+            Peer peer = trySelect(null);
+            if (peer == null && LOCAL_METHODS.contains(method.getName())) {
+                peer = peers.stream().filter(p -> p.client != null).findFirst().orElse(null);
+            }
+            if (peer == null) {
+                throw new ClientException("没有可用的链节点: " + addresses());
+            }
+            return invokeDirect(peer, method, args);
+        }
+        boolean idempotent = !method.getName().startsWith("sendRawTransaction");
+        long timeoutMs = idempotent ? callTimeoutMs : transactionTimeoutMs;
+        Peer first = select();
+        try {
+            return invokeGuarded(first, method, args, timeoutMs);
+        } catch (ClientException e) {
+            if (!idempotent) {
+                throw e;
+            }
+            Peer second = trySelect(first);
+            if (second == null) {
+                throw e;
+            }
+            log.warn("节点 {} 调用 {} 失败，改用节点 {} 重试: {}", first.address, method.getName(),
+                    second.address, e.getMessage());
+            return invokeGuarded(second, method, args, timeoutMs);
+        }
+    }
+
+    private Object invokeDirect(Peer peer, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(peer.client, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 在调用线程池中执行同步RPC，超时或失败时计入节点的熔断器
+     */
+    private Object invokeGuarded(Peer peer, Method method, Object[] args, long timeoutMs) {
+        Future<Object> future;
+        try {
+            future = callExecutor.submit(() -> method.invoke(peer.client, args));
+        } catch (RejectedExecutionException e) {
+            throw new ClientException("链节点调用繁忙，请稍后重试", e);
+        }
+        long start = System.nanoTime();
+        peer.calls.incrementAndGet();
+        try {
+            Object result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            onSuccess(peer, (System.nanoTime() - start) / 1_000_000.0);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            peer.timeouts.incrementAndGet();
+            onFailure(peer);
+            throw new ClientException("链节点 " + peer.address + " 调用" + method.getName()
+                    + "超时(" + timeoutMs + "ms)", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ClientException("链节点调用被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof InvocationTargetException
+                    ? e.getCause().getCause() : e.getCause();
+            onFailure(peer);
+            if (cause instanceof ClientException) {
+                throw (ClientException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ClientException("链节点 " + peer.address + " 调用" + method.getName() + "失败", cause);
+        }
+    }
+
+    /**
+     * 选择延迟最低的可用节点
+     *
+     * @throws ClientException 没有可用节点时抛出
+     */
+    private Peer select() {
+        Peer peer = trySelect(null);
+        if (peer == null) {
+            throw new ClientException("没有可用的链节点: " + addresses());
+        }
+        return peer;
+    }
+
+    private Peer trySelect(Peer exclude) {
+        long maxBlock = -1;
+        for (Peer peer : peers) {
+            if (peer.client != null && peer.healthy) {
+                maxBlock = Math.max(maxBlock, peer.blockNumber);
+            }
+        }
+        Peer best = null;
+        Peer fallback = null;
+        for (Peer peer : peers) {
+            if (peer == exclude || peer.client == null || peer.consecutiveFailures >= failureThreshold) {
+                continue;
+            }
+            boolean lagging = maxBlock >= 0 && peer.blockNumber >= 0 && maxBlock - peer.blockNumber > maxBlockLag;
+            if (!peer.healthy || lagging) {
+                // 不健康或落后的节点只在没有其他选择时使用
+                if (fallback == null) {
+                    fallback = peer;
+                }
+                continue;
+            }
+            if (best == null || peer.score() < best.score()) {
+                best = peer;
+            }
+        }
+        return best != null ? best : fallback;
+    }
+
+    private List<String> addresses() {
+        List<String> addresses = new ArrayList<>();
+        for (Peer peer : peers) {
+            addresses.add(peer.address);
+        }
+        return addresses;
+    }
+
+    private void onSuccess(Peer peer, double latencyMs) {
+        synchronized (peer) {
+            peer.latencyMs = peer.latencyMs < 0 ? latencyMs : peer.latencyMs * (1 - EWMA_ALPHA) + latencyMs * EWMA_ALPHA;
+            peer.consecutiveFailures = 0;
+            peer.openUntil = 0;
+            peer.healthy = true;
+        }
+    }
+
+    private void onFailure(Peer peer) {
+        peer.failures.incrementAndGet();
+        boolean opened;
+        synchronized (peer) {
+            peer.consecutiveFailures++;
+            opened = peer.consecutiveFailures >= failureThreshold;
+            if (opened) {
+                // 半开状态下的试探失败时重新计时
+                peer.openUntil = System.currentTimeMillis() + openMs;
+                peer.healthy = false;
+                log.warn("链节点 {} 连续失败{}次，熔断{}ms", peer.address, peer.consecutiveFailures, openMs);
+            }
+        }
+        if (opened) {
+            for (Consumer<String> listener : failureListeners) {
+                try {
+                    listener.accept(peer.address);
+                } catch (Exception e) {
+                    log.warn("节点熔断监听处理失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void connect(Peer peer) {
+        try {
+            Client client = connector.apply(peer.address);
+            long blockNumber = client.getBlockNumber().getBlockNumber().longValue();
+            synchronized (peer) {
+                peer.blockNumber = blockNumber;
+                peer.healthy = true;
+                peer.consecutiveFailures = 0;
+                peer.openUntil = 0;
+            }
+            peer.client = client;
+            log.info("链节点 {} 连接成功，当前块高 {}", peer.address, blockNumber);
+        } catch (Exception e) {
+            log.warn("链节点 {} 连接失败: {}", peer.address, e.getMessage());
+        }
+    }
+
+    /**
+     * 探测全部节点：已连接的用getBlockNumber测量延迟和块高，未连接的尝试重连
+     */
+    private void probeAll() {
+        long now = System.currentTimeMillis();
+        for (Peer peer : peers) {
+            if (peer.client == null) {
+                connect(peer);
+                continue;
+            }
+            if (peer.openUntil > now) {
+                // 熔断期内不探测，到期后的探测即半开试探
+                continue;
+            }
+            Future<Long> future;
+            try {
+                future = callExecutor.submit(() -> peer.client.getBlockNumber().getBlockNumber().longValue());
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                peer.blockNumber = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+                onSuccess(peer, (System.nanoTime() - start) / 1_000_000.0);
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                future.cancel(true);
+                synchronized (peer) {
+                    peer.healthy = false;
+                }
+                onFailure(peer);
+                log.warn("链节点 {} 健康探测失败: {}", peer.address, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Peer {
+        final String address;
+        volatile Client client;
+        volatile boolean healthy;
+        volatile double latencyMs = -1;
+        volatile long blockNumber = -1;
+        volatile int consecutiveFailures;
+        // 熔断截止时间，0表示未熔断
+        volatile long openUntil;
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+
+        Peer(String address) {
+            this.address = address;
+        }
+
+        double score() {
+            return latencyMs < 0 ? Double.MAX_VALUE / 2 : latencyMs;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.lwf.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lwf.utils.AuthPrincipal;
+import com.lwf.utils.JwtUtil;
+import com.lwf.utils.Result;
+import com.lwf.utils.TtlCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JWT认证过滤器
+ * 每个请求只校验一次Authorization中的Bearer令牌，校验通过的声明按令牌的SHA-256摘要缓存到令牌过期，
+ * 同一令牌的后续请求不再做HS256验签；认证结果以AuthPrincipal放入请求属性供各控制器使用。
+ * 未携带令牌或令牌无效、过期的请求按匿名处理，浏览器中残留的旧令牌不影响重新获取nonce和登录；
+ * /api/admin/下的接口要求有效令牌且为admin角色，否则返回401/403。
+ * 过滤器排在CorsFilter之后，拒绝响应同样带有CORS头。
+ */
+@Slf4j
+@Component
+@Order(CorsConfig.FILTER_ORDER + 1)
+public class JwtAuthFilter extends OncePerRequestFilter {
+
+    private static final String ADMIN_PATH_PREFIX = "/api/admin/";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 已验证令牌缓存的最大条目数
+     */
+    @Value("${auth.jwt.claims-cache-size:100000}")
+    private long claimsCacheSize;
+
+    /**
+     * 是否要求管理接口的调用者为admin角色
+     */
+    @Value("${auth.admin.enforce:true}")
+    private boolean enforceAdmin;
+
+    private TtlCache<String, AuthPrincipal> verified;
+
+    private final LongAdder verifyCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        verified = new TtlCache<>("jwt-claims", claimsCacheSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verified.shutdown();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // CORS预检请求不带令牌
+        if (HttpMethod.OPTIONS.matches(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AuthPrincipal principal = null;
+        boolean invalidToken = false;
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && !authorization.trim().isEmpty()) {
+            principal = authenticate(authorization.trim());
+            if (principal == null) {
+                // 无效令牌按匿名处理，不放入请求属性
+                invalidToken = true;
+                rejectedCount.increment();
+                request.removeAttribute(AuthPrincipal.REQUEST_ATTRIBUTE);
+            } else {
+                request.setAttribute(AuthPrincipal.REQUEST_ATTRIBUTE, principal);
+            }
+        }
+
+        if (enforceAdmin && request.getRequestURI().startsWith(request.getContextPath() + ADMIN_PATH_PREFIX)) {
+            if (principal == null) {
+                reject(response, HttpStatus.UNAUTHORIZED, invalidToken ? "登录已过期或令牌无效，请重新登录" : "请先登录");
+                return;
+            }
+            if (!principal.isAdmin()) {
+                reject(response, HttpStatus.FORBIDDEN, "需要管理员权限");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * 认证统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("verifications", verifyCount.sum());
+        stats.put("rejected", rejectedCount.sum());
+        stats.put("claimsCache", verified.stats());
+        return stats;
+    }
+
+    /**
+     * 校验令牌，无效或过期时返回null
+     */
+    private AuthPrincipal authenticate(String authorization) {
+        String token = authorization.startsWith(JwtUtil.BEARER_PREFIX)
+                ? authorization.substring(JwtUtil.BEARER_PREFIX.length()).trim() : authorization;
+        String digest = digest(token);
+        long now = System.currentTimeMillis();
+        AuthPrincipal principal = verified.get(digest);
+        if (principal != null) {
+            // 缓存按秒级时间轮过期，这里再按毫秒核对一次
+            return principal.getExpiresAt() > now ? principal : null;
+        }
+
+        Claims claims;
+        try {
+            verifyCount.increment();
+            claims = JwtUtil.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("令牌校验失败: {}", e.getMessage());
+            return null;
+        }
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        Long userId;
+        try {
+            userId = Long.parseLong(claims.getSubject());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        principal = new AuthPrincipal(userId, claims.get("address", String.class),
+                claims.get("role", String.class), expiresAt);
+        if (expiresAt > now) {
+            verified.put(digest, principal, expiresAt == Long.MAX_VALUE ? Long.MAX_VALUE : expiresAt - now);
+        }
+        return principal;
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getWriter(), Result.error(status.value(), message));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
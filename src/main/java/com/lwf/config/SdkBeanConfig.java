@@ -1,7 +1,7 @@
 package com.lwf.config;
 
-import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -12,7 +12,9 @@ import org.fisco.bcos.sdk.client.Client;
 import org.fisco.bcos.sdk.config.ConfigOption;
 import org.fisco.bcos.sdk.config.exceptions.ConfigException;
 import org.fisco.bcos.sdk.config.model.ConfigProperty;
+import org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -23,10 +25,54 @@ public class SdkBeanConfig {
     @Autowired
     private SystemConfig config;
 
-    @Bean
-    public Client client() throws Exception {
-        log.info("=== SdkBeanConfig.client() 开始执行 ===");
-        log.info("SystemConfig injected: {}", config != null ? "是" : "否");
+    /**
+     * 同步RPC超时时间（毫秒）
+     */
+    @Value("${chain.client.call-timeout-ms:5000}")
+    private long callTimeoutMs;
+
+    /**
+     * 发送交易并等待回执的超时时间（毫秒）
+     */
+    @Value("${chain.client.transaction-timeout-ms:30000}")
+    private long transactionTimeoutMs;
+
+    /**
+     * 执行同步RPC的线程数
+     */
+    @Value("${chain.client.call-threads:32}")
+    private int callThreads;
+
+    /**
+     * 节点连续失败多少次后熔断
+     */
+    @Value("${chain.client.failure-threshold:3}")
+    private int failureThreshold;
+
+    /**
+     * 节点熔断时长（毫秒）
+     */
+    @Value("${chain.client.open-ms:10000}")
+    private long openMs;
+
+    /**
+     * 节点健康探测间隔（毫秒）
+     */
+    @Value("${chain.client.probe-interval-ms:5000}")
+    private long probeIntervalMs;
+
+    /**
+     * 节点允许落后最高块高的区块数
+     */
+    @Value("${chain.client.max-block-lag:10}")
+    private long maxBlockLag;
+
+    // 各节点连接共用的默认账户，首个连上的节点创建后安装到全部节点的CryptoSuite
+    private CryptoKeyPair defaultKeyPair;
+
+    @Bean(destroyMethod = "shutdown")
+    public ChainClientPool chainClientPool() throws Exception {
+        log.info("=== SdkBeanConfig.chainClientPool() 开始执行 ===");
         log.info("config.peers: {}", config.getPeers());
         log.info("config.groupId: {}", config.getGroupId());
         log.info("config.certPath: {}", config.getCertPath());
@@ -36,95 +82,82 @@ public class SdkBeanConfig {
         System.setProperty("fisco.crypto.type", "0");
         log.info("强制设置系统属性: fisco.ssl.crypto.type=0, fisco.crypto.type=0");
 
-        String certPaths = this.config.getCertPath();
-        String[] possibilities = certPaths.split(",|;");
-        log.info("Attempting to connect with cert paths: {}", certPaths);
-        log.info("Peers configuration: {}", config.getPeers());
-        log.info("Group ID: {}", config.getGroupId());
-
+        List<String> peers = parsePeers();
+        String[] possibilities = this.config.getCertPath().split(",|;");
         for (String certPath : possibilities) {
+            log.info("Trying cert path: {}", certPath);
+            ChainClientPool pool = new ChainClientPool(peers, peer -> connect(peer, certPath))
+                    .setCallTimeoutMs(callTimeoutMs)
+                    .setTransactionTimeoutMs(transactionTimeoutMs)
+                    .setCallThreads(callThreads)
+                    .setFailureThreshold(failureThreshold)
+                    .setOpenMs(openMs)
+                    .setProbeIntervalMs(probeIntervalMs)
+                    .setMaxBlockLag(maxBlockLag);
+            if (pool.start()) {
+                log.info("Chain client pool started with cert path {}, peers {}", certPath, peers);
+                return pool;
+            }
+            if (certPath.equals(possibilities[possibilities.length - 1])) {
+                // 最后一个路径也失败了，提供更详细的错误信息
+                log.error("所有证书路径尝试失败。请检查以下问题:");
+                log.error("1. 节点 {} 是否正在运行并监听正确端口", config.getPeers());
+                log.error("2. 节点配置是否为ECDSA模式（不是国密模式）");
+                log.error("3. 证书文件是否存在于正确路径: {}", certPath);
+                log.error("4. 网络连接是否正常，端口是否开放");
+                log.error("5. 如果节点使用国密模式，需要使用国密证书和国密SDK配置");
+                throw new ConfigException("Failed to connect to peers:" + config.getPeers() +
+                        "。请检查节点是否配置为ECDSA模式，或切换到国密SDK。");
+            }
             try {
-                log.info("Trying cert path: {}", certPath);
-                ConfigProperty property = new ConfigProperty();
-                configNetwork(property);
-                configCryptoMaterial(property, certPath);
-
-                ConfigOption configOption = new ConfigOption(property);
-                log.info("Creating BcosSDK with config: {}", property);
-                log.info("ConfigOption cryptoType: {}", configOption.getCryptoMaterialConfig().getSslCryptoType());
-
-                // 检查证书文件是否存在
-                try {
-                    log.info("检查证书文件是否存在:");
-                    log.info("CA证书: {}", this.getClass().getClassLoader().getResource("conf/ca.crt"));
-                    log.info("SDK证书: {}", this.getClass().getClassLoader().getResource("conf/sdk.crt"));
-                    log.info("SDK私钥: {}", this.getClass().getClassLoader().getResource("conf/sdk.key"));
-                } catch (Exception e) {
-                    log.error("检查证书文件失败", e);
-                }
-
-                // 创建BcosSDK实例，添加详细的错误处理
-                BcosSDK bcosSDK;
-                try {
-                    bcosSDK = new BcosSDK(configOption);
-                    log.info("BcosSDK created successfully");
-                } catch (Exception e) {
-                    log.error("BcosSDK创建失败，错误类型: {}", e.getClass().getSimpleName());
-                    log.error("错误消息: {}", e.getMessage());
-                    if (e.getCause() != null) {
-                        log.error("根本原因: {}", e.getCause().getMessage());
-                    }
-
-                    // 检查是否是SSL连接问题
-                    if (e.getMessage() != null && e.getMessage().contains("sslContext")) {
-                        log.error("SSL连接失败，请检查:");
-                        log.error("1. 节点 {} 是否正在运行", config.getPeers());
-                        log.error("2. 证书文件是否正确配置");
-                        log.error("3. 节点是否配置为ECDSA模式而非国密模式");
-                        log.error("4. 网络连接是否正常");
-                        log.error("5. 如果节点使用国密模式，请切换到ECDSA模式或使用国密SDK");
-                    }
-
-                    throw new Exception("ECDSA SSL连接失败。节点可能配置为国密模式或网络不可达。" +
-                            "错误详情: " + e.getMessage() +
-                            "。请确保节点支持ECDSA连接或切换到国密SDK。", e);
-                }
-
-                // 获取客户端
-                Client client = bcosSDK.getClient(config.getGroupId());
-                log.info("Client created successfully for group: {}", config.getGroupId());
-
-                // 测试连接
-                BigInteger blockNumber = client.getBlockNumber().getBlockNumber();
-                log.info("Chain connect successful. Current block number {}", blockNumber);
-
-                configCryptoKeyPair(client);
-                log.info("is Gm:{}, address:{}", client.getCryptoSuite().cryptoTypeConfig == 1,
-                        client.getCryptoSuite().getCryptoKeyPair().getAddress());
-                return client;
-            } catch (Exception ex) {
-                log.error("Failed to connect with cert path {}: {}", certPath, ex.getMessage(), ex);
-                if (certPath.equals(possibilities[possibilities.length - 1])) {
-                    // 最后一个路径也失败了，提供更详细的错误信息
-                    log.error("所有证书路径尝试失败。请检查以下问题:");
-                    log.error("1. 节点 {} 是否正在运行并监听正确端口", config.getPeers());
-                    log.error("2. 节点配置是否为ECDSA模式（不是国密模式）");
-                    log.error("3. 证书文件是否存在于正确路径: {}", certPath);
-                    log.error("4. 网络连接是否正常，端口是否开放");
-                    log.error("5. 如果节点使用国密模式，需要使用国密证书和国密SDK配置");
-                    throw new ConfigException("Failed to connect to peers:" + config.getPeers() +
-                            "。请检查节点是否配置为ECDSA模式，或切换到国密SDK。");
-                }
-                try {
-                    Thread.sleep(5000);
-                } catch (Exception e) {
-                }
+                Thread.sleep(5000);
+            } catch (Exception e) {
             }
         }
         throw new ConfigException("Failed to connect to peers:" + config.getPeers());
     }
 
-    public void configNetwork(ConfigProperty configProperty) {
+    /**
+     * 对外的链客户端：按节点健康状况转发到各节点连接的代理
+     */
+    @Bean
+    public Client client(ChainClientPool chainClientPool) {
+        Client client = chainClientPool.client();
+        log.info("is Gm:{}, address:{}", client.getCryptoSuite().cryptoTypeConfig == 1,
+                client.getCryptoSuite().getCryptoKeyPair().getAddress());
+        return client;
+    }
+
+    /**
+     * 为单个节点建立SDK连接
+     */
+    private Client connect(String peer, String certPath) {
+        ConfigProperty property = new ConfigProperty();
+        configNetwork(property, Collections.singletonList(peer));
+        configCryptoMaterial(property, certPath);
+
+        BcosSDK bcosSDK;
+        try {
+            ConfigOption configOption = new ConfigOption(property);
+            bcosSDK = new BcosSDK(configOption);
+        } catch (Exception e) {
+            // 检查是否是SSL连接问题
+            if (e.getMessage() != null && e.getMessage().contains("sslContext")) {
+                log.error("节点 {} SSL连接失败，请检查节点是否运行、证书是否正确、节点是否为ECDSA模式", peer);
+            }
+            throw new IllegalStateException("节点 " + peer + " 连接失败: " + e.getMessage(), e);
+        }
+        try {
+            Client client = bcosSDK.getClient(config.getGroupId());
+            configCryptoKeyPair(client);
+            return client;
+        } catch (RuntimeException e) {
+            bcosSDK.stopAll();
+            throw e;
+        }
+    }
+
+    private List<String> parsePeers() {
         String peerStr = config.getPeers();
         log.info("Configuring network with peers string: {}", peerStr);
 
@@ -133,9 +166,15 @@ public class SdkBeanConfig {
             throw new RuntimeException("Peers configuration is required");
         }
 
-        List<String> peers = Arrays.stream(peerStr.split(",")).collect(Collectors.toList());
+        List<String> peers = Arrays.stream(peerStr.split(","))
+                .map(String::trim)
+                .filter(peer -> !peer.isEmpty())
+                .collect(Collectors.toList());
         log.info("Parsed peers list: {}", peers);
+        return peers;
+    }
 
+    public void configNetwork(ConfigProperty configProperty, List<String> peers) {
         Map<String, Object> networkConfig = new HashMap<>();
         networkConfig.put("peers", peers);
 
@@ -170,10 +209,25 @@ public class SdkBeanConfig {
         configProperty.setCryptoMaterial(cryptoMaterials);
     }
 
+    /**
+     * 为节点连接安装默认账户
+     * 各节点使用同一个密钥对，连接池无论选中哪个节点，交易发送方和调用的from地址都一致
+     */
     public void configCryptoKeyPair(Client client) {
+        client.getCryptoSuite().setCryptoKeyPair(defaultKeyPair(client));
+    }
+
+    /**
+     * 默认账户密钥对，只创建一次；节点并行连接，需加锁
+     */
+    private synchronized CryptoKeyPair defaultKeyPair(Client client) {
+        if (defaultKeyPair != null) {
+            return defaultKeyPair;
+        }
         if (config.getHexPrivateKey() == null || config.getHexPrivateKey().isEmpty()) {
-            client.getCryptoSuite().setCryptoKeyPair(client.getCryptoSuite().createKeyPair());
-            return;
+            defaultKeyPair = client.getCryptoSuite().createKeyPair();
+            log.info("未配置私钥，生成随机默认账户: {}", defaultKeyPair.getAddress());
+            return defaultKeyPair;
         }
         String privateKey;
         if (!config.getHexPrivateKey().contains(",")) {
@@ -183,9 +237,10 @@ public class SdkBeanConfig {
             privateKey = list[0];
         }
         if (privateKey.startsWith("0x") || privateKey.startsWith("0X")) {
+            // 不改写配置中的私钥列表
             privateKey = privateKey.substring(2);
-            config.setHexPrivateKey(privateKey);
         }
-        client.getCryptoSuite().setCryptoKeyPair(client.getCryptoSuite().createKeyPair(privateKey));
+        defaultKeyPair = client.getCryptoSuite().createKeyPair(privateKey);
+        return defaultKeyPair;
     }
 }
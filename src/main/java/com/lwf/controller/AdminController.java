@@ -1,16 +1,31 @@
 package com.lwf.controller;
 
+import com.lwf.config.ChainClientPool;
+import com.lwf.config.JwtAuthFilter;
+import com.lwf.service.ChainEventIndexer;
+import com.lwf.service.ChainReadCache;
+import com.lwf.service.DuplicateReviewDetector;
+import com.lwf.service.FlashSaleService;
 import com.lwf.service.IProductsService;
 import com.lwf.service.IUsersService;
+import com.lwf.service.NonceService;
+import com.lwf.service.ReviewVelocityDetector;
+import com.lwf.service.RewardSimulator;
+import com.lwf.service.SimpleCacheService;
+import com.lwf.service.StockReservationService;
 import com.lwf.utils.Result;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 管理员控制器
  * 提供管理员相关的API接口，包括用户管理、店铺申请审核、商品审核和系统统计等功能
+ * 所有接口要求admin角色的令牌，由JwtAuthFilter统一校验
  */
 @RestController
 @RequestMapping("/api/admin")
@@ -30,6 +45,83 @@ public class AdminController {
     @Autowired
     private IProductsService productsService;
 
+    /**
+     * 缓存服务
+     * 用于查看本地缓存运行状态
+     */
+    @Autowired
+    private SimpleCacheService cacheService;
+
+    /**
+     * 重复评价检测
+     * 用于查看相似度索引运行状态
+     */
+    @Autowired
+    private DuplicateReviewDetector duplicateReviewDetector;
+
+    /**
+     * 评价速率异常检测
+     * 用于查看评价激增的异常窗口
+     */
+    @Autowired
+    private ReviewVelocityDetector reviewVelocityDetector;
+
+    /**
+     * 奖励模拟
+     * 用于估算待上链评论的奖励及奖池消耗
+     */
+    @Autowired
+    private RewardSimulator rewardSimulator;
+
+    /**
+     * 链上事件索引器
+     * 用于查看事件索引进度
+     */
+    @Autowired
+    private ChainEventIndexer chainEventIndexer;
+
+    /**
+     * 链上只读调用缓存
+     * 用于查看缓存命中情况
+     */
+    @Autowired
+    private ChainReadCache chainReadCache;
+
+    /**
+     * 链节点连接池
+     * 用于查看节点健康及熔断状态
+     */
+    @Autowired
+    private ChainClientPool chainClientPool;
+
+    /**
+     * 商品库存预占
+     * 用于查看预占、拒绝及释放情况
+     */
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    /**
+     * 秒杀服务
+     * 用于开始、结束秒杀及对账
+     */
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    /**
+     * JWT认证过滤器
+     * 用于查看令牌校验及缓存命中情况
+     */
+    @Autowired
+    private JwtAuthFilter jwtAuthFilter;
+
+    /**
+     * 登录nonce服务
+     * 用于查看nonce签发、限流及存储情况
+     */
+    @Autowired
+    private NonceService nonceService;
+
     /**
      * 获取用户列表
      * @param page 页码，默认为1
@@ -143,4 +235,163 @@ public class AdminController {
             return Result.error(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取本地缓存统计
+     * @return 返回缓存大小、命中率、淘汰及过期数量
+     */
+    @GetMapping("/cache/stats")
+    public Result<Map<String, Object>> getCacheStats() {
+        return Result.success(cacheService.stats());
+    }
+
+    /**
+     * 获取重复评价检测索引统计
+     * @return 返回索引是否预热完成、指纹数量及内存占用
+     */
+    @GetMapping("/review-duplicate/stats")
+    public Result<Map<String, Object>> getDuplicateReviewStats() {
+        return Result.success(duplicateReviewDetector.stats());
+    }
+
+    /**
+     * 获取评价速率异常窗口
+     * @param activeOnly 是否只返回统计窗口内仍在触发的，默认为false
+     * @return 返回异常窗口列表及检测器配置
+     */
+    @GetMapping("/review-velocity/flags")
+    public Result<Map<String, Object>> getReviewVelocityFlags(
+            @RequestParam(defaultValue = "false") Boolean activeOnly) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", reviewVelocityDetector.getFlags(activeOnly));
+        result.put("stats", reviewVelocityDetector.stats());
+        return Result.success(result);
+    }
+
+    /**
+     * 模拟待上链评论的奖励发放
+     * @param limit 最多模拟的评论数，为空时使用配置的上限
+     * @param coinDays 假定的发送账户币天，为空时使用链上的币天门槛
+     * @return 返回奖励合计、奖池余额、可发放合计及奖池不足的位置
+     */
+    @GetMapping("/reward-simulation")
+    public Result<Map<String, Object>> simulateRewards(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) BigInteger coinDays) {
+        try {
+            return Result.success(rewardSimulator.simulatePending(limit, coinDays));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取链上事件索引器状态
+     * @return 返回已索引区块、最新区块、落后区块数及最近一次错误
+     */
+    @GetMapping("/chain-indexer/stats")
+    public Result<Map<String, Object>> getChainIndexerStats() {
+        return Result.success(chainEventIndexer.stats());
+    }
+
+    /**
+     * 获取链上只读调用缓存统计
+     * @return 返回当前块高、加载及合并次数、两级缓存的命中率
+     */
+    @GetMapping("/chain-read-cache/stats")
+    public Result<Map<String, Object>> getChainReadCacheStats() {
+        return Result.success(chainReadCache.stats());
+    }
+
+    /**
+     * 获取链节点连接状态
+     * @return 返回各节点的健康状况、熔断状态、延迟及块高
+     */
+    @GetMapping("/chain-client/stats")
+    public Result<List<Map<String, Object>>> getChainClientStats() {
+        return Result.success(chainClientPool.stats());
+    }
+
+    /**
+     * 获取库存预占统计
+     * @return 返回预占成功、库存不足拒绝、到期或取消释放的次数
+     */
+    @GetMapping("/stock-reservation/stats")
+    public Result<Map<String, Object>> getStockReservationStats() {
+        return Result.success(stockReservationService.stats());
+    }
+
+    /**
+     * 开始商品秒杀
+     * @param productId 商品ID
+     * @param stock 参与秒杀的数量，为空时使用商品当前全部库存
+     * @return 返回秒杀ID及令牌数量
+     */
+    @PostMapping("/flash-sales/{productId}/start")
+    public Result<Map<String, Object>> startFlashSale(
+            @PathVariable Long productId,
+            @RequestParam(required = false) Integer stock) {
+        try {
+            return Result.success(flashSaleService.startSale(productId, stock));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 结束商品秒杀，未售出的数量还回商品库存
+     * @param productId 商品ID
+     * @return 返回售出及还回的数量
+     */
+    @PostMapping("/flash-sales/{productId}/stop")
+    public Result<Map<String, Object>> stopFlashSale(@PathVariable Long productId) {
+        try {
+            return Result.success(flashSaleService.stopSale(productId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 秒杀对账，运行实例心跳超时后遗留的秒杀会被结束并还回库存
+     * @param saleId 秒杀ID
+     * @return 返回售出数量与已写入订单的核对结果
+     */
+    @PostMapping("/flash-sales/{saleId}/reconcile")
+    public Result<Map<String, Object>> reconcileFlashSale(@PathVariable Long saleId) {
+        try {
+            return Result.success(flashSaleService.reconcile(saleId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取进行中的秒杀及订单写入状态
+     * @return 返回各秒杀的售出、排队、失败数量和下单速率
+     */
+    @GetMapping("/flash-sales")
+    public Result<Map<String, Object>> getFlashSales() {
+        Map<String, Object> result = flashSaleService.stats();
+        result.put("list", flashSaleService.listActive());
+        return Result.success(result);
+    }
+
+    /**
+     * 获取JWT认证统计
+     * @return 返回验签次数、拒绝次数及已验证令牌缓存的命中率
+     */
+    @GetMapping("/auth/stats")
+    public Result<Map<String, Object>> getAuthStats() {
+        return Result.success(jwtAuthFilter.stats());
+    }
+
+    /**
+     * 获取登录nonce统计
+     * @return 返回签发、限流、验证成功及失败次数和存储状态
+     */
+    @GetMapping("/auth/nonce-stats")
+    public Result<Map<String, Object>> getNonceStats() {
+        return Result.success(nonceService.stats());
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+
 import java.util.Map;
 
 /**
@@ -27,11 +29,13 @@ public class AuthController {
     /**
      * 获取随机数接口
      * 用于生成指定地址的随机数，通常用于登录验证流程
+     * 按连接的来源IP限流，不读取X-Forwarded-For等可由客户端伪造的请求头
      * @param request 包含用户地址的请求体
+     * @param httpRequest 当前HTTP请求，用于获取客户端IP
      * @return 返回生成的随机数或错误信息
      */
     @PostMapping("/nonce")
-    public Result<String> getNonce(@RequestBody Map<String, String> request) {
+    public Result<String> getNonce(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
 
         System.out.println("我进来获取nonce值了");
 
@@ -39,7 +43,7 @@ public class AuthController {
         if (address == null || address.isEmpty()) {
             return Result.error("地址不能为空");
         }
-        String nonce = usersService.generateNonce(address);
+        String nonce = usersService.generateNonce(address, httpRequest.getRemoteAddr());
         return Result.success(nonce);
     }
 
@@ -1,7 +1,9 @@
 package com.lwf.controller;
 
 import com.lwf.entity.dto.OrderDTO;
+import com.lwf.service.FlashSaleService;
 import com.lwf.service.IOrdersService;
+import com.lwf.utils.AuthPrincipal;
 import com.lwf.utils.Result;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
@@ -23,15 +25,29 @@ public class OrdersController {
     @Autowired
     private IOrdersService ordersService;
 
+    /**
+     * 秒杀下单服务，商品处于秒杀中时代替普通下单
+     */
+    @Autowired
+    private FlashSaleService flashSaleService;
+
     /**
      * 创建订单接口
      * @param orderDTO 订单数据传输对象，包含创建订单所需的信息
+     * @param principal JwtAuthFilter认证得到的当前用户，未携带令牌时为空
      * @return 返回操作结果，包含订单创建后的相关信息
      */
     @PostMapping("/orders")
-    public Result<Map<String, Object>> createOrder(@Validated @RequestBody OrderDTO orderDTO) {
+    public Result<Map<String, Object>> createOrder(@Validated @RequestBody OrderDTO orderDTO,
+            @RequestAttribute(value = AuthPrincipal.REQUEST_ATTRIBUTE, required = false) AuthPrincipal principal) {
         try {
-            Map<String, Object> result = ordersService.createOrder(orderDTO);
+            // 已登录时以令牌中的地址下单，未携带令牌时使用请求体中的地址（开发模式）
+            if (principal != null) {
+                orderDTO.setUserAddress(principal.getAddress());
+            }
+            Map<String, Object> result = flashSaleService.isActive(orderDTO.getProductId())
+                    ? flashSaleService.placeOrder(orderDTO)
+                    : ordersService.createOrder(orderDTO);
             return Result.success(result);
         } catch (Exception e) {
             return Result.error(e.getMessage());
@@ -43,15 +59,19 @@ public class OrdersController {
      * @param userAddress 用户地址
      * @param page 页码，默认为1
      * @param pageSize 每页大小，默认为10
+     * @param cursor 游标，传入时按游标分页（空字符串表示第一页）
+     * @param withTotal 是否统计总数，默认页码分页统计、游标分页不统计
      * @return 返回操作结果，包含用户订单列表信息
      */
     @GetMapping("/orders/user")
     public Result<Map<String, Object>> getUserOrders(
             @RequestParam String userAddress,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean withTotal) {
         try {
-            Map<String, Object> result = ordersService.getUserOrders(userAddress, page, pageSize);
+            Map<String, Object> result = ordersService.getUserOrders(userAddress, page, pageSize, cursor, withTotal);
             return Result.success(result);
         } catch (Exception e) {
             return Result.error(e.getMessage());
@@ -129,6 +149,8 @@ public class OrdersController {
      * @param status 订单状态
      * @param startTime 开始时间
      * @param endTime 结束时间
+     * @param cursor 游标，传入时按游标分页（空字符串表示第一页）
+     * @param withTotal 是否统计总数，默认页码分页统计、游标分页不统计
      * @return 返回操作结果，包含商家订单列表信息
      */
     @GetMapping("/merchant/orders")
@@ -141,10 +163,13 @@ public class OrdersController {
             @RequestParam(required = false) String customerAddress,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String startTime,
-            @RequestParam(required = false) String endTime) {
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean withTotal) {
         try {
             Map<String, Object> result = ordersService.getMerchantOrdersByAddress(
-                    merchantAddress, page, pageSize, orderId, productName, customerAddress, status, startTime, endTime);
+                    merchantAddress, page, pageSize, orderId, productName, customerAddress, status, startTime, endTime,
+                    cursor, withTotal);
             return Result.success(result);
         } catch (Exception e) {
             return Result.error(e.getMessage());
@@ -3,6 +3,7 @@ package com.lwf.controller;
 import com.lwf.entity.Products;
 import com.lwf.entity.dto.ProductQueryDTO;
 import com.lwf.entity.dto.ReviewDTO;
+import com.lwf.service.IProductRatingStatsService;
 import com.lwf.service.IProductsService;
 import com.lwf.service.IReviewsService;
 import com.lwf.utils.Result;
@@ -34,6 +35,13 @@ public class ProductsController {
     @Autowired
     private IReviewsService reviewsService;
 
+    /**
+     * 商品评分汇总服务接口
+     * 用于查询商品评分分布
+     */
+    @Autowired
+    private IProductRatingStatsService productRatingStatsService;
+
     /**
      * 获取商品列表
      * @param query 商品查询条件对象，包含各种筛选参数
@@ -69,15 +77,35 @@ public class ProductsController {
      * @param productId 商品ID，通过路径变量传递
      * @param page 页码，默认为1
      * @param pageSize 每页数量，默认为10
+     * @param cursor 游标，传入时按游标分页（空字符串表示第一页）
+     * @param withTotal 是否统计总数，默认页码分页统计、游标分页不统计
      * @return 返回一个Result对象，其中包含商品评价列表及分页信息
      */
     @GetMapping("/products/{productId}/reviews")
     public Result<Map<String, Object>> getProductReviews(
             @PathVariable Long productId,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean withTotal) {
+        try {
+            Map<String, Object> result = reviewsService.getProductReviews(productId, page, pageSize, cursor,
+                    withTotal);
+            return Result.success(result);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取商品评分分布
+     * @param productId 商品ID，通过路径变量传递
+     * @return 返回一个Result对象，其中包含评价数、平均分及1-5星的数量和占比
+     */
+    @GetMapping("/products/{productId}/rating-distribution")
+    public Result<Map<String, Object>> getRatingDistribution(@PathVariable Long productId) {
         try {
-            Map<String, Object> result = reviewsService.getProductReviews(productId, page, pageSize);
+            Map<String, Object> result = productRatingStatsService.getRatingDistribution(productId);
             return Result.success(result);
         } catch (Exception e) {
             return Result.error(e.getMessage());
@@ -2,10 +2,11 @@ package com.lwf.controller;
 
 import com.lwf.entity.Reviews;
 import com.lwf.entity.dto.ReviewDTO;
-import com.lwf.model.bo.ReviewCoreGetReviewInputBO;
+import com.lwf.service.ChainReadCache;
+import com.lwf.service.ChainReviewPager;
 import com.lwf.service.IReviewsService;
-import com.lwf.service.ReviewCoreService;
-import com.lwf.utils.JwtUtil;
+import com.lwf.service.ReviewChainQueue;
+import com.lwf.utils.AuthPrincipal;
 import com.lwf.utils.Result;
 import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,23 +34,29 @@ public class ReviewsController {
     private IReviewsService reviewsService;
 
     @Autowired
-    private ReviewCoreService reviewCoreService;
+    private ChainReadCache chainReadCache;
+
+    @Autowired
+    private ChainReviewPager chainReviewPager;
+
+    @Autowired
+    private ReviewChainQueue reviewChainQueue;
 
     /**
      * 提交评价接口
      * 
      * @param reviewDTO     评价数据传输对象，包含评价信息
-     * @param authorization JWT token from request header
+     * @param principal     JwtAuthFilter认证得到的当前用户，未携带令牌时为空
      * @return 返回操作结果，包含评价提交后的相关信息
      */
     @PostMapping
     public Result<Map<String, Object>> submitReview(@Validated @RequestBody ReviewDTO reviewDTO,
-            @RequestHeader(value = "Authorization", required = false) String authorization) {
+            @RequestAttribute(value = AuthPrincipal.REQUEST_ATTRIBUTE, required = false) AuthPrincipal principal) {
         try {
-            // 从JWT token中获取用户地址，如果token不存在则使用请求体中的地址（开发模式）
+            // 使用令牌中的用户地址，未携带令牌时使用请求体中的地址（开发模式）
             String userAddress;
-            if (authorization != null && !authorization.isEmpty()) {
-                userAddress = JwtUtil.getAddressFromToken(authorization);
+            if (principal != null) {
+                userAddress = principal.getAddress();
             } else if (reviewDTO.getUserAddress() != null && !reviewDTO.getUserAddress().isEmpty()) {
                 // 开发模式下使用请求体中的地址
                 userAddress = reviewDTO.getUserAddress();
@@ -71,15 +78,20 @@ public class ReviewsController {
      * @param productId 商品ID
      * @param 页码，默认为1
      * @param pageSize  每页大小，默认为10
+     * @param cursor 游标，传入时按游标分页（空字符串表示第一页）
+     * @param withTotal 是否统计总数，默认页码分页统计、游标分页不统计
      * @return 返回操作结果，包含商品评价列表及分页信息
      */
     @GetMapping("/product/{productId}")
     public Result<Map<String, Object>> getProductReviews(
             @PathVariable Long productId,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean withTotal) {
         try {
-            Map<String, Object> result = reviewsService.getProductReviews(productId, page, pageSize);
+            Map<String, Object> result = reviewsService.getProductReviews(productId, page, pageSize, cursor,
+                    withTotal);
             return Result.success(result);
         } catch (Exception e) {
             return Result.error(e.getMessage());
@@ -92,21 +104,67 @@ public class ReviewsController {
      * @param userAddress 用户地址
      * @param page        页码，默认为1
      * @param pageSize    每页大小，默认为10
+     * @param cursor 游标，传入时按游标分页（空字符串表示第一页）
+     * @param withTotal 是否统计总数，默认页码分页统计、游标分页不统计
      * @return 返回操作结果，包含用户评价列表及分页信息
      */
     @GetMapping("/user")
     public Result<Map<String, Object>> getUserReviews(
             @RequestParam String userAddress,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Boolean withTotal) {
         try {
-            Map<String, Object> result = reviewsService.getUserReviews(userAddress, page, pageSize);
+            Map<String, Object> result = reviewsService.getUserReviews(userAddress, page, pageSize, cursor,
+                    withTotal);
             return Result.success(result);
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
     }
 
+    /**
+     * 分页查询商品的链上评论
+     * 只读取一页评论ID及对应评论，不调用一次返回全部评论的getProductReviews
+     * 
+     * @param productId 上链时的商品ID
+     * @param page      页码，默认为1
+     * @param pageSize  每页大小，默认为10
+     * @return 返回本页链上评论、是否有下一页及数据来源
+     */
+    @GetMapping("/chain/product/{productId}")
+    public Result<Map<String, Object>> getChainProductReviews(
+            @PathVariable String productId,
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        try {
+            return Result.success(chainReviewPager.getProductReviews(productId, page, pageSize));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 分页查询用户地址的链上评论
+     * 
+     * @param userAddress 评论者地址
+     * @param page        页码，默认为1
+     * @param pageSize    每页大小，默认为10
+     * @return 返回本页链上评论、是否有下一页及数据来源
+     */
+    @GetMapping("/chain/user")
+    public Result<Map<String, Object>> getChainUserReviews(
+            @RequestParam String userAddress,
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        try {
+            return Result.success(chainReviewPager.getUserReviews(userAddress, page, pageSize));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 对评价进行投票接口
      * 
@@ -151,7 +209,7 @@ public class ReviewsController {
     /**
      * 批量将所有未上链的评价上传到区块链
      * 
-     * @return 返回批量上链结果，包含成功和失败数量
+     * @return 返回后台任务ID及初始进度，通过/upload-jobs/{jobId}查询后续进度
      */
     @PostMapping("/upload-all-to-blockchain")
     public Result<Map<String, Object>> uploadAllUnchainedReviews() {
@@ -167,6 +225,36 @@ public class ReviewsController {
         }
     }
 
+    /**
+     * 查询批量上链任务进度
+     *
+     * @param jobId 任务ID
+     * @return 返回已完成/失败/剩余数量及上链速率
+     */
+    @GetMapping("/upload-jobs/{jobId}")
+    public Result<Map<String, Object>> getUploadJobStatus(@PathVariable String jobId) {
+        try {
+            Map<String, Object> result = reviewsService.getUploadJobStatus(jobId);
+            if ((Integer) result.get("code") == 0) {
+                return Result.success(result);
+            } else {
+                return Result.error(result.get("message").toString());
+            }
+        } catch (Exception e) {
+            return Result.error("查询任务进度失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询评论上链队列状态
+     *
+     * @return 返回排队数、在途交易数及成功/失败计数
+     */
+    @GetMapping("/chain-queue/stats")
+    public Result<Map<String, Object>> getChainQueueStats() {
+        return Result.success(reviewChainQueue.getStats());
+    }
+
     /**
      * 查询评论的区块链详情
      * 
@@ -200,14 +288,12 @@ public class ReviewsController {
                 return Result.success(result);
             }
 
-            // 从区块链查询评论数据
-            ReviewCoreGetReviewInputBO dto = new ReviewCoreGetReviewInputBO();
-            dto.setReviewId(BigInteger.valueOf(review.getBlockchainReviewId()));
-
+            // 从区块链查询评论数据（链上评论不可变，经读穿缓存查询）
             System.out.println("查询区块链评论，reviewId: " + review.getBlockchainReviewId());
             CallResponse blockchainResponse;
             try {
-                blockchainResponse = reviewCoreService.getReview(dto);
+                blockchainResponse = chainReadCache
+                        .getReview(BigInteger.valueOf(review.getBlockchainReviewId()));
                 System.out.println("区块链响应: " + blockchainResponse);
 
                 // 检查区块链响应状态
@@ -311,10 +397,8 @@ public class ReviewsController {
             if (review.getBlockchainReviewId() != null) {
                 System.out.println("尝试查询区块链，ID: " + review.getBlockchainReviewId());
                 try {
-                    ReviewCoreGetReviewInputBO dto = new ReviewCoreGetReviewInputBO();
-                    dto.setReviewId(BigInteger.valueOf(review.getBlockchainReviewId()));
-
-                    CallResponse blockchainResponse = reviewCoreService.getReview(dto);
+                    CallResponse blockchainResponse = chainReadCache
+                            .getReview(BigInteger.valueOf(review.getBlockchainReviewId()));
                     System.out.println("区块链查询成功，响应: " + blockchainResponse);
 
                     debugInfo.put("blockchainQuerySuccess", true);
@@ -1,6 +1,7 @@
 package com.lwf.controller;
 
 import com.lwf.model.bo.*;
+import com.lwf.service.ChainReadCache;
 import com.lwf.service.ReviewCoreService;
 import org.fisco.bcos.sdk.transaction.model.dto.TransactionResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,9 @@ public class TestController {
     @Autowired
     private ReviewCoreService reviewCoreService;
 
+    @Autowired
+    private ChainReadCache chainReadCache;
+
     /**
      * 一键提交评论
      * POST 示例（form-data）：
@@ -49,8 +53,6 @@ public class TestController {
      */
     @GetMapping("/get")
     public Object get(@RequestParam Long reviewId) throws Exception {
-        ReviewCoreGetReviewInputBO dto = new ReviewCoreGetReviewInputBO();
-        dto.setReviewId(BigInteger.valueOf(reviewId));
-        return reviewCoreService.getReview(dto).getReturnObject(); // 返回 Tuple8
+        return chainReadCache.getReview(BigInteger.valueOf(reviewId)).getReturnObject(); // 返回 Tuple8
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.lwf.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 登录nonce，每个地址一条，验证后删除
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("auth_nonces")
+public class AuthNonces implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 钱包地址
+     */
+    @TableId(value = "address", type = IdType.INPUT)
+    private String address;
+
+    @TableField("nonce")
+    private String nonce;
+
+    /**
+     * 过期时间（毫秒时间戳）
+     */
+    @TableField("expires_at")
+    private Long expiresAt;
+}
@@ -0,0 +1,41 @@
+package com.lwf.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+
+import java.time.LocalDateTime;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 链上事件索引进度，记录每个索引器已处理到的区块
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("chain_index_checkpoint")
+public class ChainIndexCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 索引器名称
+     */
+    @TableId(value = "name", type = IdType.INPUT)
+    private String name;
+
+    /**
+     * 已处理的最后一个区块
+     */
+    @TableField("block_number")
+    private Long blockNumber;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
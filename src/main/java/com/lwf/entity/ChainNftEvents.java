@@ -0,0 +1,65 @@
+package com.lwf.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+
+import java.time.LocalDateTime;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 链上NFTMinted事件索引，以tokenId为主键
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("chain_nft_events")
+public class ChainNftEvents implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * NFT编号
+     */
+    @TableId(value = "token_id", type = IdType.INPUT)
+    private Long tokenId;
+
+    /**
+     * 持有人地址（小写）
+     */
+    @TableField("owner")
+    private String owner;
+
+    /**
+     * 链上评论ID
+     */
+    @TableField("review_id")
+    private Long reviewId;
+
+    /**
+     * 交易哈希
+     */
+    @TableField("tx_hash")
+    private String txHash;
+
+    /**
+     * 日志在区块中的序号
+     */
+    @TableField("log_index")
+    private Integer logIndex;
+
+    /**
+     * 区块高度
+     */
+    @TableField("block_number")
+    private Long blockNumber;
+
+    @TableField("indexed_at")
+    private LocalDateTime indexedAt;
+}
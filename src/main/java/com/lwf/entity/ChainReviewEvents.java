@@ -0,0 +1,71 @@
+package com.lwf.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+
+import java.time.LocalDateTime;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 链上ReviewSubmitted事件索引，以链上评论ID为主键
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("chain_review_events")
+public class ChainReviewEvents implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 链上评论ID
+     */
+    @TableId(value = "review_id", type = IdType.INPUT)
+    private Long reviewId;
+
+    /**
+     * 提交交易的账户地址（小写）
+     */
+    @TableField("reviewer")
+    private String reviewer;
+
+    /**
+     * 商品ID
+     */
+    @TableField("product_id")
+    private String productId;
+
+    /**
+     * NFT编号
+     */
+    @TableField("nft_id")
+    private Long nftId;
+
+    /**
+     * 交易哈希
+     */
+    @TableField("tx_hash")
+    private String txHash;
+
+    /**
+     * 日志在区块中的序号
+     */
+    @TableField("log_index")
+    private Integer logIndex;
+
+    /**
+     * 区块高度
+     */
+    @TableField("block_number")
+    private Long blockNumber;
+
+    @TableField("indexed_at")
+    private LocalDateTime indexedAt;
+}
@@ -0,0 +1,68 @@
+package com.lwf.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 链上RewardDistributed事件索引，(tx_hash, log_index)唯一
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("chain_reward_events")
+public class ChainRewardEvents implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 链上评论ID
+     */
+    @TableField("review_id")
+    private Long reviewId;
+
+    /**
+     * 奖励接收地址（小写）
+     */
+    @TableField("user_address")
+    private String userAddress;
+
+    /**
+     * 奖励金额（最小单位）
+     */
+    @TableField("amount")
+    private BigDecimal amount;
+
+    /**
+     * 交易哈希
+     */
+    @TableField("tx_hash")
+    private String txHash;
+
+    /**
+     * 日志在区块中的序号
+     */
+    @TableField("log_index")
+    private Integer logIndex;
+
+    /**
+     * 区块高度
+     */
+    @TableField("block_number")
+    private Long blockNumber;
+
+    @TableField("indexed_at")
+    private LocalDateTime indexedAt;
+}
@@ -0,0 +1,71 @@
+package com.lwf.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+
+import java.time.LocalDateTime;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 秒杀活动，记录从商品库存划出和还回的数量
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("flash_sales")
+public class FlashSales implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 商品ID
+     */
+    @TableField("product_id")
+    private Long productId;
+
+    /**
+     * 开始时从商品库存划出的数量
+     */
+    @TableField("initial_stock")
+    private Integer initialStock;
+
+    /**
+     * 结束时还回商品库存的数量
+     */
+    @TableField("returned_stock")
+    private Integer returnedStock;
+
+    /**
+     * 状态（active: 进行中，stopped: 已结束）
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 运行该秒杀的进程实例ID，每次启动随机生成
+     */
+    @TableField("owner_node")
+    private Long ownerNode;
+
+    /**
+     * 运行实例最近一次心跳的时间，超时未更新视为该实例已退出
+     */
+    @TableField("heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+
+    @TableField("stopped_at")
+    private LocalDateTime stoppedAt;
+}
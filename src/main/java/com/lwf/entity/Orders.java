@@ -73,6 +73,12 @@ public class Orders implements Serializable {
     @TableField("amount")
     private BigDecimal amount;
 
+    /**
+     * 购买数量
+     */
+    @TableField("quantity")
+    private Integer quantity;
+
     /**
      * 订单类型
      */
@@ -103,6 +109,12 @@ public class Orders implements Serializable {
     @TableField("tx_hash")
     private String txHash;
 
+    /**
+     * 库存预占到期时间，到期仍未支付的pending订单自动取消并归还库存
+     */
+    @TableField("reserve_expire_at")
+    private LocalDateTime reserveExpireAt;
+
     /**
      * 描述(奖励/优惠券用)
      */
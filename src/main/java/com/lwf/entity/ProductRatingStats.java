@@ -0,0 +1,61 @@
+package com.lwf.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import java.time.LocalDateTime;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 商品评分汇总表，评价提交时增量更新
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("product_rating_stats")
+public class ProductRatingStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "product_id", type = IdType.INPUT)
+    private Long productId;
+
+    /**
+     * 评价数
+     */
+    @TableField("review_count")
+    private Long reviewCount;
+
+    /**
+     * 评分总和
+     */
+    @TableField("rating_sum")
+    private Long ratingSum;
+
+    /**
+     * 1-5星评价数
+     */
+    @TableField("star1")
+    private Long star1;
+
+    @TableField("star2")
+    private Long star2;
+
+    @TableField("star3")
+    private Long star3;
+
+    @TableField("star4")
+    private Long star4;
+
+    @TableField("star5")
+    private Long star5;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
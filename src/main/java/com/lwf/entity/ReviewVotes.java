@@ -0,0 +1,49 @@
+package com.lwf.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import java.time.LocalDateTime;
+import java.io.Serializable;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+
+/**
+ * <p>
+ * 评价投票记录表，(review_id, user_address)唯一
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@TableName("review_votes")
+public class ReviewVotes implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 评价ID
+     */
+    @TableField("review_id")
+    private Long reviewId;
+
+    /**
+     * 投票用户地址（小写）
+     */
+    @TableField("user_address")
+    private String userAddress;
+
+    /**
+     * 是否为有用投票
+     */
+    @TableField("is_helpful")
+    private Boolean isHelpful;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
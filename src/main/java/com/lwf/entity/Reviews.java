@@ -107,6 +107,12 @@ public class Reviews implements Serializable {
     @TableField("blockchain_review_id")
     private Long blockchainReviewId;
 
+    /**
+     * 上链失败次数，达到review.chain.max-attempts后不再自动重试
+     */
+    @TableField("chain_attempts")
+    private Integer chainAttempts;
+
     @TableField("created_at")
     private LocalDateTime createdAt;
 
@@ -10,4 +10,8 @@ public class ProductQueryDTO {
     private String category;
     private String sortBy = "created_at";
     private String sortOrder = "desc";
+    // 游标分页，不为null时忽略page（空字符串表示第一页）
+    private String cursor;
+    // 是否统计总数，为null时页码分页统计、游标分页不统计
+    private Boolean withTotal;
 }
\ No newline at end of file
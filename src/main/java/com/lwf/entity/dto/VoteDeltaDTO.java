@@ -0,0 +1,15 @@
+package com.lwf.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 单条评价待写入的投票增量
+ */
+@Data
+@AllArgsConstructor
+public class VoteDeltaDTO {
+    private Long reviewId;
+    private Long helpful;
+    private Long unhelpful;
+}
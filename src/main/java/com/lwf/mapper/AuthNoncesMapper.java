@@ -0,0 +1,13 @@
+package com.lwf.mapper;
+
+import com.lwf.entity.AuthNonces;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface AuthNoncesMapper extends BaseMapper<AuthNonces> {
+
+    // 保存地址的nonce（已存在时覆盖）
+    int saveNonce(@Param("address") String address, @Param("nonce") String nonce, @Param("expiresAt") Long expiresAt);
+}
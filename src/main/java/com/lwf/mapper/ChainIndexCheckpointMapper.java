@@ -0,0 +1,13 @@
+package com.lwf.mapper;
+
+import com.lwf.entity.ChainIndexCheckpoint;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface ChainIndexCheckpointMapper extends BaseMapper<ChainIndexCheckpoint> {
+
+    // 保存索引进度（不存在时插入）
+    int saveCheckpoint(@Param("name") String name, @Param("blockNumber") Long blockNumber);
+}
@@ -0,0 +1,14 @@
+package com.lwf.mapper;
+
+import com.lwf.entity.ChainRewardEvents;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import java.util.List;
+
+@Mapper
+public interface ChainRewardEventsMapper extends BaseMapper<ChainRewardEvents> {
+
+    // 批量写入事件，重复索引同一区块时覆盖
+    int upsertBatch(@Param("events") List<ChainRewardEvents> events);
+}
@@ -0,0 +1,9 @@
+package com.lwf.mapper;
+
+import com.lwf.entity.FlashSales;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface FlashSalesMapper extends BaseMapper<FlashSales> {
+}
@@ -4,6 +4,7 @@ import com.lwf.entity.Orders;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +29,9 @@ public interface OrdersMapper extends BaseMapper<Orders> {
     // 确认收货
     int confirmReceipt(@Param("orderId") String orderId, @Param("userAddress") String userAddress);
 
+    // 取消pending订单并归还预占库存，expiredBefore不为空时只处理预占在该时间前到期且未支付的订单
+    int cancelReservation(@Param("id") Long id, @Param("expiredBefore") LocalDateTime expiredBefore);
+
     // 获取订单统计信息
     Map<String, Object> selectOrderStats(
             @Param("merchantId") Long merchantId,
@@ -0,0 +1,28 @@
+package com.lwf.mapper;
+
+import com.lwf.entity.ProductRatingStats;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface ProductRatingStatsMapper extends BaseMapper<ProductRatingStats> {
+
+    // 新增一条评分（不存在时插入）
+    int incrementRating(@Param("productId") Long productId, @Param("rating") Integer rating);
+
+    // 用汇总值更新单个商品的评分
+    int syncProductRating(@Param("productId") Long productId);
+
+    // 按商品ID区间从评价表重新统计汇总值
+    int rebuildRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // 区间内已无评价的商品清零
+    int resetEmptyRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // 按商品ID区间用汇总值更新商品评分
+    int syncProductRatingRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // 最大商品ID
+    Long selectMaxProductId();
+}
@@ -2,7 +2,6 @@ package com.lwf.mapper;
 
 import com.lwf.entity.Products;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.lwf.entity.dto.ProductQueryDTO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import java.util.List;
@@ -11,10 +10,6 @@ import java.util.Map;
 @Mapper
 public interface ProductsMapper extends BaseMapper<Products> {
 
-
-    // 商品搜索查询
-    List<Products> selectProductList(ProductQueryDTO query);
-
     // 获取商家商品列表
     List<Products> selectByMerchantAddress(
             @Param("merchantAddress") String merchantAddress,
@@ -34,6 +29,9 @@ public interface ProductsMapper extends BaseMapper<Products> {
     // 减少商品库存
     int decrementStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
 
+    // 归还商品库存
+    int incrementStock(@Param("productId") Long productId, @Param("quantity") Integer quantity);
+
     // 获取商品统计信息
     Map<String, Object> selectProductStats();
 
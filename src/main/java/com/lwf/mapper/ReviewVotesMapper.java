@@ -0,0 +1,17 @@
+package com.lwf.mapper;
+
+import com.lwf.entity.ReviewVotes;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import java.util.List;
+
+@Mapper
+public interface ReviewVotesMapper extends BaseMapper<ReviewVotes> {
+
+    // 按主键游标分页读取投票记录（启动回放使用）
+    List<ReviewVotes> selectAfterId(
+            @Param("lastId") Long lastId,
+            @Param("limit") Integer limit
+    );
+}
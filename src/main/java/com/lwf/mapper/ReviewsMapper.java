@@ -1,6 +1,7 @@
 package com.lwf.mapper;
 
 import com.lwf.entity.Reviews;
+import com.lwf.entity.dto.VoteDeltaDTO;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -31,12 +32,21 @@ public interface ReviewsMapper extends BaseMapper<Reviews> {
     // 获取评价统计信息
     Map<String, Object> selectReviewStats(@Param("productId") Long productId);
 
-    // 更新评价投票数
-    int updateVotes(
-            @Param("reviewId") Long reviewId,
-            @Param("helpfulVotes") Integer helpfulVotes,
-            @Param("unhelpfulVotes") Integer unhelpfulVotes
-    );
+    // 批量累加评价投票数
+    int incrementVotesBatch(@Param("deltas") List<VoteDeltaDTO> deltas);
+
+    // 按评价ID区间从投票记录重新统计票数，跳过skipIds中仍有未写库增量的评价
+    int rebuildVotesRange(@Param("fromId") Long fromId, @Param("toId") Long toId,
+                          @Param("skipIds") List<Long> skipIds);
+
+    // 最大评价ID
+    Long selectMaxId();
+
+    // 按交易哈希用链上事件索引校正链上评论ID和NFT ID
+    int reconcileFromChainIndex();
+
+    // 已有交易哈希但事件索引中找不到对应事件的评价数
+    Long countUnindexedChainReviews();
 
     // 获取热门评价
     List<Reviews> selectTopHelpfulReviews(
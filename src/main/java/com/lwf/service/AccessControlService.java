@@ -11,7 +11,6 @@ import lombok.NoArgsConstructor;
 
 import org.fisco.bcos.sdk.client.Client;
 import org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor;
-import org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory;
 import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
 import org.fisco.bcos.sdk.transaction.model.dto.TransactionResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,12 +33,14 @@ public class AccessControlService {
   @Autowired
   private Client client;
 
+  @Autowired
+  private SignerRegistry signerRegistry;
+
   AssembleTransactionProcessor txProcessor;
 
   @PostConstruct
   public void init() throws Exception {
-    this.txProcessor = TransactionProcessorFactory.createAssembleTransactionProcessor(this.client,
-        this.client.getCryptoSuite().getCryptoKeyPair());
+    this.txProcessor = this.signerRegistry.defaultProcessor();
   }
 
   public CallResponse isAuthorized(AccessControlIsAuthorizedInputBO input) throws Exception {
@@ -0,0 +1,396 @@
+package com.lwf.service;
+
+import com.lwf.config.ChainClientPool;
+import com.lwf.entity.ChainIndexCheckpoint;
+import com.lwf.entity.ChainNftEvents;
+import com.lwf.entity.ChainReviewEvents;
+import com.lwf.entity.ChainRewardEvents;
+import com.lwf.mapper.ChainIndexCheckpointMapper;
+import com.lwf.mapper.ChainNftEventsMapper;
+import com.lwf.mapper.ChainReviewEventsMapper;
+import com.lwf.mapper.ChainRewardEventsMapper;
+import com.lwf.raw.ReviewCore;
+import com.lwf.raw.ReviewNFT;
+import com.lwf.raw.RewardPool;
+import com.lwf.utils.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.fisco.bcos.sdk.abi.EventEncoder;
+import org.fisco.bcos.sdk.abi.EventValues;
+import org.fisco.bcos.sdk.abi.datatypes.Event;
+import org.fisco.bcos.sdk.client.Client;
+import org.fisco.bcos.sdk.contract.Contract;
+import org.fisco.bcos.sdk.eventsub.EventCallback;
+import org.fisco.bcos.sdk.eventsub.EventLogParams;
+import org.fisco.bcos.sdk.eventsub.EventSubscribe;
+import org.fisco.bcos.sdk.eventsub.filter.EventSubNodeRespStatus;
+import org.fisco.bcos.sdk.model.EventLog;
+import org.fisco.bcos.sdk.model.TransactionReceipt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 链上事件索引器
+ * 从上次处理到的区块开始，按固定大小的区块区间通过FISCO事件订阅接口拉取
+ * ReviewCore、RewardPool、ReviewNFT三个合约的ReviewSubmitted、RewardDistributed、NFTMinted事件，
+ * 解码后批量写入本地表，再推进进度。停机期间的区块在下次启动时按进度自动补齐；
+ * 追上最新区块后定期轮询新区块。事件写入按主键或(tx_hash, log_index)幂等，
+ * 写入后、保存进度前崩溃只会重复处理同一区间。
+ * 事件订阅绑定在连接池选出的单个节点上，该节点熔断或拉取失败时改用当前最优节点重建订阅，
+ * 从已保存的进度继续。
+ */
+@Slf4j
+@Service
+public class ChainEventIndexer {
+
+    private static final String CHECKPOINT_NAME = "contract-events";
+
+    @Autowired
+    private Client client;
+
+    @Autowired
+    private ChainClientPool chainClientPool;
+
+    @Autowired
+    private ReviewCoreService reviewCoreService;
+
+    @Autowired
+    private RewardPoolService rewardPoolService;
+
+    @Autowired
+    private ReviewNFTService reviewNFTService;
+
+    @Autowired
+    private ChainReviewEventsMapper chainReviewEventsMapper;
+
+    @Autowired
+    private ChainRewardEventsMapper chainRewardEventsMapper;
+
+    @Autowired
+    private ChainNftEventsMapper chainNftEventsMapper;
+
+    @Autowired
+    private ChainIndexCheckpointMapper chainIndexCheckpointMapper;
+
+    /**
+     * 是否启用事件索引
+     */
+    @Value("${chain.indexer.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 没有进度记录时从哪个区块开始索引（合约部署所在区块）
+     */
+    @Value("${chain.indexer.start-block:0}")
+    private long startBlock;
+
+    /**
+     * 每次订阅的区块数
+     */
+    @Value("${chain.indexer.range-size:500}")
+    private long rangeSize;
+
+    /**
+     * 追上最新区块后的轮询间隔（毫秒），出错时也按此间隔重试
+     */
+    @Value("${chain.indexer.poll-interval-ms:3000}")
+    private long pollIntervalMs;
+
+    /**
+     * 单个区间等待节点推送完成的超时时间（毫秒）
+     */
+    @Value("${chain.indexer.fetch-timeout-ms:30000}")
+    private long fetchTimeoutMs;
+
+    private volatile EventSubscribe eventSubscribe;
+
+    // 当前订阅绑定的节点
+    private volatile String boundPeer;
+
+    // 绑定节点熔断或拉取失败后置位，由索引线程重建订阅
+    private volatile boolean resubscribe;
+
+    private EventEncoder eventEncoder;
+
+    private String reviewSubmittedTopic;
+
+    private String rewardDistributedTopic;
+
+    private String nftMintedTopic;
+
+    private volatile long checkpoint = -1;
+
+    private volatile long headBlock = -1;
+
+    private volatile String lastError;
+
+    private final AtomicLong indexedEvents = new AtomicLong();
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        eventEncoder = new EventEncoder(client.getCryptoSuite());
+        reviewSubmittedTopic = eventEncoder.encode(ReviewCore.REVIEWSUBMITTED_EVENT);
+        rewardDistributedTopic = eventEncoder.encode(RewardPool.REWARDDISTRIBUTED_EVENT);
+        nftMintedTopic = eventEncoder.encode(ReviewNFT.NFTMINTED_EVENT);
+        chainClientPool.addFailureListener(peer -> {
+            if (peer.equals(boundPeer)) {
+                resubscribe = true;
+            }
+        });
+        running = true;
+        worker = new Thread(this::run, "chain-event-indexer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        if (eventSubscribe != null) {
+            eventSubscribe.stop();
+            eventSubscribe = null;
+        }
+    }
+
+    /**
+     * 索引器运行状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("boundPeer", boundPeer);
+        stats.put("checkpoint", checkpoint);
+        stats.put("headBlock", headBlock);
+        stats.put("lagBlocks", checkpoint >= 0 && headBlock >= 0 ? Math.max(0, headBlock - checkpoint) : null);
+        stats.put("indexedEvents", indexedEvents.get());
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    /**
+     * 当前已索引到的区块，尚未开始时返回-1
+     */
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (checkpoint < 0) {
+                    ChainIndexCheckpoint saved = chainIndexCheckpointMapper.selectById(CHECKPOINT_NAME);
+                    checkpoint = saved != null ? saved.getBlockNumber() : startBlock - 1;
+                    log.info("链上事件索引器启动，从区块 {} 开始", checkpoint + 1);
+                }
+                if (eventSubscribe == null || resubscribe) {
+                    subscribe();
+                }
+                headBlock = client.getBlockNumber().getBlockNumber().longValue();
+                long from = checkpoint + 1;
+                if (from > headBlock) {
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                    continue;
+                }
+                long to = Math.min(headBlock, from + rangeSize - 1);
+                List<EventLog> logs = fetch(from, to);
+                int count = persist(logs);
+                chainIndexCheckpointMapper.saveCheckpoint(CHECKPOINT_NAME, to);
+                checkpoint = to;
+                lastError = null;
+                if (count > 0) {
+                    log.debug("索引区块 {}-{}，事件 {} 条", from, to, count);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                // 绑定节点可能已不可用，下次改用当前最优节点重新订阅，从进度处重新拉取该区间
+                resubscribe = true;
+                log.warn("链上事件索引失败，{}ms后重试: {}", pollIntervalMs, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 在连接池当前最优的节点上建立事件订阅，替换原有订阅
+     */
+    private void subscribe() {
+        String peer = chainClientPool.selectPeer();
+        Client peerClient = chainClientPool.peerClient(peer);
+        if (peerClient == null) {
+            throw new BusinessException("链节点 " + peer + " 未连接");
+        }
+        EventSubscribe previous = eventSubscribe;
+        EventSubscribe subscribe = EventSubscribe.build(peerClient.getGroupManagerService(),
+                peerClient.getEventResource(), peerClient.getGroupId());
+        subscribe.start();
+        eventSubscribe = subscribe;
+        boundPeer = peer;
+        resubscribe = false;
+        if (previous != null) {
+            try {
+                previous.stop();
+            } catch (Exception e) {
+                log.warn("停止原事件订阅失败: {}", e.getMessage());
+            }
+        }
+        log.info("链上事件订阅绑定到节点 {}，从区块 {} 继续", peer, checkpoint + 1);
+    }
+
+    /**
+     * 订阅一个有界区块区间的三类事件，等待节点推送完毕
+     */
+    private List<EventLog> fetch(long from, long to) throws Exception {
+        EventLogParams params = new EventLogParams();
+        params.setFromBlock(String.valueOf(from));
+        params.setToBlock(String.valueOf(to));
+        params.setAddresses(Arrays.asList(reviewCoreService.getAddress(), rewardPoolService.getAddress(),
+                reviewNFTService.getAddress()));
+        // 第一个topic为三个事件签名中的任意一个
+        List<Object> topics = new ArrayList<>();
+        topics.add(Arrays.asList(reviewSubmittedTopic, rewardDistributedTopic, nftMintedTopic));
+        params.setTopics(topics);
+
+        List<EventLog> logs = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        EventCallback callback = (status, received) -> {
+            if (status == EventSubNodeRespStatus.SUCCESS.getStatus()) {
+                if (received != null) {
+                    logs.addAll(received);
+                }
+            } else if (status == EventSubNodeRespStatus.PUSH_COMPLETED.getStatus()) {
+                done.complete(null);
+            } else {
+                done.completeExceptionally(new BusinessException(
+                        "事件订阅失败: " + EventSubNodeRespStatus.getDescMessage(status)));
+            }
+        };
+        String registerId = eventSubscribe.subscribeEvent(params, callback);
+        try {
+            done.get(fetchTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            eventSubscribe.unsubscribeEvent(registerId, callback);
+            throw new BusinessException("等待区块 " + from + "-" + to + " 的事件推送超时");
+        }
+        synchronized (logs) {
+            return new ArrayList<>(logs);
+        }
+    }
+
+    /**
+     * 解码事件并按类型批量写入
+     *
+     * @return 写入的事件数
+     */
+    private int persist(List<EventLog> logs) {
+        List<ChainReviewEvents> reviews = new ArrayList<>();
+        List<ChainRewardEvents> rewards = new ArrayList<>();
+        List<ChainNftEvents> nfts = new ArrayList<>();
+        for (EventLog eventLog : logs) {
+            if (eventLog.isRemoved() || eventLog.getTopics() == null || eventLog.getTopics().isEmpty()) {
+                continue;
+            }
+            String topic0 = eventLog.getTopics().get(0);
+            String address = eventLog.getAddress();
+            if (reviewSubmittedTopic.equals(topic0) && address.equalsIgnoreCase(reviewCoreService.getAddress())) {
+                EventValues values = decode(ReviewCore.REVIEWSUBMITTED_EVENT, eventLog);
+                reviews.add(new ChainReviewEvents()
+                        .setReviewId(longValue(values.getIndexedValues().get(0).getValue()))
+                        .setReviewer(normalize(values.getIndexedValues().get(1).getValue()))
+                        .setProductId((String) values.getNonIndexedValues().get(0).getValue())
+                        .setNftId(longValue(values.getNonIndexedValues().get(1).getValue()))
+                        .setTxHash(eventLog.getTransactionHash())
+                        .setLogIndex(logIndex(eventLog))
+                        .setBlockNumber(eventLog.getBlockNumber().longValue()));
+            } else if (rewardDistributedTopic.equals(topic0)
+                    && address.equalsIgnoreCase(rewardPoolService.getAddress())) {
+                EventValues values = decode(RewardPool.REWARDDISTRIBUTED_EVENT, eventLog);
+                rewards.add(new ChainRewardEvents()
+                        .setUserAddress(normalize(values.getIndexedValues().get(0).getValue()))
+                        .setAmount(new BigDecimal((BigInteger) values.getNonIndexedValues().get(0).getValue()))
+                        .setReviewId(longValue(values.getNonIndexedValues().get(1).getValue()))
+                        .setTxHash(eventLog.getTransactionHash())
+                        .setLogIndex(logIndex(eventLog))
+                        .setBlockNumber(eventLog.getBlockNumber().longValue()));
+            } else if (nftMintedTopic.equals(topic0) && address.equalsIgnoreCase(reviewNFTService.getAddress())) {
+                EventValues values = decode(ReviewNFT.NFTMINTED_EVENT, eventLog);
+                nfts.add(new ChainNftEvents()
+                        .setTokenId(longValue(values.getIndexedValues().get(0).getValue()))
+                        .setOwner(normalize(values.getIndexedValues().get(1).getValue()))
+                        .setReviewId(longValue(values.getNonIndexedValues().get(0).getValue()))
+                        .setTxHash(eventLog.getTransactionHash())
+                        .setLogIndex(logIndex(eventLog))
+                        .setBlockNumber(eventLog.getBlockNumber().longValue()));
+            }
+        }
+        if (!reviews.isEmpty()) {
+            chainReviewEventsMapper.upsertBatch(reviews);
+        }
+        if (!rewards.isEmpty()) {
+            chainRewardEventsMapper.upsertBatch(rewards);
+        }
+        if (!nfts.isEmpty()) {
+            chainNftEventsMapper.upsertBatch(nfts);
+        }
+        int count = reviews.size() + rewards.size() + nfts.size();
+        indexedEvents.addAndGet(count);
+        return count;
+    }
+
+    private EventValues decode(Event event, EventLog eventLog) {
+        TransactionReceipt.Logs receiptLog = new TransactionReceipt.Logs();
+        receiptLog.setAddress(eventLog.getAddress());
+        receiptLog.setTopics(eventLog.getTopics());
+        receiptLog.setData(eventLog.getData());
+        EventValues values = Contract.staticExtractEventParameters(eventEncoder, event, receiptLog);
+        if (values == null) {
+            throw new BusinessException("无法解码事件, txHash: " + eventLog.getTransactionHash());
+        }
+        return values;
+    }
+
+    private static int logIndex(EventLog eventLog) {
+        return eventLog.getLogIndexRaw() == null ? 0 : eventLog.getLogIndex().intValue();
+    }
+
+    private static long longValue(Object value) {
+        return ((BigInteger) value).longValue();
+    }
+
+    private static String normalize(Object address) {
+        return ((String) address).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,296 @@
+package com.lwf.service;
+
+import com.lwf.model.bo.ReviewCoreGetReviewInputBO;
+import com.lwf.model.bo.ReviewCoreProductReviewsInputBO;
+import com.lwf.model.bo.ReviewCoreUserReviewsInputBO;
+import com.lwf.model.bo.ReviewNFTGetNFTInputBO;
+import com.lwf.model.bo.ReviewNFTGetUserTokensInputBO;
+import com.lwf.utils.TtlCache;
+import lombok.extern.slf4j.Slf4j;
+import org.fisco.bcos.sdk.client.Client;
+import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 链上只读调用的读穿缓存
+ * 1. 不可变记录：评论、NFT以及productReviews/userReviews数组中已有的元素一经上链不再修改
+ *    （合约中没有更新、删除或转移的入口），成功读取后长期缓存；
+ * 2. 可变视图：totalReviews、getPoolBalance、getUserTokens等随新区块变化，缓存值记录读取时的块高，
+ *    块高前进后视为失效；块高本身最多每隔block-poll-ms读取一次；
+ * 3. 同一个key的并发未命中合并为一次RPC，其余请求等待同一结果。
+ * 调用失败或合约revert（如ID不存在）的结果不缓存。返回的CallResponse为共享对象，调用方不应修改。
+ */
+@Slf4j
+@Service
+public class ChainReadCache {
+
+    @Autowired
+    private Client client;
+
+    @Autowired
+    private ReviewCoreService reviewCoreService;
+
+    @Autowired
+    private ReviewNFTService reviewNFTService;
+
+    @Autowired
+    private RewardPoolService rewardPoolService;
+
+    /**
+     * 是否启用缓存，关闭后每次都直接调用链上
+     */
+    @Value("${chain.read-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 不可变记录的最大缓存条数
+     */
+    @Value("${chain.read-cache.immutable-size:100000}")
+    private int immutableSize;
+
+    /**
+     * 可变视图的最大缓存条数
+     */
+    @Value("${chain.read-cache.block-scoped-size:10000}")
+    private int blockScopedSize;
+
+    /**
+     * 可变视图的最长存活时间（毫秒），块高读取失败时的兜底
+     */
+    @Value("${chain.read-cache.block-scoped-ttl-ms:60000}")
+    private long blockScopedTtlMs;
+
+    /**
+     * 读取当前块高的最小间隔（毫秒）
+     */
+    @Value("${chain.read-cache.block-poll-ms:1000}")
+    private long blockPollMs;
+
+    private TtlCache<String, CallResponse> immutableCache;
+
+    private TtlCache<String, BlockScoped> blockScopedCache;
+
+    private final Map<String, CompletableFuture<CallResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean blockRefreshing = new AtomicBoolean();
+
+    private volatile long blockNumber = -1;
+
+    private volatile long blockCheckedAt;
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder blockInvalidations = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        immutableCache = new TtlCache<>("chainReadImmutable", immutableSize);
+        blockScopedCache = new TtlCache<>("chainReadBlockScoped", blockScopedSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        immutableCache.shutdown();
+        blockScopedCache.shutdown();
+    }
+
+    /**
+     * 读取链上评论（不可变）
+     */
+    public CallResponse getReview(BigInteger reviewId) throws Exception {
+        return immutable("review:" + reviewId,
+                () -> reviewCoreService.getReview(new ReviewCoreGetReviewInputBO(reviewId)));
+    }
+
+    /**
+     * 读取评论NFT（不可变）
+     */
+    public CallResponse getNFT(BigInteger tokenId) throws Exception {
+        return immutable("nft:" + tokenId,
+                () -> reviewNFTService.getNFT(new ReviewNFTGetNFTInputBO(tokenId)));
+    }
+
+    /**
+     * 读取商品评论ID数组的第index个元素（不可变，越界时合约revert）
+     */
+    public CallResponse productReviewId(String productId, long index) throws Exception {
+        return immutable("productReviews:" + index + ":" + productId,
+                () -> reviewCoreService.productReviews(
+                        new ReviewCoreProductReviewsInputBO(productId, BigInteger.valueOf(index))));
+    }
+
+    /**
+     * 读取用户评论ID数组的第index个元素（不可变，越界时合约revert）
+     */
+    public CallResponse userReviewId(String address, long index) throws Exception {
+        String user = address == null ? "" : address.trim().toLowerCase(Locale.ROOT);
+        return immutable("userReviews:" + index + ":" + user,
+                () -> reviewCoreService.userReviews(
+                        new ReviewCoreUserReviewsInputBO(user, BigInteger.valueOf(index))));
+    }
+
+    /**
+     * 读取用户持有的NFT列表（随新区块变化）
+     */
+    public CallResponse getUserTokens(String address) throws Exception {
+        String user = address == null ? "" : address.trim().toLowerCase(Locale.ROOT);
+        return blockScoped("userTokens:" + user,
+                () -> reviewNFTService.getUserTokens(new ReviewNFTGetUserTokensInputBO(user)));
+    }
+
+    /**
+     * 读取链上评论总数（随新区块变化）
+     */
+    public CallResponse totalReviews() throws Exception {
+        return blockScoped("totalReviews", reviewCoreService::totalReviews);
+    }
+
+    /**
+     * 读取NFT总量（随新区块变化）
+     */
+    public CallResponse totalSupply() throws Exception {
+        return blockScoped("totalSupply", reviewNFTService::totalSupply);
+    }
+
+    /**
+     * 读取奖池余额（随新区块变化）
+     */
+    public CallResponse getPoolBalance() throws Exception {
+        return blockScoped("poolBalance", rewardPoolService::getPoolBalance);
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("blockNumber", blockNumber);
+        stats.put("loads", loads.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("blockInvalidations", blockInvalidations.sum());
+        stats.put("inFlight", inFlight.size());
+        stats.put("immutable", immutableCache.stats());
+        stats.put("blockScoped", blockScopedCache.stats());
+        return stats;
+    }
+
+    private CallResponse immutable(String key, Callable<CallResponse> call) throws Exception {
+        if (!enabled) {
+            return call.call();
+        }
+        CallResponse cached = immutableCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return load(key, () -> {
+            CallResponse response = call.call();
+            if (cacheable(response)) {
+                immutableCache.put(key, response, Long.MAX_VALUE);
+            }
+            return response;
+        });
+    }
+
+    private CallResponse blockScoped(String key, Callable<CallResponse> call) throws Exception {
+        if (!enabled) {
+            return call.call();
+        }
+        long current = currentBlock();
+        BlockScoped cached = blockScopedCache.get(key);
+        if (cached != null) {
+            if (current >= 0 && cached.blockNumber == current) {
+                return cached.response;
+            }
+            blockInvalidations.increment();
+        }
+        return load(key, () -> {
+            // 以发起调用前的块高标记结果，调用期间出块时下次读取即失效，不会把旧值当作新块的结果
+            long readAt = currentBlock();
+            CallResponse response = call.call();
+            if (readAt >= 0 && cacheable(response)) {
+                blockScopedCache.put(key, new BlockScoped(response, readAt), blockScopedTtlMs);
+            }
+            return response;
+        });
+    }
+
+    /**
+     * 合并同一个key的并发加载
+     */
+    private CallResponse load(String key, Callable<CallResponse> loader) throws Exception {
+        CompletableFuture<CallResponse> mine = new CompletableFuture<>();
+        CompletableFuture<CallResponse> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        loads.increment();
+        try {
+            CallResponse response = loader.call();
+            mine.complete(response);
+            return response;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 当前块高，超过读取间隔时由一个线程刷新，其余线程沿用上次的值
+     *
+     * @return 尚未读到块高时返回-1
+     */
+    private long currentBlock() {
+        long now = System.currentTimeMillis();
+        if (now - blockCheckedAt >= blockPollMs && blockRefreshing.compareAndSet(false, true)) {
+            try {
+                blockNumber = client.getBlockNumber().getBlockNumber().longValue();
+            } catch (Exception e) {
+                log.warn("读取块高失败: {}", e.getMessage());
+            } finally {
+                blockCheckedAt = now;
+                blockRefreshing.set(false);
+            }
+        }
+        return blockNumber;
+    }
+
+    private static boolean cacheable(CallResponse response) {
+        return response != null && response.getReturnCode() == 0
+                && response.getReturnObject() != null && !response.getReturnObject().isEmpty();
+    }
+
+    private static final class BlockScoped {
+        final CallResponse response;
+        final long blockNumber;
+
+        BlockScoped(CallResponse response, long blockNumber) {
+            this.response = response;
+            this.blockNumber = blockNumber;
+        }
+    }
+}
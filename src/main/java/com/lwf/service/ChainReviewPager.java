@@ -0,0 +1,241 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lwf.entity.ChainReviewEvents;
+import com.lwf.mapper.ChainReviewEventsMapper;
+import com.lwf.utils.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
+import org.fisco.bcos.sdk.transaction.model.exception.TransactionBaseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 链上评论分页读取
+ * ReviewCore.getProductReviews/getUserReviews一次返回全部评论及内容，热门商品单次解码可达数MB。
+ * 这里只取一页评论ID，再并发调用getReview（经ChainReadCache缓存）取回本页评论：
+ * 1. 事件索引可用时从chain_review_events按评论ID顺序分页，同时得到总数；
+ * 2. 否则通过productReviews(productId, i)/userReviews(user, i)逐个读取数组元素，越界（revert）即到末尾。
+ * 合约数组按评论ID递增追加，两种方式的排序一致。
+ */
+@Slf4j
+@Service
+public class ChainReviewPager {
+
+    @Autowired
+    private ChainReadCache chainReadCache;
+
+    @Autowired
+    private ChainReviewEventsMapper chainReviewEventsMapper;
+
+    @Autowired
+    private ChainEventIndexer chainEventIndexer;
+
+    /**
+     * 是否优先使用事件索引取评论ID
+     */
+    @Value("${chain.paged-read.use-index:true}")
+    private boolean useIndex;
+
+    /**
+     * 单页最多条数
+     */
+    @Value("${chain.paged-read.max-page-size:50}")
+    private int maxPageSize;
+
+    /**
+     * 并发读取链上数据的线程数
+     */
+    @Value("${chain.paged-read.fanout-threads:8}")
+    private int fanoutThreads;
+
+    /**
+     * 单页读取的超时时间（毫秒）
+     */
+    @Value("${chain.paged-read.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private ExecutorService fanoutExecutor;
+
+    @PostConstruct
+    public void start() {
+        fanoutExecutor = Executors.newFixedThreadPool(fanoutThreads, r -> {
+            Thread t = new Thread(r, "chain-review-pager");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        fanoutExecutor.shutdownNow();
+    }
+
+    /**
+     * 分页读取商品的链上评论
+     *
+     * @param productId 商品ID（与上链时的productId一致）
+     * @param page      页码，从1开始
+     * @param pageSize  每页数量
+     */
+    public Map<String, Object> getProductReviews(String productId, int page, int pageSize) {
+        if (productId == null || productId.isEmpty()) {
+            throw new BusinessException("商品ID不能为空");
+        }
+        return readPage("product_id", productId, page, pageSize,
+                index -> chainReadCache.productReviewId(productId, index));
+    }
+
+    /**
+     * 分页读取用户地址的链上评论
+     *
+     * @param address  评论者地址
+     * @param page     页码，从1开始
+     * @param pageSize 每页数量
+     */
+    public Map<String, Object> getUserReviews(String address, int page, int pageSize) {
+        if (address == null || address.trim().isEmpty()) {
+            throw new BusinessException("用户地址不能为空");
+        }
+        String user = address.trim().toLowerCase(Locale.ROOT);
+        return readPage("reviewer", user, page, pageSize,
+                index -> chainReadCache.userReviewId(user, index));
+    }
+
+    private Map<String, Object> readPage(String column, String value, int page, int pageSize,
+                                         ChainRead<CallResponse> idReader) {
+        int size = Math.max(1, Math.min(pageSize, maxPageSize));
+        long offset = (long) (Math.max(page, 1) - 1) * size;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+
+        Map<String, Object> result = new HashMap<>();
+        List<BigInteger> ids;
+        boolean hasMore;
+        if (useIndex && chainEventIndexer.getCheckpoint() >= 0) {
+            QueryWrapper<ChainReviewEvents> queryWrapper = new QueryWrapper<>();
+            queryWrapper.eq(column, value);
+            long total = chainReviewEventsMapper.selectCount(queryWrapper);
+            ids = new ArrayList<>();
+            if (offset < total) {
+                queryWrapper.select("review_id").orderByAsc("review_id").last("LIMIT " + offset + ", " + size);
+                for (ChainReviewEvents event : chainReviewEventsMapper.selectList(queryWrapper)) {
+                    ids.add(BigInteger.valueOf(event.getReviewId()));
+                }
+            }
+            hasMore = offset + ids.size() < total;
+            result.put("source", "index");
+            result.put("total", total);
+            result.put("indexedToBlock", chainEventIndexer.getCheckpoint());
+        } else {
+            // 多读一个元素判断是否还有下一页
+            List<BigInteger> probed = fanOut(size + 1, i -> readId(idReader, offset + i), deadline);
+            ids = new ArrayList<>();
+            for (BigInteger id : probed) {
+                if (id == null) {
+                    break;
+                }
+                ids.add(id);
+            }
+            hasMore = ids.size() > size;
+            if (hasMore) {
+                ids = ids.subList(0, size);
+            }
+            result.put("source", "chain");
+        }
+
+        List<BigInteger> pageIds = ids;
+        List<Map<String, Object>> list = fanOut(pageIds.size(), i -> readReview(pageIds.get((int) i)), deadline);
+        result.put("list", list);
+        result.put("page", Math.max(page, 1));
+        result.put("pageSize", size);
+        result.put("hasMore", hasMore);
+        return result;
+    }
+
+    /**
+     * 并发执行count个读取，结果按下标顺序返回
+     */
+    private <T> List<T> fanOut(int count, ChainRead<T> read, long deadline) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long index = i;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return read.apply(index);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, fanoutExecutor));
+        }
+        List<T> results = new ArrayList<>(count);
+        try {
+            for (CompletableFuture<T> future : futures) {
+                long remaining = deadline - System.currentTimeMillis();
+                results.add(future.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS));
+            }
+        } catch (TimeoutException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new BusinessException("读取链上评论超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("读取链上评论被中断");
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            log.warn("读取链上评论失败: {}", e.getCause().getMessage());
+            throw new BusinessException("读取链上评论失败：" + e.getCause().getMessage());
+        }
+        return results;
+    }
+
+    /**
+     * 读取数组中第index个评论ID，越界时返回null
+     */
+    private static BigInteger readId(ChainRead<CallResponse> idReader, long index) throws Exception {
+        try {
+            CallResponse response = idReader.apply(index);
+            return (BigInteger) response.getReturnObject().get(0);
+        } catch (TransactionBaseException e) {
+            // public数组的getter越界时revert
+            return null;
+        }
+    }
+
+    private Map<String, Object> readReview(BigInteger reviewId) throws Exception {
+        List<Object> returnObject = chainReadCache.getReview(reviewId).getReturnObject();
+        // 结构体返回值解码为单个元素的列表，元素本身是按字段顺序排列的列表
+        List<?> fields = returnObject.size() == 1 && returnObject.get(0) instanceof List
+                ? (List<?>) returnObject.get(0) : returnObject;
+        Map<String, Object> review = new HashMap<>();
+        review.put("id", ((Number) fields.get(0)).longValue());
+        review.put("reviewer", fields.get(1));
+        review.put("productId", fields.get(2));
+        review.put("content", fields.get(3));
+        review.put("rating", ((Number) fields.get(4)).intValue());
+        review.put("reward", fields.get(5).toString());
+        review.put("nftId", ((Number) fields.get(6)).longValue());
+        review.put("timestamp", ((Number) fields.get(7)).longValue());
+        return review;
+    }
+
+    @FunctionalInterface
+    private interface ChainRead<T> {
+        T apply(long index) throws Exception;
+    }
+}
@@ -0,0 +1,297 @@
+package com.lwf.service;
+
+import com.lwf.model.bo.ReviewCoreSubmitReviewInputBO;
+import com.lwf.utils.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.fisco.bcos.sdk.model.TransactionReceipt;
+import org.fisco.bcos.sdk.model.callback.TransactionCallback;
+import org.fisco.bcos.sdk.transaction.model.dto.TransactionResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 链上写交易签名账户池
+ * 把submitReview分散到ServiceManager中配置的全部私钥账户上：
+ * 每次选择当前在途交易最少的健康账户，每个账户有独立的在途上限，
+ * 连续失败达到阈值的账户暂停使用一段时间，冷却后重新参与调度。
+ * submitReview会消耗发送账户的币天，只从币天镜像判定为充足的账户中选择，全部不足时不发送交易。
+ * RewardPool.distributeReward只允许ReviewCore合约调用，ReviewNFT.mint只允许minter调用，
+ * 二者在submitReview交易内由合约发起，不经过本池从普通账户发送。
+ */
+@Slf4j
+@Service
+public class ChainSignerPool {
+
+    @Autowired
+    @Qualifier("ReviewCoreService")
+    private Map<String, ReviewCoreService> reviewCoreServiceMap;
+
+    // 未配置私钥列表时退回到默认账户
+    @Autowired
+    private ReviewCoreService defaultReviewCoreService;
+
+    @Autowired
+    private CoinDayMirror coinDayMirror;
+
+    /**
+     * 单个账户最大在途交易数
+     */
+    @Value("${chain.signer.max-in-flight:16}")
+    private int maxInFlightPerSigner;
+
+    /**
+     * 连续失败多少次后暂停该账户
+     */
+    @Value("${chain.signer.failure-threshold:3}")
+    private int failureThreshold;
+
+    /**
+     * 账户暂停时长（毫秒）
+     */
+    @Value("${chain.signer.cooldown-ms:30000}")
+    private long cooldownMs;
+
+    private List<Signer> signers;
+
+    // 全部账户的在途额度之和，额度用尽时调用方在此阻塞
+    private Semaphore capacity;
+
+    @PostConstruct
+    public void init() {
+        List<Signer> list = new ArrayList<>();
+        // 只遍历地址，账户的ReviewCore服务（及其交易处理器）在首次被选中发送时才创建
+        for (String address : reviewCoreServiceMap.keySet()) {
+            list.add(new Signer(address, () -> reviewCoreServiceMap.get(address)));
+        }
+        if (list.isEmpty()) {
+            String address = defaultReviewCoreService.getClient().getCryptoSuite().getCryptoKeyPair().getAddress();
+            list.add(new Signer(address, () -> defaultReviewCoreService));
+        }
+        signers = Collections.unmodifiableList(list);
+        capacity = new Semaphore(signers.size() * maxInFlightPerSigner);
+        List<String> addresses = new ArrayList<>();
+        for (Signer signer : signers) {
+            addresses.add(signer.address);
+        }
+        coinDayMirror.track(addresses);
+        log.info("签名账户池已初始化, 账户数={}, 单账户在途上限={}", signers.size(), maxInFlightPerSigner);
+    }
+
+    /**
+     * 账户数量
+     */
+    public int size() {
+        return signers.size();
+    }
+
+    /**
+     * 释放账户额度并记录本次交易结果
+     *
+     * @param success 交易是否成功
+     */
+    private void release(Signer signer, boolean success) {
+        vacate(signer);
+        capacity.release();
+        if (success) {
+            signer.succeeded.incrementAndGet();
+            signer.consecutiveFailures.set(0);
+            return;
+        }
+        signer.failed.incrementAndGet();
+        if (signer.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            signer.consecutiveFailures.set(0);
+            signer.unhealthyUntil = System.currentTimeMillis() + cooldownMs;
+            log.warn("签名账户连续失败，暂停{}ms - 账户: {}", cooldownMs, signer.address);
+        }
+    }
+
+    /**
+     * 同步提交评论
+     *
+     * @throws BusinessException 没有币天充足的账户时抛出，不发送交易
+     */
+    public TransactionResponse submitReview(ReviewCoreSubmitReviewInputBO input) throws Exception {
+        ReviewSlot slot = acquireForReview();
+        if (slot == null) {
+            long slotAt = nextReviewSlotAt();
+            throw new BusinessException(slotAt == Long.MAX_VALUE
+                    ? "签名账户币天不足，请先为签名账户充值代币"
+                    : "签名账户币天不足，预计" + Math.max(1, (slotAt - System.currentTimeMillis()) / 1000) + "秒后可提交");
+        }
+        boolean success = false;
+        TransactionReceipt receipt = null;
+        try {
+            TransactionResponse response = slot.signer.getReviewCoreService().submitReview(input);
+            receipt = response.getTransactionReceipt();
+            success = receipt != null && receipt.isStatusOK();
+            return response;
+        } finally {
+            release(slot.signer, success);
+            coinDayMirror.complete(slot.reservation, receipt);
+        }
+    }
+
+    /**
+     * 异步提交评论，账户额度用尽时阻塞调用线程，起到背压作用
+     *
+     * @return 交易回执；没有币天充足的账户时返回null，不发送交易，由调用方延后重试
+     */
+    public CompletableFuture<TransactionReceipt> submitReviewAsync(ReviewCoreSubmitReviewInputBO input)
+            throws InterruptedException {
+        ReviewSlot slot = acquireForReview();
+        if (slot == null) {
+            return null;
+        }
+        CompletableFuture<TransactionReceipt> future = new CompletableFuture<>();
+        try {
+            slot.signer.getReviewCoreService().submitReviewAsync(input, callback(slot.signer, future));
+        } catch (Exception e) {
+            release(slot.signer, false);
+            future.completeExceptionally(e);
+        }
+        // 先于调用方注册，回执到达时先结算币天
+        return future.whenComplete((receipt, ex) -> coinDayMirror.complete(slot.reservation, receipt));
+    }
+
+    /**
+     * 最早有账户币天恢复充足的时间（毫秒时间戳），没有账户可能恢复时返回Long.MAX_VALUE
+     */
+    public long nextReviewSlotAt() {
+        long earliest = Long.MAX_VALUE;
+        for (Signer signer : signers) {
+            earliest = Math.min(earliest, coinDayMirror.eligibleAt(signer.address));
+        }
+        return earliest;
+    }
+
+    /**
+     * 各账户运行状态
+     */
+    public List<Map<String, Object>> getStats() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (Signer signer : signers) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("address", signer.address);
+            item.put("inFlight", signer.inFlight.get());
+            item.put("maxInFlight", maxInFlightPerSigner);
+            item.put("succeeded", signer.succeeded.get());
+            item.put("failed", signer.failed.get());
+            item.put("healthy", signer.unhealthyUntil <= now);
+            item.put("coinDay", coinDayMirror.describe(signer.address));
+            stats.add(item);
+        }
+        return stats;
+    }
+
+    /**
+     * 占用一个币天充足的账户用于提交评论：按健康状态、在途数依次尝试，都不满足时返回null
+     */
+    private ReviewSlot acquireForReview() throws InterruptedException {
+        capacity.acquire();
+        long now = System.currentTimeMillis();
+        List<Signer> candidates = new ArrayList<>(signers);
+        candidates.sort(Comparator.comparing((Signer signer) -> signer.unhealthyUntil > now)
+                .thenComparingInt(signer -> signer.inFlight.get()));
+        for (Signer signer : candidates) {
+            if (!signer.tryOccupy(maxInFlightPerSigner)) {
+                continue;
+            }
+            CoinDayMirror.Reservation reservation = coinDayMirror.tryReserve(signer.address);
+            if (reservation != null) {
+                return new ReviewSlot(signer, reservation);
+            }
+            vacate(signer);
+        }
+        capacity.release();
+        return null;
+    }
+
+    /**
+     * 归还账户的一个在途额度
+     */
+    private void vacate(Signer signer) {
+        signer.inFlight.decrementAndGet();
+    }
+
+    private TransactionCallback callback(Signer signer, CompletableFuture<TransactionReceipt> future) {
+        return new TransactionCallback() {
+            @Override
+            public void onResponse(TransactionReceipt receipt) {
+                boolean success = receipt != null && receipt.isStatusOK();
+                release(signer, success);
+                if (receipt == null) {
+                    future.completeExceptionally(new BusinessException("未收到交易回执"));
+                } else {
+                    future.complete(receipt);
+                }
+            }
+        };
+    }
+
+    /**
+     * 提交评论占用的账户及其币天
+     */
+    private static class ReviewSlot {
+        private final Signer signer;
+        private final CoinDayMirror.Reservation reservation;
+
+        ReviewSlot(Signer signer, CoinDayMirror.Reservation reservation) {
+            this.signer = signer;
+            this.reservation = reservation;
+        }
+    }
+
+    /**
+     * 签名账户，持有该私钥对应的ReviewCore服务的获取方式
+     */
+    private static class Signer {
+        private final String address;
+        private final Supplier<ReviewCoreService> reviewCoreService;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile long unhealthyUntil;
+
+        Signer(String address, Supplier<ReviewCoreService> reviewCoreService) {
+            this.address = address;
+            this.reviewCoreService = reviewCoreService;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public ReviewCoreService getReviewCoreService() {
+            return reviewCoreService.get();
+        }
+
+        private boolean tryOccupy(int limit) {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
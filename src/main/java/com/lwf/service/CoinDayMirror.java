@@ -0,0 +1,357 @@
+package com.lwf.service;
+
+import com.lwf.model.bo.CoinDayValidatorUserDataInputBO;
+import com.lwf.model.bo.TestTokenBalanceOfInputBO;
+import com.lwf.raw.TestToken;
+import lombok.extern.slf4j.Slf4j;
+import org.fisco.bcos.sdk.model.TransactionReceipt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CoinDayValidator链下镜像
+ * ReviewCore.submitReview会校验并销毁交易发送方（即签名账户）的币天，币天不足时交易回滚。
+ * 这里为每个签名账户镜像userData(lastBalance, lastUpdateTime)和代币余额，
+ * 按合约相同的公式在本地计算币天，发送评论交易前先占用账户的币天，不足时直接拒绝或延后，
+ * 不再产生注定失败的交易。状态来源：
+ * 1. 首次使用及定期全量对账时从链上读取；
+ * 2. 评论交易回执中的CoinDaysBurned、Transfer事件增量更新；
+ * 3. 交易失败时回滚占用，并在下次使用前重新读取链上状态。
+ */
+@Slf4j
+@Service
+public class CoinDayMirror {
+
+    // FISCO BCOS的block.timestamp单位为毫秒，合约中的"1 days"即86400个时间单位
+    private static final long DAY = 86_400L;
+
+    @Autowired
+    private CoinDayValidatorService coinDayValidatorService;
+
+    @Autowired
+    private TestTokenService testTokenService;
+
+    /**
+     * 是否启用币天预校验，关闭后不拦截任何交易
+     */
+    @Value("${chain.coinday.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 本地时钟相对节点时钟的安全余量（毫秒），计算币天时按当前时间减去该值
+     */
+    @Value("${chain.coinday.safety-margin-ms:3000}")
+    private long safetyMarginMs;
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    private volatile BigInteger minCoinDays;
+
+    private final AtomicLong reserved = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong rolledBack = new AtomicLong();
+
+    /**
+     * 登记需要镜像的账户，链上状态在首次使用或下次对账时读取
+     */
+    public void track(Collection<String> addresses) {
+        for (String address : addresses) {
+            accounts.computeIfAbsent(normalize(address), Account::new);
+        }
+    }
+
+    /**
+     * 为账户占用一次评论所需的币天
+     * 账户币天充足时把本地lastUpdateTime推进到当前时间，使同一账户在币天恢复前不会被再次选中；
+     * 尚未读到链上状态（节点不可用）时放行，由链上校验兜底。
+     *
+     * @return 占用凭证，币天不足时返回null
+     */
+    public Reservation tryReserve(String address) {
+        Account account = accounts.get(normalize(address));
+        if (!enabled || account == null) {
+            return new Reservation(null, 0, 0);
+        }
+        if (account.stale) {
+            refresh(account);
+        }
+        synchronized (account) {
+            long now = System.currentTimeMillis();
+            if (account.stale || minCoinDays == null) {
+                return new Reservation(null, 0, 0);
+            }
+            if (coinDays(account, now - safetyMarginMs).compareTo(minCoinDays) < 0) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            Reservation reservation = new Reservation(account, account.lastUpdateTime, now);
+            account.lastUpdateTime = now;
+            account.pending++;
+            account.version++;
+            reserved.incrementAndGet();
+            return reservation;
+        }
+    }
+
+    /**
+     * 评论交易结束后结算占用：成功时应用回执中的事件，失败时回滚并标记需要重新读取链上状态
+     *
+     * @param receipt 交易回执，未收到回执或发送失败时为null
+     */
+    public void complete(Reservation reservation, TransactionReceipt receipt) {
+        Account account = reservation.account;
+        if (account == null) {
+            if (receipt != null && receipt.isStatusOK()) {
+                apply(receipt);
+            }
+            return;
+        }
+        if (receipt != null && receipt.isStatusOK()) {
+            // 先应用事件再结束在途，期间开始的链上读取会因版本变化被丢弃
+            apply(receipt);
+            synchronized (account) {
+                account.pending--;
+            }
+            return;
+        }
+        synchronized (account) {
+            account.pending--;
+            account.version++;
+            // 期间没有其他占用推进过时间时才恢复
+            if (account.lastUpdateTime == reservation.reservedAt) {
+                account.lastUpdateTime = reservation.previousUpdateTime;
+            }
+            account.stale = true;
+        }
+        rolledBack.incrementAndGet();
+    }
+
+    /**
+     * 应用交易回执中与镜像账户相关的Transfer和CoinDaysBurned事件
+     */
+    public void apply(TransactionReceipt receipt) {
+        if (!enabled || receipt.getLogs() == null || receipt.getLogs().isEmpty()) {
+            return;
+        }
+        for (TestToken.TransferEventResponse transfer : testTokenService.decodeTransferEvents(receipt)) {
+            Account from = accounts.get(normalize(transfer.from));
+            if (from != null) {
+                synchronized (from) {
+                    from.balance = from.balance.subtract(transfer.value).max(BigInteger.ZERO);
+                    from.version++;
+                }
+            }
+            Account to = accounts.get(normalize(transfer.to));
+            if (to != null) {
+                synchronized (to) {
+                    to.balance = to.balance.add(transfer.value);
+                    to.version++;
+                }
+            }
+        }
+        List<String> burned = coinDayValidatorService.decodeCoinDaysBurnedEvents(receipt);
+        if (burned.isEmpty()) {
+            return;
+        }
+        // 回执中没有区块时间，以收到回执的时间作为销毁时间，不会早于链上的实际值
+        long receivedAt = System.currentTimeMillis();
+        for (String user : burned) {
+            Account account = accounts.get(normalize(user));
+            if (account != null) {
+                synchronized (account) {
+                    account.lastBalance = account.balance;
+                    account.lastUpdateTime = Math.max(account.lastUpdateTime, receivedAt);
+                    account.version++;
+                }
+            }
+        }
+    }
+
+    /**
+     * 账户币天恢复到门槛的最早时间（毫秒时间戳）
+     *
+     * @return 已满足时返回当前时间，余额为0或未初始化时返回Long.MAX_VALUE
+     */
+    public long eligibleAt(String address) {
+        Account account = accounts.get(normalize(address));
+        if (!enabled || account == null) {
+            return System.currentTimeMillis();
+        }
+        synchronized (account) {
+            if (account.stale || minCoinDays == null) {
+                return System.currentTimeMillis();
+            }
+            if (account.lastUpdateTime == 0 || account.balance.signum() <= 0) {
+                return minCoinDays.signum() <= 0 ? System.currentTimeMillis() : Long.MAX_VALUE;
+            }
+            // 所需天数 = ceil(minCoinDays / balance)
+            BigInteger[] division = minCoinDays.divideAndRemainder(account.balance);
+            BigInteger days = division[1].signum() == 0 ? division[0] : division[0].add(BigInteger.ONE);
+            BigInteger at = days.multiply(BigInteger.valueOf(DAY))
+                    .add(BigInteger.valueOf(account.lastUpdateTime + safetyMarginMs));
+            return at.bitLength() < 63 ? Math.max(at.longValue(), System.currentTimeMillis()) : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 账户的镜像状态
+     */
+    public Map<String, Object> describe(String address) {
+        Map<String, Object> item = new HashMap<>();
+        Account account = accounts.get(normalize(address));
+        if (!enabled || account == null) {
+            item.put("enabled", enabled);
+            return item;
+        }
+        long eligibleAt = eligibleAt(address);
+        synchronized (account) {
+            item.put("synced", !account.stale);
+            item.put("balance", account.balance);
+            item.put("lastBalance", account.lastBalance);
+            item.put("lastUpdateTime", account.lastUpdateTime);
+            item.put("coinDays", coinDays(account, System.currentTimeMillis() - safetyMarginMs));
+            item.put("pending", account.pending);
+        }
+        item.put("minCoinDays", minCoinDays);
+        item.put("eligibleAt", eligibleAt == Long.MAX_VALUE ? null : eligibleAt);
+        return item;
+    }
+
+    /**
+     * 链上的币天门槛，尚未读取时返回null
+     */
+    public BigInteger getMinCoinDays() {
+        return minCoinDays;
+    }
+
+    /**
+     * 镜像整体统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("accounts", accounts.size());
+        stats.put("minCoinDays", minCoinDays);
+        stats.put("reserved", reserved.get());
+        stats.put("rejected", rejected.get());
+        stats.put("rolledBack", rolledBack.get());
+        return stats;
+    }
+
+    /**
+     * 定期从链上对账，覆盖通过水龙头、外部转账等本服务之外的交易引起的变化
+     */
+    @Scheduled(initialDelayString = "${chain.coinday.resync-initial-delay-ms:5000}",
+            fixedDelayString = "${chain.coinday.resync-interval-ms:300000}")
+    public void resync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            minCoinDays = (BigInteger) coinDayValidatorService.minCoinDays().getReturnObject().get(0);
+        } catch (Exception e) {
+            log.warn("读取链上minCoinDays失败: {}", e.getMessage());
+            return;
+        }
+        for (Account account : accounts.values()) {
+            refresh(account);
+        }
+    }
+
+    /**
+     * 从链上读取账户状态；读取期间账户有在途交易或状态被修改时放弃本次结果，等下次对账
+     */
+    private void refresh(Account account) {
+        long version;
+        synchronized (account) {
+            if (account.pending > 0) {
+                return;
+            }
+            version = account.version;
+        }
+        try {
+            if (minCoinDays == null) {
+                minCoinDays = (BigInteger) coinDayValidatorService.minCoinDays().getReturnObject().get(0);
+            }
+            List<Object> userData = coinDayValidatorService
+                    .userData(new CoinDayValidatorUserDataInputBO(account.address)).getReturnObject();
+            BigInteger balance = (BigInteger) testTokenService
+                    .balanceOf(new TestTokenBalanceOfInputBO(account.address)).getReturnObject().get(0);
+            synchronized (account) {
+                if (account.pending > 0 || account.version != version) {
+                    return;
+                }
+                account.lastBalance = (BigInteger) userData.get(0);
+                account.lastUpdateTime = ((BigInteger) userData.get(1)).longValue();
+                account.balance = balance;
+                account.stale = false;
+                account.version++;
+            }
+        } catch (Exception e) {
+            log.warn("读取账户币天状态失败 - 账户: {}, 错误: {}", account.address, e.getMessage());
+        }
+    }
+
+    /**
+     * 与CoinDayValidator.calculateCoinDays相同的公式：当前余额 × 整天数，未初始化的账户为0
+     */
+    private static BigInteger coinDays(Account account, long now) {
+        if (account.lastUpdateTime == 0 || now <= account.lastUpdateTime) {
+            return BigInteger.ZERO;
+        }
+        long dayCount = (now - account.lastUpdateTime) / DAY;
+        return account.balance.multiply(BigInteger.valueOf(dayCount));
+    }
+
+    private static String normalize(String address) {
+        return address == null ? "" : address.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Account {
+        final String address;
+        BigInteger lastBalance = BigInteger.ZERO;
+        long lastUpdateTime;
+        BigInteger balance = BigInteger.ZERO;
+        // 在途的评论交易数，期间不接受链上读取的结果，避免与回执事件重复计算
+        int pending;
+        // 每次修改递增，用于丢弃读取期间已过时的链上结果
+        long version;
+        // 尚未读取或需要重新读取链上状态
+        volatile boolean stale = true;
+
+        Account(String address) {
+            this.address = address;
+        }
+    }
+
+    /**
+     * 币天占用凭证，交易结束后交给complete结算
+     */
+    public static final class Reservation {
+
+        private final Account account;
+
+        private final long previousUpdateTime;
+
+        private final long reservedAt;
+
+        private Reservation(Account account, long previousUpdateTime, long reservedAt) {
+            this.account = account;
+            this.previousUpdateTime = previousUpdateTime;
+            this.reservedAt = reservedAt;
+        }
+    }
+}
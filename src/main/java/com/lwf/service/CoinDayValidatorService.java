@@ -2,16 +2,22 @@ package com.lwf.service;
 
 import java.lang.Exception;
 import java.lang.String;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import javax.annotation.PostConstruct;
 
 import com.lwf.model.bo.*;
+import com.lwf.raw.CoinDayValidator;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.demo.model.bo.CoinDayValidatorCalculateCoinDaysInputBO;
+import org.fisco.bcos.sdk.abi.EventEncoder;
+import org.fisco.bcos.sdk.abi.EventValues;
 import org.fisco.bcos.sdk.client.Client;
+import org.fisco.bcos.sdk.contract.Contract;
+import org.fisco.bcos.sdk.model.TransactionReceipt;
 import org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor;
-import org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory;
 import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
 import org.fisco.bcos.sdk.transaction.model.dto.TransactionResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,11 +40,14 @@ public class CoinDayValidatorService {
   @Autowired
   private Client client;
 
+  @Autowired
+  private SignerRegistry signerRegistry;
+
   AssembleTransactionProcessor txProcessor;
 
   @PostConstruct
   public void init() throws Exception {
-    this.txProcessor = TransactionProcessorFactory.createAssembleTransactionProcessor(this.client, this.client.getCryptoSuite().getCryptoKeyPair());
+    this.txProcessor = this.signerRegistry.defaultProcessor();
   }
 
   public TransactionResponse setMinCoinDays(CoinDayValidatorSetMinCoinDaysInputBO input) throws Exception {
@@ -88,4 +97,30 @@ public class CoinDayValidatorService {
   public TransactionResponse burnCoinDays(CoinDayValidatorBurnCoinDaysInputBO input) throws Exception {
     return this.txProcessor.sendTransactionAndGetResponse(this.address, ABI, "burnCoinDays", input.toArgs());
   }
+
+  /**
+   * 从交易回执日志中解析本合约的CoinDaysBurned事件
+   *
+   * @return 币天被销毁的账户地址，没有时返回空列表
+   */
+  public List<String> decodeCoinDaysBurnedEvents(TransactionReceipt receipt) {
+    List<String> users = new ArrayList<>();
+    if (receipt.getLogs() == null) {
+      return users;
+    }
+    EventEncoder eventEncoder = new EventEncoder(this.client.getCryptoSuite());
+    String topic0 = eventEncoder.encode(CoinDayValidator.COINDAYSBURNED_EVENT);
+    for (TransactionReceipt.Logs log : receipt.getLogs()) {
+      if (log.getTopics() == null || log.getTopics().isEmpty() || !topic0.equals(log.getTopics().get(0))
+          || (log.getAddress() != null && !log.getAddress().equalsIgnoreCase(this.address))) {
+        continue;
+      }
+      EventValues eventValues = Contract.staticExtractEventParameters(eventEncoder,
+          CoinDayValidator.COINDAYSBURNED_EVENT, log);
+      if (eventValues != null) {
+        users.add((String) eventValues.getIndexedValues().get(0).getValue());
+      }
+    }
+    return users;
+  }
 }
@@ -0,0 +1,229 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lwf.entity.Reviews;
+import com.lwf.mapper.ReviewsMapper;
+import com.lwf.utils.MinHash;
+import com.lwf.utils.MinHashIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 近似重复评价检测
+ * 评价内容计算MinHash签名后分别放入按商品和按用户分区的LSH索引，
+ * 提交新评价时在同一商品下或同一用户名下查找相似度达到阈值的已有评价，
+ * 用于拦截模板化的批量刷评。索引在内存中，启动时按主键分页从reviews表预热。
+ * 索引条目数有上限，满时淘汰最早加入的评价。
+ */
+@Slf4j
+@Service
+public class DuplicateReviewDetector {
+
+    public static final String SCOPE_PRODUCT = "product";
+
+    public static final String SCOPE_USER = "user";
+
+    @Autowired
+    private ReviewsMapper reviewsMapper;
+
+    /**
+     * 是否启用检测
+     */
+    @Value("${review.duplicate.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 判定为重复的最低相似度（按字符二元组集合的Jaccard相似度估计）
+     */
+    @Value("${review.duplicate.similarity:0.7}")
+    private double similarity;
+
+    /**
+     * 参与检测的最短内容长度（归一化后），过短的评价（如"好评"）重复是正常现象
+     */
+    @Value("${review.duplicate.min-length:10}")
+    private int minLength;
+
+    /**
+     * 命中后的处理方式：reject拒绝提交，flag标记为未验证但允许提交
+     */
+    @Value("${review.duplicate.action:reject}")
+    private String action;
+
+    /**
+     * 预热时每页读取的评价数
+     */
+    @Value("${review.duplicate.warmup-page-size:5000}")
+    private int warmupPageSize;
+
+    /**
+     * 索引初始容量
+     */
+    @Value("${review.duplicate.expected-size:100000}")
+    private int expectedSize;
+
+    /**
+     * 每个索引的最大条目数，0表示不限制
+     */
+    @Value("${review.duplicate.max-size:1000000}")
+    private int maxSize;
+
+    private MinHashIndex productIndex;
+
+    private MinHashIndex userIndex;
+
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        productIndex = new MinHashIndex(expectedSize, maxSize);
+        userIndex = new MinHashIndex(expectedSize, maxSize);
+        if (!enabled) {
+            return;
+        }
+        // 预热期间可能漏检，但不影响评价提交
+        Thread warmup = new Thread(this::warmup, "duplicate-review-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    /**
+     * 命中时是否拒绝提交
+     */
+    public boolean isRejectMode() {
+        return !"flag".equalsIgnoreCase(action);
+    }
+
+    /**
+     * 查找同一商品或同一用户下内容近似的已有评价
+     *
+     * @return 命中的评价，没有时返回null
+     */
+    public Match check(Long productId, String userAddress, String content) {
+        if (!enabled) {
+            return null;
+        }
+        String normalized = MinHash.normalize(content);
+        if (normalized.length() < minLength) {
+            return null;
+        }
+        long[] signature = MinHash.signature(normalized);
+        long reviewId = productIndex.findSimilar(productId, signature, similarity);
+        if (reviewId >= 0) {
+            return new Match(SCOPE_PRODUCT, reviewId);
+        }
+        reviewId = userIndex.findSimilar(MinHash.addressKey(userAddress), signature, similarity);
+        if (reviewId >= 0) {
+            return new Match(SCOPE_USER, reviewId);
+        }
+        return null;
+    }
+
+    /**
+     * 在当前数据库事务提交后把评价加入索引；不在事务中时立即加入
+     */
+    public void addAfterCommit(Long reviewId, Long productId, String userAddress, String content) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(reviewId, productId, userAddress, content);
+                }
+            });
+        } else {
+            add(reviewId, productId, userAddress, content);
+        }
+    }
+
+    /**
+     * 索引状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        stats.put("size", productIndex.size());
+        stats.put("maxSize", maxSize);
+        stats.put("memoryBytes", productIndex.memoryBytes() + userIndex.memoryBytes());
+        return stats;
+    }
+
+    private void add(Long reviewId, Long productId, String userAddress, String content) {
+        String normalized = MinHash.normalize(content);
+        if (reviewId == null || productId == null || normalized.length() < minLength) {
+            return;
+        }
+        long[] signature = MinHash.signature(normalized);
+        productIndex.add(productId, signature, reviewId);
+        userIndex.add(MinHash.addressKey(userAddress), signature, reviewId);
+    }
+
+    private void warmup() {
+        long lastId = 0;
+        long count = 0;
+        long start = System.currentTimeMillis();
+        try {
+            while (true) {
+                QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
+                queryWrapper.select("id", "product_id", "user_address", "content")
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("LIMIT " + warmupPageSize);
+                List<Reviews> page = reviewsMapper.selectList(queryWrapper);
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (Reviews review : page) {
+                    add(review.getId(), review.getProductId(), review.getUserAddress(), review.getContent());
+                }
+                lastId = page.get(page.size() - 1).getId();
+                count += page.size();
+            }
+            loaded = true;
+            log.info("重复评价索引预热完成，共 {} 条评价，耗时 {}ms", count, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("重复评价索引预热失败，已加载 {} 条: {}", count, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 检测命中结果
+     */
+    public static class Match {
+
+        private final String scope;
+
+        private final long reviewId;
+
+        public Match(String scope, long reviewId) {
+            this.scope = scope;
+            this.reviewId = reviewId;
+        }
+
+        /**
+         * 命中范围：product同一商品，user同一用户
+         */
+        public String getScope() {
+            return scope;
+        }
+
+        /**
+         * 相似的已有评价ID
+         */
+        public long getReviewId() {
+            return reviewId;
+        }
+    }
+}
@@ -0,0 +1,658 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.lwf.entity.FlashSales;
+import com.lwf.entity.Orders;
+import com.lwf.entity.Products;
+import com.lwf.entity.Users;
+import com.lwf.entity.dto.OrderDTO;
+import com.lwf.mapper.FlashSalesMapper;
+import com.lwf.mapper.OrdersMapper;
+import com.lwf.mapper.ProductsMapper;
+import com.lwf.utils.BusinessException;
+import com.lwf.utils.StockTokens;
+import com.lwf.utils.TtlCache;
+import com.lwf.utils.WriteBehindBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 秒杀下单
+ * 开始秒杀时用一条原子扣减把指定数量从商品库存划出，装入内存中的无锁令牌计数器；
+ * 秒杀期间该商品的下单请求只做内存操作：取令牌失败立即返回售罄，成功则生成订单放入异步写入缓冲，
+ * 由写入线程批量插入orders表。订单同样带库存预占到期时间，到期未支付由StockReservationService取消并归还到商品库存。
+ * 结束秒杀时把未售出的令牌还回商品库存；应用异常退出导致内存令牌丢失时，通过对账按已写入的订单数还回。
+ * 令牌只存在于本实例内存中，同一商品的秒杀只应在一个实例上开启。秒杀记录保存运行进程的实例ID（每次启动随机生成），
+ * 运行实例定期更新心跳，对账只回收心跳超时的秒杀，回收后状态为recovered。
+ * 订单写入、库存还回、结束与回收都先锁定秒杀记录：订单只在秒杀仍由本实例进行时写入，
+ * 回收已按已写入订单数还回了库存，之后被拒绝或写入失败的订单不再重复还回。
+ * returned_stock累计所有还回商品的数量（未售出的令牌、写入失败和被拒绝的订单、回收时的剩余）。
+ */
+@Slf4j
+@Service
+public class FlashSaleService {
+
+    private static final String STATUS_ACTIVE = "active";
+
+    private static final String STATUS_STOPPED = "stopped";
+
+    private static final String STATUS_RECOVERED = "recovered";
+
+    private static final String TAG_PREFIX = "flashSale:";
+
+    @Autowired
+    private IProductsService productsService;
+
+    @Autowired
+    private IUsersService usersService;
+
+    @Autowired
+    private IOrdersService ordersService;
+
+    @Autowired
+    private ProductsMapper productsMapper;
+
+    @Autowired
+    private OrdersMapper ordersMapper;
+
+    @Autowired
+    private FlashSalesMapper flashSalesMapper;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 待写入订单队列容量，满时拒绝下单
+     */
+    @Value("${flash-sale.queue-capacity:100000}")
+    private int queueCapacity;
+
+    /**
+     * 单批插入的订单数
+     */
+    @Value("${flash-sale.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 单批最多尝试写入的次数，用尽后归还库存
+     */
+    @Value("${flash-sale.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * 单个秒杀订单最多购买的数量
+     */
+    @Value("${flash-sale.max-quantity-per-order:5}")
+    private int maxQuantityPerOrder;
+
+    /**
+     * 用户地址 -> 用户ID缓存的容量
+     */
+    @Value("${flash-sale.user-cache-size:100000}")
+    private long userCacheSize;
+
+    /**
+     * 用户地址 -> 用户ID缓存的有效期（毫秒）
+     */
+    @Value("${flash-sale.user-cache-ttl-ms:600000}")
+    private long userCacheTtlMs;
+
+    /**
+     * 结束秒杀时等待订单写完的时间（毫秒）
+     */
+    @Value("${flash-sale.flush-timeout-ms:30000}")
+    private long flushTimeoutMs;
+
+    /**
+     * 心跳超过该时间（毫秒）未更新的秒杀视为运行实例已退出，可由对账回收
+     */
+    @Value("${flash-sale.heartbeat-timeout-ms:60000}")
+    private long heartbeatTimeoutMs;
+
+    /**
+     * 库存预占有效期（毫秒），与普通订单一致
+     */
+    @Value("${order.reservation.ttl-ms:900000}")
+    private long reservationTtlMs;
+
+    // 本进程的实例ID，写入秒杀记录的owner_node；重启后不同，不会把上一进程遗留的秒杀当作本实例的
+    private final long instanceId = 1 + new SecureRandom().nextInt(Integer.MAX_VALUE - 1);
+
+    // 商品ID -> 进行中的秒杀
+    private final Map<Long, Sale> activeSales = new ConcurrentHashMap<>();
+
+    private TtlCache<String, Long> userIds;
+
+    private WriteBehindBuffer<PendingOrder> buffer;
+
+    @PostConstruct
+    public void start() {
+        userIds = new TtlCache<>("flash-sale-users", userCacheSize);
+        buffer = new WriteBehindBuffer<>("flash-sale-orders", queueCapacity, batchSize, maxAttempts,
+                this::persist, this::onPersistFailed);
+        log.info("秒杀服务已启动，实例ID={}", instanceId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 正常关闭时结束全部秒杀，未售出的令牌还回商品库存
+        for (Long productId : new ArrayList<>(activeSales.keySet())) {
+            try {
+                stopSale(productId);
+            } catch (Exception e) {
+                log.error("关闭时结束商品 {} 的秒杀失败: {}", productId, e.getMessage(), e);
+            }
+        }
+        buffer.shutdown(flushTimeoutMs);
+        userIds.shutdown();
+    }
+
+    /**
+     * 商品是否正在秒杀
+     */
+    public boolean isActive(Long productId) {
+        return productId != null && activeSales.containsKey(productId);
+    }
+
+    /**
+     * 开始秒杀，从商品库存中划出stock件装入内存令牌
+     *
+     * @param productId 商品ID
+     * @param stock     参与秒杀的数量，为空时使用商品当前全部库存
+     */
+    public synchronized Map<String, Object> startSale(Long productId, Integer stock) {
+        if (activeSales.containsKey(productId)) {
+            throw new BusinessException("该商品已在秒杀中");
+        }
+        Products product = productsService.getById(productId);
+        if (product == null) {
+            throw new BusinessException("商品不存在");
+        }
+        if (!"onSale".equals(product.getStatus())) {
+            throw new BusinessException("商品未上架");
+        }
+        int quantity = stock != null ? stock : product.getStock();
+        if (quantity <= 0) {
+            throw new BusinessException("秒杀数量必须大于0");
+        }
+        if (productsMapper.decrementStock(productId, quantity) == 0) {
+            throw new BusinessException("商品库存不足");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        FlashSales record = new FlashSales()
+                .setProductId(productId)
+                .setInitialStock(quantity)
+                .setStatus(STATUS_ACTIVE)
+                .setOwnerNode(instanceId)
+                .setHeartbeatAt(now)
+                .setStartedAt(now);
+        try {
+            flashSalesMapper.insert(record);
+        } catch (RuntimeException e) {
+            productsMapper.incrementStock(productId, quantity);
+            throw e;
+        }
+
+        Sale sale = new Sale(record, product);
+        activeSales.put(productId, sale);
+        log.info("商品 {} 开始秒杀，秒杀ID={}，数量={}", productId, record.getId(), quantity);
+        return sale.stats();
+    }
+
+    /**
+     * 结束秒杀，等待已下单的订单写完，未售出的令牌还回商品库存
+     * 秒杀已被对账回收时，剩余令牌已计入回收时还回的数量，不再还回
+     */
+    public Map<String, Object> stopSale(Long productId) {
+        Sale sale = activeSales.remove(productId);
+        if (sale == null) {
+            throw new BusinessException("该商品没有进行中的秒杀");
+        }
+        int unsold = sale.tokens.drain();
+        if (!buffer.flush(flushTimeoutMs)) {
+            log.warn("秒杀 {} 结束时仍有订单未写入，结束后这些订单不再写入并还回库存", sale.id);
+        }
+        Boolean stopped = transactionTemplate.execute(status -> {
+            FlashSales locked = lockSale(sale.id);
+            if (locked == null || !STATUS_ACTIVE.equals(locked.getStatus())
+                    || locked.getOwnerNode() == null || locked.getOwnerNode() != instanceId) {
+                return false;
+            }
+            if (unsold > 0) {
+                productsMapper.incrementStock(productId, unsold);
+            }
+            flashSalesMapper.update(null, new UpdateWrapper<FlashSales>()
+                    .set("status", STATUS_STOPPED)
+                    .setSql("returned_stock = IFNULL(returned_stock, 0) + " + unsold)
+                    .set("stopped_at", LocalDateTime.now())
+                    .eq("id", sale.id));
+            return true;
+        });
+        int returned = unsold;
+        if (!Boolean.TRUE.equals(stopped)) {
+            log.error("秒杀 {} 已被对账回收，剩余令牌 {} 不再还回", sale.id, unsold);
+            returned = 0;
+        }
+        log.info("商品 {} 结束秒杀，秒杀ID={}，售出={}，还回库存={}", productId, sale.id, sale.soldUnits.sum(), returned);
+
+        Map<String, Object> result = sale.stats();
+        result.put("returnedStock", returned);
+        return result;
+    }
+
+    /**
+     * 更新本实例上进行中秒杀的心跳
+     * 更新不到时说明该秒杀已被对账回收（如本实例长时间停顿），不再继续售卖
+     */
+    @Scheduled(initialDelayString = "${flash-sale.heartbeat-interval-ms:5000}",
+            fixedDelayString = "${flash-sale.heartbeat-interval-ms:5000}")
+    public void heartbeat() {
+        for (Sale sale : activeSales.values()) {
+            try {
+                int updated = flashSalesMapper.update(null, new UpdateWrapper<FlashSales>()
+                        .set("heartbeat_at", LocalDateTime.now())
+                        .eq("id", sale.id)
+                        .eq("owner_node", instanceId)
+                        .eq("status", STATUS_ACTIVE));
+                if (updated == 0 && activeSales.remove(sale.productId, sale)) {
+                    // 回收时已按已写入订单还回库存，剩余令牌不再重复还回；待写入的订单写入时会被拒绝
+                    int unsold = sale.tokens.drain();
+                    log.error("秒杀 {} 已被对账回收，本实例停止售卖，丢弃剩余令牌 {}，待写入（将被丢弃） {}",
+                            sale.id, unsold, sale.queuedUnits.sum());
+                }
+            } catch (Exception e) {
+                log.error("更新秒杀 {} 心跳失败: {}", sale.id, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 进行中的秒杀
+     */
+    public List<Map<String, Object>> listActive() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Sale sale : activeSales.values()) {
+            list.add(sale.stats());
+        }
+        return list;
+    }
+
+    /**
+     * 秒杀下单，只做内存操作，订单异步写入
+     */
+    public Map<String, Object> placeOrder(OrderDTO orderDTO) {
+        Sale sale = activeSales.get(orderDTO.getProductId());
+        if (sale == null) {
+            throw new BusinessException("秒杀已结束");
+        }
+        int quantity = orderDTO.getQuantity() != null ? orderDTO.getQuantity() : 1;
+        if (quantity <= 0) {
+            throw new BusinessException("购买数量必须大于0");
+        }
+        if (quantity > maxQuantityPerOrder) {
+            throw new BusinessException("秒杀商品每单最多购买" + maxQuantityPerOrder + "件");
+        }
+        // 售罄后不再查询用户
+        if (sale.tokens.remaining() < quantity) {
+            sale.rejected.increment();
+            throw new BusinessException("商品已售罄");
+        }
+        Long userId = resolveUserId(orderDTO.getUserAddress());
+        if (!sale.tokens.tryAcquire(quantity)) {
+            sale.rejected.increment();
+            throw new BusinessException("商品已售罄");
+        }
+
+        Orders order = new Orders();
+        order.setOrderId(idGenerator.nextOrderId());
+        order.setProductId(sale.productId);
+        order.setUserId(userId);
+        order.setUserAddress(orderDTO.getUserAddress());
+        order.setMerchantId(sale.merchantId);
+        order.setProductName(sale.productName);
+        order.setAmount(orderDTO.getAmount() != null ? orderDTO.getAmount() : sale.price);
+        order.setQuantity(quantity);
+        order.setType("purchase");
+        order.setStatus("pending");
+        order.setReceiveStatus("pending");
+        order.setReserveExpireAt(LocalDateTime.now().plusNanos(reservationTtlMs * 1_000_000L));
+        order.setDescription(TAG_PREFIX + sale.id);
+
+        sale.queuedUnits.add(quantity);
+        if (!buffer.offer(new PendingOrder(sale, order))) {
+            sale.queuedUnits.add(-quantity);
+            // 秒杀已结束时令牌计数器已关闭，直接还回商品库存
+            if (!sale.tokens.release(quantity)) {
+                returnUnits(sale.id, sale.productId, quantity);
+            }
+            throw new BusinessException("下单人数过多，请稍后重试");
+        }
+        sale.soldUnits.add(quantity);
+        sale.accepted.increment();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 0);
+        result.put("orderId", order.getOrderId());
+        result.put("txHash", null);
+        result.put("reserveExpireAt", order.getReserveExpireAt());
+        result.put("queued", true);
+        result.put("message", "抢购成功，订单处理中");
+        return result;
+    }
+
+    /**
+     * 对账：比较内存中的售出数量与orders表中该秒杀的订单
+     * 秒杀记录仍为active但不在本实例内存中时，只有心跳已超时（运行实例异常退出）才按已写入的订单数量
+     * 把剩余库存还回商品并标记为recovered；心跳正常的秒杀仍在其他实例上进行，归属本实例的正在结束，均不做处理。
+     * 回收前锁定秒杀记录并以加锁读统计订单，与运行实例的订单写入串行
+     */
+    @Transactional
+    public Map<String, Object> reconcile(Long saleId) {
+        FlashSales record = flashSalesMapper.selectById(saleId);
+        if (record == null) {
+            throw new BusinessException("秒杀不存在");
+        }
+        long[] persisted = countOrders(saleId, false);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("saleId", saleId);
+        result.put("productId", record.getProductId());
+        result.put("initialStock", record.getInitialStock());
+        result.put("persistedOrders", persisted[0]);
+        result.put("persistedUnits", persisted[1]);
+
+        Sale sale = activeSales.get(record.getProductId());
+        if (sale != null && sale.id.equals(saleId)) {
+            // 已售出 = 已写入 + 待写入 + 写入失败（已还回库存）
+            long expected = sale.soldUnits.sum() - sale.queuedUnits.sum() - sale.failedUnits.sum();
+            result.putAll(sale.stats());
+            result.put("expectedPersistedUnits", expected);
+            result.put("consistent", expected == persisted[1]);
+            return result;
+        }
+
+        if (STATUS_ACTIVE.equals(record.getStatus())) {
+            // 锁定后重新判断，期间运行实例可能恢复了心跳或结束了秒杀
+            FlashSales locked = lockSale(saleId);
+            result.put("ownerNode", locked.getOwnerNode());
+            result.put("heartbeatAt", locked.getHeartbeatAt());
+            if (!STATUS_ACTIVE.equals(locked.getStatus())) {
+                result.put("status", locked.getStatus());
+                result.put("recovered", false);
+                result.put("message", "秒杀状态已变化，请重新对账");
+                return result;
+            }
+            boolean ownedHere = locked.getOwnerNode() != null && locked.getOwnerNode() == instanceId;
+            LocalDateTime staleBefore = LocalDateTime.now().minusNanos(heartbeatTimeoutMs * 1_000_000L);
+            boolean stale = locked.getHeartbeatAt() == null || locked.getHeartbeatAt().isBefore(staleBefore);
+            if (ownedHere || !stale) {
+                result.put("status", STATUS_ACTIVE);
+                result.put("recovered", false);
+                result.put("message", ownedHere ? "秒杀正在本实例上结束"
+                        : "秒杀仍在实例 " + locked.getOwnerNode() + " 上进行");
+                return result;
+            }
+
+            persisted = countOrders(saleId, true);
+            result.put("persistedOrders", persisted[0]);
+            result.put("persistedUnits", persisted[1]);
+            int alreadyReturned = locked.getReturnedStock() != null ? locked.getReturnedStock() : 0;
+            int returned = (int) Math.max(0, locked.getInitialStock() - persisted[1] - alreadyReturned);
+            flashSalesMapper.update(null, new UpdateWrapper<FlashSales>()
+                    .set("status", STATUS_RECOVERED)
+                    .set("returned_stock", alreadyReturned + returned)
+                    .set("stopped_at", LocalDateTime.now())
+                    .eq("id", saleId));
+            if (returned > 0) {
+                productsMapper.incrementStock(locked.getProductId(), returned);
+            }
+            log.warn("秒杀 {} 的运行实例 {} 已失联，已按已写入订单结束并还回库存 {}", saleId, locked.getOwnerNode(), returned);
+            result.put("status", STATUS_RECOVERED);
+            result.put("returnedStock", returned);
+            result.put("recovered", true);
+            return result;
+        }
+
+        // 已结束：还回的数量已累计在returned_stock中，其余应全部是已写入的订单
+        int returned = record.getReturnedStock() != null ? record.getReturnedStock() : 0;
+        result.put("status", record.getStatus());
+        result.put("returnedStock", returned);
+        result.put("unpersistedUnits", record.getInitialStock() - returned - persisted[1]);
+        return result;
+    }
+
+    /**
+     * 写入缓冲统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("activeSales", activeSales.size());
+        stats.put("buffer", buffer.stats());
+        stats.put("userCache", userIds.stats());
+        return stats;
+    }
+
+    private Long resolveUserId(String address) {
+        if (address == null || address.isEmpty()) {
+            throw new BusinessException("用户地址不能为空");
+        }
+        Long userId = userIds.get(address);
+        if (userId != null) {
+            return userId;
+        }
+        QueryWrapper<Users> userQuery = new QueryWrapper<>();
+        userQuery.select("id").eq("address", address);
+        Users user = usersService.getOne(userQuery);
+        if (user == null) {
+            throw new BusinessException("用户不存在");
+        }
+        userIds.put(address, user.getId(), userCacheTtlMs);
+        return user.getId();
+    }
+
+    /**
+     * @param locking 是否使用加锁读，读取最新提交的订单而不是事务开始时的快照
+     */
+    private long[] countOrders(Long saleId, boolean locking) {
+        QueryWrapper<Orders> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("COUNT(*) AS orders", "IFNULL(SUM(quantity), 0) AS units")
+                .eq("description", TAG_PREFIX + saleId);
+        if (locking) {
+            queryWrapper.last("LOCK IN SHARE MODE");
+        }
+        List<Map<String, Object>> rows = ordersMapper.selectMaps(queryWrapper);
+        Map<String, Object> row = rows.isEmpty() ? null : rows.get(0);
+        if (row == null) {
+            return new long[]{0, 0};
+        }
+        return new long[]{((Number) row.get("orders")).longValue(), ((Number) row.get("units")).longValue()};
+    }
+
+    /**
+     * 在一个事务中写入订单：先共享锁定各秒杀记录，只写入仍由本实例进行的秒杀的订单
+     * 其余订单（秒杀已结束或已被回收）不写入，按returnUnits的规则处理库存
+     */
+    private void persist(List<PendingOrder> batch) {
+        List<PendingOrder> refused = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            refused.clear();
+            Map<Long, Boolean> writable = new HashMap<>();
+            List<Orders> orders = new ArrayList<>(batch.size());
+            for (PendingOrder pending : batch) {
+                if (writable.computeIfAbsent(pending.sale.id, this::lockWritable)) {
+                    orders.add(pending.order);
+                } else {
+                    refused.add(pending);
+                }
+            }
+            if (!orders.isEmpty()) {
+                ordersService.saveBatch(orders, orders.size());
+            }
+        });
+        for (PendingOrder pending : batch) {
+            pending.sale.queuedUnits.add(-pending.order.getQuantity());
+        }
+        for (PendingOrder pending : refused) {
+            int quantity = pending.order.getQuantity();
+            pending.sale.failedUnits.add(quantity);
+            boolean returned = returnUnits(pending.sale.id, pending.sale.productId, quantity);
+            log.error("秒杀 {} 已不由本实例进行，订单 {} 未写入，{}", pending.sale.id, pending.order.getOrderId(),
+                    returned ? "已还回库存 " + quantity : "库存已在回收时还回");
+        }
+    }
+
+    /**
+     * 订单最终写入失败：库存来自商品库存，直接还回商品，不再放回令牌
+     */
+    private void onPersistFailed(List<PendingOrder> batch, Exception e) {
+        for (PendingOrder pending : batch) {
+            int quantity = pending.order.getQuantity();
+            pending.sale.queuedUnits.add(-quantity);
+            pending.sale.failedUnits.add(quantity);
+            try {
+                boolean returned = returnUnits(pending.sale.id, pending.sale.productId, quantity);
+                log.error("秒杀订单 {} 写入失败，{}", pending.order.getOrderId(),
+                        returned ? "已还回库存 " + quantity : "库存已在回收时还回");
+            } catch (RuntimeException ex) {
+                log.error("秒杀订单 {} 写入失败，还回库存 {} 也失败，需对账处理: {}",
+                        pending.order.getOrderId(), quantity, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * 把未成交的数量还回商品库存并累计到returned_stock
+     * 秒杀已被回收时，回收已按已写入订单数还回了这部分库存，不再重复还回
+     *
+     * @return 是否还回
+     */
+    private boolean returnUnits(Long saleId, Long productId, int quantity) {
+        Boolean returned = transactionTemplate.execute(status -> {
+            FlashSales locked = lockSale(saleId);
+            if (locked == null || STATUS_RECOVERED.equals(locked.getStatus())) {
+                return false;
+            }
+            productsMapper.incrementStock(productId, quantity);
+            flashSalesMapper.update(null, new UpdateWrapper<FlashSales>()
+                    .setSql("returned_stock = IFNULL(returned_stock, 0) + " + quantity)
+                    .eq("id", saleId));
+            return true;
+        });
+        return Boolean.TRUE.equals(returned);
+    }
+
+    /**
+     * 排他锁定秒杀记录，需在事务中调用
+     */
+    private FlashSales lockSale(Long saleId) {
+        return flashSalesMapper.selectOne(new QueryWrapper<FlashSales>().eq("id", saleId).last("FOR UPDATE"));
+    }
+
+    /**
+     * 共享锁定秒杀记录并判断是否仍由本实例进行，需在事务中调用
+     * 回收与结束秒杀要等本事务提交后才能拿到排他锁
+     */
+    private boolean lockWritable(Long saleId) {
+        FlashSales locked = flashSalesMapper.selectOne(new QueryWrapper<FlashSales>()
+                .select("id", "status", "owner_node")
+                .eq("id", saleId)
+                .last("LOCK IN SHARE MODE"));
+        return locked != null && STATUS_ACTIVE.equals(locked.getStatus())
+                && locked.getOwnerNode() != null && locked.getOwnerNode() == instanceId;
+    }
+
+    /**
+     * 一场进行中的秒杀，商品信息在开始时取快照
+     */
+    private static final class Sale {
+
+        final Long id;
+
+        final Long productId;
+
+        final Long merchantId;
+
+        final String productName;
+
+        final BigDecimal price;
+
+        final int initialStock;
+
+        final LocalDateTime startedAt;
+
+        final StockTokens tokens;
+
+        final LongAdder accepted = new LongAdder();
+
+        final LongAdder rejected = new LongAdder();
+
+        final LongAdder soldUnits = new LongAdder();
+
+        final LongAdder queuedUnits = new LongAdder();
+
+        final LongAdder failedUnits = new LongAdder();
+
+        Sale(FlashSales record, Products product) {
+            this.id = record.getId();
+            this.productId = product.getId();
+            this.merchantId = product.getMerchantId();
+            this.productName = product.getName();
+            this.price = product.getPrice();
+            this.initialStock = record.getInitialStock();
+            this.startedAt = record.getStartedAt();
+            this.tokens = new StockTokens(initialStock);
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("saleId", id);
+            stats.put("productId", productId);
+            stats.put("initialStock", initialStock);
+            stats.put("remaining", tokens.remaining());
+            stats.put("acceptedOrders", accepted.sum());
+            stats.put("rejectedOrders", rejected.sum());
+            stats.put("soldUnits", soldUnits.sum());
+            stats.put("queuedUnits", queuedUnits.sum());
+            stats.put("failedUnits", failedUnits.sum());
+            stats.put("startedAt", startedAt);
+            long seconds = Math.max(1, Duration.between(startedAt, LocalDateTime.now()).getSeconds());
+            stats.put("ordersPerSecond", accepted.sum() / seconds);
+            return stats;
+        }
+    }
+
+    private static final class PendingOrder {
+
+        final Sale sale;
+
+        final Orders order;
+
+        PendingOrder(Sale sale, Orders order) {
+            this.sale = sale;
+            this.order = order;
+        }
+    }
+}
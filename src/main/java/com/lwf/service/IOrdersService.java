@@ -24,9 +24,12 @@ public interface IOrdersService extends IService<Orders> {
      * @param userAddress 用户地址，用于标识用户
      * @param page        页码，用于分页查询
      * @param pageSize    每页大小，用于分页查询
+     * @param cursor      游标，不为null时按游标分页（空字符串表示第一页），忽略page
+     * @param withTotal   是否统计总数
      * @return 返回包含用户订单列表和分页信息的Map对象
      */
-    Map<String, Object> getUserOrders(String userAddress, Integer page, Integer pageSize);
+    Map<String, Object> getUserOrders(String userAddress, Integer page, Integer pageSize, String cursor,
+                                      Boolean withTotal);
 
     /**
      * 获取指定商家的订单列表
@@ -101,9 +104,12 @@ public interface IOrdersService extends IService<Orders> {
      * @param status 订单状态
      * @param startTime 开始时间
      * @param endTime 结束时间
+     * @param cursor 游标，不为null时按游标分页（空字符串表示第一页），忽略page
+     * @param withTotal 是否统计总数
      * @return 返回包含商家订单列表和分页信息的Map对象
      */
     Map<String, Object> getMerchantOrdersByAddress(String merchantAddress, Integer page, Integer pageSize,
                                                    String orderId, String productName, String customerAddress,
-                                                   String status, String startTime, String endTime);
+                                                   String status, String startTime, String endTime,
+                                                   String cursor, Boolean withTotal);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.lwf.service;
+
+import com.lwf.entity.ProductRatingStats;
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import java.util.Map;
+
+public interface IProductRatingStatsService extends IService<ProductRatingStats> {
+    void recordRating(Long productId, Integer rating);
+
+    Double getAverageRating(Long productId);
+
+    Map<String, Object> getRatingDistribution(Long productId);
+
+    int reconcile();
+}
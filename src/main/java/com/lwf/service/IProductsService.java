@@ -4,6 +4,7 @@ import com.lwf.entity.Products;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.lwf.entity.dto.ProductQueryDTO;
 
+import java.util.Collection;
 import java.util.Map;
 
 public interface IProductsService extends IService<Products> {
@@ -30,4 +31,11 @@ public interface IProductsService extends IService<Products> {
     Map<String, Object> offShelfProduct(Long productId);
 
     Map<String, Object> onSaleProduct(Long productId);
+
+    /**
+     * 批量获取商品摘要（ID、名称、商家地址），优先读缓存，未命中部分一次IN查询补齐
+     * @param productIds 商品ID集合
+     * @return 商品ID到摘要的映射，不存在的商品不包含在内
+     */
+    Map<Long, Products> getProductSummaries(Collection<Long> productIds);
 }
\ No newline at end of file
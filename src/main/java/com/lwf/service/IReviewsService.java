@@ -8,9 +8,11 @@ import java.util.Map;
 public interface IReviewsService extends IService<Reviews> {
     Map<String, Object> submitReview(ReviewDTO reviewDTO);
 
-    Map<String, Object> getProductReviews(Long productId, Integer page, Integer pageSize);
+    Map<String, Object> getProductReviews(Long productId, Integer page, Integer pageSize, String cursor,
+                                          Boolean withTotal);
 
-    Map<String, Object> getUserReviews(String userAddress, Integer page, Integer pageSize);
+    Map<String, Object> getUserReviews(String userAddress, Integer page, Integer pageSize, String cursor,
+                                       Boolean withTotal);
 
     boolean hasUserReviewed(Long userId, Long productId);
 
@@ -22,6 +24,8 @@ public interface IReviewsService extends IService<Reviews> {
 
     Map<String, Object> uploadAllUnchainedReviews();
 
+    Map<String, Object> getUploadJobStatus(String jobId);
+
     Map<String, Object> getBlockchainReviews(Integer page, Integer pageSize);
 
     Map<String, Object> fixBlockchainReviewIds();
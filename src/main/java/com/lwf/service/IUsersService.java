@@ -6,7 +6,7 @@ import com.lwf.entity.dto.LoginDTO;
 import java.util.Map;
 
 public interface IUsersService extends IService<Users> {
-    String generateNonce(String address);
+    String generateNonce(String address, String clientIp);
     Map<String, Object> signIn(LoginDTO loginDTO);
     Map<String, Object> applyShop(String address, String shopName, String shopDescription,String shopLogo);
     Users getShopInfo(String address);
@@ -0,0 +1,55 @@
+package com.lwf.service;
+
+import com.lwf.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 订单号和评价NFT占位ID的生成
+ * 基于SnowflakeIdGenerator，ID按时间递增且各节点不重复；部署多个实例时每个实例须配置不同的id.node-id。
+ */
+@Slf4j
+@Service
+public class IdGenerator {
+
+    /**
+     * 节点ID，0 ~ 1023
+     */
+    @Value("${id.node-id:0}")
+    private long nodeId;
+
+    /**
+     * 可容忍的时钟回拨（毫秒）
+     */
+    @Value("${id.max-backward-ms:5000}")
+    private long maxBackwardMs;
+
+    private SnowflakeIdGenerator generator;
+
+    @PostConstruct
+    public void init() {
+        generator = new SnowflakeIdGenerator(nodeId, maxBackwardMs);
+        log.info("ID生成器已初始化, 节点ID={}", nodeId);
+    }
+
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    /**
+     * 订单号：19位以内的十进制数字，按生成时间递增
+     */
+    public String nextOrderId() {
+        return Long.toString(generator.nextId());
+    }
+
+    /**
+     * 评价上链前的NFT ID占位，上链后替换为 NFT_ + 链上NFT ID
+     */
+    public String nextNftPlaceholder(Long productId) {
+        return "NFT_" + productId + "_" + generator.nextId();
+    }
+}
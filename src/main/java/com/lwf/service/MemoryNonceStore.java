@@ -0,0 +1,52 @@
+package com.lwf.service;
+
+import com.lwf.utils.TtlCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 内存nonce存储
+ * 基于有界的TtlCache：过期由时间轮处理，签发和验证都是O(1)，不再全表扫描；容量满时按访问频率淘汰。
+ * 只在单实例部署时使用。
+ */
+@Service
+@ConditionalOnProperty(name = "auth.nonce.store", havingValue = "memory", matchIfMissing = true)
+public class MemoryNonceStore implements NonceStore {
+
+    private final TtlCache<String, String> nonces;
+
+    public MemoryNonceStore(@Value("${auth.nonce.capacity:1000000}") long capacity) {
+        this.nonces = new TtlCache<>("auth-nonces", capacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        nonces.shutdown();
+    }
+
+    @Override
+    public void put(String address, String nonce, long ttlMs) {
+        nonces.put(address, nonce, ttlMs);
+    }
+
+    @Override
+    public boolean consume(String address, String nonce) {
+        String stored = nonces.remove(address);
+        return stored != null && nonce != null && MessageDigest.isEqual(
+                stored.getBytes(StandardCharsets.UTF_8), nonce.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>(nonces.stats());
+        stats.put("backend", "memory");
+        return stats;
+    }
+}
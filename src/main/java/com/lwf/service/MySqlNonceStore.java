@@ -0,0 +1,86 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lwf.entity.AuthNonces;
+import com.lwf.mapper.AuthNoncesMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MySQL nonce存储
+ * 各实例共用auth_nonces表，任一节点签发的nonce可在其他节点验证。
+ * 验证用带条件的DELETE完成取走和比较，同一nonce并发验证时只有一个请求成功；
+ * 过期行由定时任务按expires_at索引分批删除，只访问已过期的行。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "auth.nonce.store", havingValue = "mysql")
+public class MySqlNonceStore implements NonceStore {
+
+    @Autowired
+    private AuthNoncesMapper authNoncesMapper;
+
+    /**
+     * 每次清理最多删除的过期行数
+     */
+    @Value("${auth.nonce.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    private final LongAdder purgedCount = new LongAdder();
+
+    @Override
+    public void put(String address, String nonce, long ttlMs) {
+        authNoncesMapper.saveNonce(address, nonce, System.currentTimeMillis() + ttlMs);
+    }
+
+    @Override
+    public boolean consume(String address, String nonce) {
+        QueryWrapper<AuthNonces> matched = new QueryWrapper<>();
+        matched.eq("address", address)
+                .eq("nonce", nonce)
+                .gt("expires_at", System.currentTimeMillis());
+        if (authNoncesMapper.delete(matched) > 0) {
+            return true;
+        }
+        // 不匹配或已过期：同样作废该地址的nonce
+        authNoncesMapper.deleteById(address);
+        return false;
+    }
+
+    /**
+     * 定期删除过期的nonce
+     */
+    @Scheduled(initialDelayString = "${auth.nonce.purge-interval-ms:60000}",
+            fixedDelayString = "${auth.nonce.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        try {
+            int deleted;
+            do {
+                QueryWrapper<AuthNonces> expired = new QueryWrapper<>();
+                expired.le("expires_at", System.currentTimeMillis())
+                        .last("LIMIT " + purgeBatchSize);
+                deleted = authNoncesMapper.delete(expired);
+                purgedCount.add(deleted);
+            } while (deleted >= purgeBatchSize);
+        } catch (Exception e) {
+            log.error("清理过期nonce失败: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("backend", "mysql");
+        stats.put("size", authNoncesMapper.selectCount(null));
+        stats.put("purged", purgedCount.sum());
+        return stats;
+    }
+}
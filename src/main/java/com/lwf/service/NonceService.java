@@ -1,70 +1,193 @@
 package com.lwf.service;
 
+import com.lwf.utils.BusinessException;
+import com.lwf.utils.TtlCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * 登录nonce的签发与验证
+ * nonce保存在NonceStore中（内存或MySQL），签发时按地址和客户端IP分别限制时间窗口内的签发次数，
+ * 换用随机地址灌入的请求会被IP限流挡住，不影响其他IP上的正常用户。未使用的nonce总量由存储容量约束，
+ * 本实例每秒签发总数的上限只作为溢出保护，默认关闭。限流计数只在本实例内生效。
+ */
 @Service
-public class  NonceService {
+public class NonceService {
 
-    // 使用ConcurrentHashMap作为简单的内存缓存，存储地址与Nonce信息的映射关系
-    // 线程安全，适合高并发场景
-    private final Map<String, NonceInfo> nonceCache = new ConcurrentHashMap<>();
+    private static final SecureRandom RANDOM = new SecureRandom();
 
-    // Nonce信息类
-    private static class NonceInfo {
-        String nonce;
-        long timestamp;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
 
-        NonceInfo(String nonce, long timestamp) {
-            this.nonce = nonce;
-            this.timestamp = timestamp;
-        }
+    @Autowired
+    private NonceStore nonceStore;
+
+    /**
+     * nonce有效期（毫秒）
+     */
+    @Value("${auth.nonce.ttl-ms:300000}")
+    private long ttlMs;
+
+    /**
+     * 每个地址在一个时间窗口内最多签发的次数
+     */
+    @Value("${auth.nonce.per-address-limit:5}")
+    private int perAddressLimit;
+
+    /**
+     * 每个客户端IP在一个时间窗口内最多签发的次数
+     */
+    @Value("${auth.nonce.per-ip-limit:60}")
+    private int perIpLimit;
+
+    /**
+     * 地址和IP限流的时间窗口（毫秒）
+     */
+    @Value("${auth.nonce.rate-window-ms:60000}")
+    private long rateWindowMs;
+
+    /**
+     * 本实例每秒最多签发的nonce数，0表示不限制
+     * 该上限由所有调用方共享，触发时正常用户也无法登录，只应设为远高于正常峰值的溢出保护
+     */
+    @Value("${auth.nonce.global-per-second:0}")
+    private int globalPerSecond;
+
+    /**
+     * 地址、IP限流计数器各自的最大数量
+     */
+    @Value("${auth.nonce.rate-limit-cache-size:100000}")
+    private long rateLimitCacheSize;
+
+    // 地址 -> 当前窗口内的签发次数
+    private TtlCache<String, AtomicInteger> issueCounts;
+
+    // 客户端IP -> 当前窗口内的签发次数
+    private TtlCache<String, AtomicInteger> ipIssueCounts;
+
+    // (当前秒 << 32) | 本秒已签发数
+    private final AtomicLong globalWindow = new AtomicLong();
+
+    private final LongAdder issuedCount = new LongAdder();
+
+    private final LongAdder limitedCount = new LongAdder();
+
+    private final LongAdder verifiedCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        issueCounts = new TtlCache<>("nonce-rate-limit", rateLimitCacheSize);
+        ipIssueCounts = new TtlCache<>("nonce-ip-rate-limit", rateLimitCacheSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        issueCounts.shutdown();
+        ipIssueCounts.shutdown();
     }
 
     /**
      * 生成nonce
+     *
+     * @param clientIp 请求方IP，为空时只按地址限流
+     * @throws BusinessException 超过签发频率限制时抛出
      */
-    public String generateNonce(String address) {
-        // 清理过期nonce
-        cleanExpiredNonces();
-
-        String nonce = UUID.randomUUID().toString().substring(0, 8);
-        nonceCache.put(address, new NonceInfo(nonce, System.currentTimeMillis()));
+    public String generateNonce(String address, String clientIp) {
+        if (address == null || address.trim().isEmpty()) {
+            throw new BusinessException("地址不能为空");
+        }
+        String key = normalize(address);
+        if (!acquireGlobal()
+                || (clientIp != null && !acquire(ipIssueCounts, clientIp, perIpLimit))
+                || !acquire(issueCounts, key, perAddressLimit)) {
+            limitedCount.increment();
+            throw new BusinessException("请求过于频繁，请稍后再试");
+        }
+        String nonce = randomNonce();
+        nonceStore.put(key, nonce, ttlMs);
+        issuedCount.increment();
         return nonce;
     }
 
     /**
-     * 验证nonce
+     * 验证nonce，无论验证是否成功，该地址已签发的nonce都会失效
      */
     public boolean verifyNonce(String address, String nonce) {
-        cleanExpiredNonces();
-
-        NonceInfo nonceInfo = nonceCache.get(address);
-        if (nonceInfo == null) {
+        if (address == null || nonce == null) {
             return false;
         }
+        boolean valid = nonceStore.consume(normalize(address), nonce);
+        (valid ? verifiedCount : failedCount).increment();
+        return valid;
+    }
 
-        // 验证nonce是否匹配
-        boolean isValid = nonceInfo.nonce.equals(nonce);
-
-        // 无论验证是否成功，都移除已使用的nonce
-        nonceCache.remove(address);
-
-        return isValid;
+    /**
+     * 签发与验证统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("issued", issuedCount.sum());
+        stats.put("limited", limitedCount.sum());
+        stats.put("verified", verifiedCount.sum());
+        stats.put("failed", failedCount.sum());
+        stats.put("store", nonceStore.stats());
+        return stats;
     }
 
     /**
-     * 清理过期的nonce（5分钟过期）
+     * 16位十六进制随机串（64位熵）
      */
-    private void cleanExpiredNonces() {
-        long currentTime = System.currentTimeMillis();
-        long expireTime = 5 * 60 * 1000; // 5分钟
+    public static String randomNonce() {
+        byte[] bytes = new byte[8];
+        RANDOM.nextBytes(bytes);
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static String normalize(String address) {
+        return address.trim().toLowerCase(Locale.ROOT);
+    }
 
-        nonceCache.entrySet().removeIf(entry ->
-                currentTime - entry.getValue().timestamp > expireTime
-        );
+    private boolean acquireGlobal() {
+        if (globalPerSecond <= 0) {
+            return true;
+        }
+        long second = System.currentTimeMillis() / 1000;
+        while (true) {
+            long current = globalWindow.get();
+            long count = (current >>> 32) == second ? current & 0xFFFFFFFFL : 0;
+            if (count >= globalPerSecond) {
+                return false;
+            }
+            if (globalWindow.compareAndSet(current, (second << 32) | (count + 1))) {
+                return true;
+            }
+        }
+    }
+
+    private boolean acquire(TtlCache<String, AtomicInteger> counts, String key, int limit) {
+        AtomicInteger count = counts.get(key);
+        if (count == null) {
+            // 并发首次请求可能各自建立计数器，最多多放行几次，不影响限流效果
+            count = new AtomicInteger();
+            counts.put(key, count, rateWindowMs);
+        }
+        return count.incrementAndGet() <= limit;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package com.lwf.service;
+
+import java.util.Map;
+
+/**
+ * 登录nonce存储
+ * 每个地址只保留最近签发的一个nonce，nonce只能使用一次；
+ * 通过auth.nonce.store选择实现：memory（单实例）或mysql（多实例共享，任一节点签发的nonce可在其他节点验证）。
+ */
+public interface NonceStore {
+
+    /**
+     * 保存地址的nonce，覆盖之前未使用的nonce
+     *
+     * @param ttlMs 有效期（毫秒）
+     */
+    void put(String address, String nonce, long ttlMs);
+
+    /**
+     * 取走地址的nonce并与给定值比较，无论是否匹配，该地址的nonce都会失效
+     *
+     * @return 存在未过期且匹配的nonce时返回true
+     */
+    boolean consume(String address, String nonce);
+
+    /**
+     * 存储状态
+     */
+    Map<String, Object> stats();
+}
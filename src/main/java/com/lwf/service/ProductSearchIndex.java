@@ -0,0 +1,379 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lwf.entity.Products;
+import com.lwf.mapper.ProductsMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cjk.CJKBigramFilter;
+import org.apache.lucene.analysis.cjk.CJKWidthFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 商品全文检索索引
+ * 商品名称和描述按CJK二元分词建立内存倒排索引，关键词搜索不再对products表做LIKE全表扫描，
+ * 只从索引中取出命中的商品ID（按相关度或价格排序、按状态过滤），再回表查询。
+ * 索引随商品的增删改和上下架同步更新；启动时和定时任务按主键分页从数据库全量重建，
+ * 多节点部署时其他节点的修改在下一次重建时同步。
+ */
+@Slf4j
+@Service
+public class ProductSearchIndex {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_ID_POINT = "id_point";
+    private static final String FIELD_GENERATION = "generation";
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_DESCRIPTION = "description";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_PRICE = "price";
+    private static final String FIELD_CREATED_AT = "created_at";
+
+    @Autowired
+    private ProductsMapper productsMapper;
+
+    /**
+     * 全量重建时每页读取的商品数
+     */
+    @Value("${product.search.rebuild-page-size:1000}")
+    private int rebuildPageSize;
+
+    // 索引时同时输出单字和二元词，单字关键词也能命中
+    private final Analyzer indexAnalyzer = new CjkAnalyzer(true);
+
+    // 查询时只用二元词，多字关键词按相邻二元词做短语匹配
+    private final Analyzer queryAnalyzer = new CjkAnalyzer(false);
+
+    private ByteBuffersDirectory directory;
+
+    private IndexWriter writer;
+
+    private SearcherManager searcherManager;
+
+    // 全量重建的代数，重建结束后删除代数更小的文档（即数据库中已不存在的商品）
+    private volatile long generation;
+
+    private volatile boolean loaded;
+
+    // 同步更新与重建写入索引时持有的锁，只在单条更新或单页写入期间持有
+    private final Object writeLock = new Object();
+
+    // 重建期间同步路径更新或删除过的商品ID，重建不再用读到的旧数据覆盖它们；不在重建时为null
+    private Set<Long> syncedDuringRebuild;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = new ByteBuffersDirectory();
+        writer = new IndexWriter(directory, new IndexWriterConfig(indexAnalyzer));
+        searcherManager = new SearcherManager(writer, null);
+        // 首次加载完成前搜索回退到数据库查询
+        Thread loader = new Thread(this::rebuild, "product-search-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * 新增或更新商品索引
+     */
+    public void index(Products product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        try {
+            synchronized (writeLock) {
+                markSynced(product.getId());
+                writer.updateDocument(new Term(FIELD_ID, String.valueOf(product.getId())),
+                        toDocument(product, generation));
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.error("商品索引更新失败, productId={}: {}", product.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 删除商品索引
+     */
+    public void remove(Long productId) {
+        try {
+            synchronized (writeLock) {
+                markSynced(productId);
+                writer.deleteDocuments(new Term(FIELD_ID, String.valueOf(productId)));
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.error("商品索引删除失败, productId={}: {}", productId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按关键词搜索商品
+     *
+     * @param keyword   关键词，匹配商品名称和描述，名称命中权重更高
+     * @param status    商品状态，为空时不过滤
+     * @param sortBy    为price时按价格排序，否则按相关度排序（相同时按创建时间倒序）
+     * @param sortOrder 价格排序方向，asc为升序
+     * @param offset    跳过的条数
+     * @param limit     返回的条数
+     * @param withTotal 是否统计命中总数
+     * @return 命中的商品ID（已排序）及总数，索引未就绪时返回null
+     */
+    public SearchResult search(String keyword, String status, String sortBy, String sortOrder,
+                               int offset, int limit, boolean withTotal) throws IOException {
+        if (!loaded) {
+            return null;
+        }
+        Query query = buildQuery(keyword, status);
+        if (query == null) {
+            return new SearchResult(new ArrayList<>(), 0);
+        }
+
+        Sort sort;
+        if ("price".equals(sortBy)) {
+            sort = new Sort(new SortField(FIELD_PRICE, SortField.Type.DOUBLE, !"asc".equals(sortOrder)),
+                    new SortField(FIELD_CREATED_AT, SortField.Type.LONG, true));
+        } else {
+            sort = new Sort(SortField.FIELD_SCORE, new SortField(FIELD_CREATED_AT, SortField.Type.LONG, true));
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            int top = Math.max(1, offset + limit);
+            TopDocs topDocs = searcher.search(query, top, sort);
+            List<Long> ids = new ArrayList<>(limit);
+            ScoreDoc[] hits = topDocs.scoreDocs;
+            for (int i = offset; i < hits.length; i++) {
+                ids.add(Long.valueOf(searcher.doc(hits[i].doc).get(FIELD_ID)));
+            }
+            long total = withTotal ? searcher.count(query) : -1;
+            return new SearchResult(ids, total);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * 从数据库全量重建索引
+     * 逐条更新而不是清空后重建，重建期间搜索结果始终完整；
+     * 重建开始后被同步路径更新或删除过的商品跳过，避免用先读出的旧数据覆盖较新的文档
+     */
+    @Scheduled(initialDelayString = "${product.search.rebuild-interval-ms:600000}",
+            fixedDelayString = "${product.search.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long currentGeneration;
+        synchronized (writeLock) {
+            currentGeneration = ++generation;
+            syncedDuringRebuild = new HashSet<>();
+        }
+        long lastId = 0;
+        long count = 0;
+        long start = System.currentTimeMillis();
+        try {
+            while (true) {
+                QueryWrapper<Products> queryWrapper = new QueryWrapper<>();
+                queryWrapper.select("id", "name", "description", "status", "price", "created_at")
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("LIMIT " + rebuildPageSize);
+                List<Products> page = productsMapper.selectList(queryWrapper);
+                if (page.isEmpty()) {
+                    break;
+                }
+                synchronized (writeLock) {
+                    for (Products product : page) {
+                        if (!syncedDuringRebuild.contains(product.getId())) {
+                            writer.updateDocument(new Term(FIELD_ID, String.valueOf(product.getId())),
+                                    toDocument(product, currentGeneration));
+                        }
+                    }
+                }
+                lastId = page.get(page.size() - 1).getId();
+                count += page.size();
+            }
+
+            // 重建期间新增的商品ID大于lastId，已由同步更新写入，不能删除
+            writer.deleteDocuments(new BooleanQuery.Builder()
+                    .add(LongPoint.newRangeQuery(FIELD_GENERATION, Long.MIN_VALUE, currentGeneration - 1),
+                            BooleanClause.Occur.FILTER)
+                    .add(LongPoint.newRangeQuery(FIELD_ID_POINT, Long.MIN_VALUE, lastId), BooleanClause.Occur.FILTER)
+                    .build());
+            searcherManager.maybeRefresh();
+            loaded = true;
+            log.info("商品索引重建完成，共 {} 个商品，耗时 {}ms", count, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("商品索引重建失败，已索引 {} 个商品: {}", count, e.getMessage(), e);
+        } finally {
+            synchronized (writeLock) {
+                syncedDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * 重建进行中时记录同步路径写过的商品ID，须持有writeLock调用
+     */
+    private void markSynced(Long productId) {
+        if (syncedDuringRebuild != null) {
+            syncedDuringRebuild.add(productId);
+        }
+    }
+
+    private Query buildQuery(String keyword, String status) {
+        List<String> terms = analyze(keyword);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        // 每个词都须出现在名称或描述中，名称命中权重更高；整词短语命中时额外加分
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            query.add(new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(FIELD_NAME, term)), 3f), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(FIELD_DESCRIPTION, term)), BooleanClause.Occur.SHOULD)
+                    .build(), BooleanClause.Occur.MUST);
+        }
+        if (terms.size() > 1) {
+            QueryBuilder builder = new QueryBuilder(queryAnalyzer);
+            addPhrase(query, builder.createPhraseQuery(FIELD_NAME, keyword), 5f);
+            addPhrase(query, builder.createPhraseQuery(FIELD_DESCRIPTION, keyword), 2f);
+        }
+        if (status != null && !status.isEmpty()) {
+            query.add(new TermQuery(new Term(FIELD_STATUS, status)), BooleanClause.Occur.FILTER);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = queryAnalyzer.tokenStream(FIELD_NAME, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            // 内存分词不会发生IO异常
+            throw new IllegalStateException(e);
+        }
+        return terms;
+    }
+
+    private static void addPhrase(BooleanQuery.Builder builder, Query phrase, float boost) {
+        if (phrase != null) {
+            builder.add(new BoostQuery(phrase, boost), BooleanClause.Occur.SHOULD);
+        }
+    }
+
+    private static Document toDocument(Products product, long generation) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, String.valueOf(product.getId()), Field.Store.YES));
+        document.add(new LongPoint(FIELD_ID_POINT, product.getId()));
+        document.add(new LongPoint(FIELD_GENERATION, generation));
+        document.add(new TextField(FIELD_NAME, nullToEmpty(product.getName()), Field.Store.NO));
+        document.add(new TextField(FIELD_DESCRIPTION, nullToEmpty(product.getDescription()), Field.Store.NO));
+        document.add(new StringField(FIELD_STATUS, nullToEmpty(product.getStatus()), Field.Store.NO));
+        document.add(new DoubleDocValuesField(FIELD_PRICE,
+                product.getPrice() == null ? 0d : product.getPrice().doubleValue()));
+        document.add(new NumericDocValuesField(FIELD_CREATED_AT,
+                product.getCreatedAt() == null ? 0L : product.getCreatedAt().getTime()));
+        return document;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 标准分词 + 全角半角归一 + 小写 + CJK二元分词
+     */
+    private static final class CjkAnalyzer extends Analyzer {
+
+        private final boolean outputUnigrams;
+
+        CjkAnalyzer(boolean outputUnigrams) {
+            this.outputUnigrams = outputUnigrams;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer source = new StandardTokenizer();
+            TokenStream result = new CJKWidthFilter(source);
+            result = new LowerCaseFilter(result);
+            result = new CJKBigramFilter(result, CJKBigramFilter.HAN | CJKBigramFilter.HIRAGANA
+                    | CJKBigramFilter.KATAKANA | CJKBigramFilter.HANGUL, outputUnigrams);
+            return new TokenStreamComponents(source, result);
+        }
+    }
+
+    /**
+     * 搜索结果
+     */
+    public static class SearchResult {
+
+        private final List<Long> ids;
+
+        private final long total;
+
+        public SearchResult(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        /**
+         * 命中总数，未统计时为-1
+         */
+        public long getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lwf.entity.Reviews;
+import com.lwf.mapper.ReviewsMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 未上链评论批量上链任务
+ * 按主键游标分页扫描tx_hash为空的评论，交给上链队列并发提交，
+ * 每条评论上链后单独写库，进度通过任务ID查询。
+ */
+@Slf4j
+@Service
+public class ReviewBulkUploadJob {
+
+    // 保留最近的任务记录数
+    private static final int MAX_RETAINED_JOBS = 20;
+
+    // 每个任务保留的失败样例数
+    private static final int MAX_FAILURE_SAMPLES = 50;
+
+    @Autowired
+    private ReviewsMapper reviewsMapper;
+
+    @Autowired
+    private ReviewChainQueue reviewChainQueue;
+
+    @Autowired
+    private ChainSignerPool chainSignerPool;
+
+    /**
+     * 游标分页每页条数
+     */
+    @Value("${review.bulk-upload.page-size:500}")
+    private int pageSize;
+
+    /**
+     * 每个签名账户允许的并发上链数，总并发 = 该值 * 签名账户数
+     */
+    @Value("${review.bulk-upload.concurrency-per-signer:8}")
+    private int concurrencyPerSigner;
+
+    private final Map<String, JobState> jobs = new LinkedHashMap<String, JobState>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JobState> eldest) {
+            return size() > MAX_RETAINED_JOBS;
+        }
+    };
+
+    private JobState runningJob;
+
+    /**
+     * 启动批量上链任务；已有任务在运行时直接返回该任务
+     *
+     * @return 任务状态
+     */
+    public synchronized Map<String, Object> start() {
+        if (runningJob != null && !runningJob.finished) {
+            return runningJob.snapshot();
+        }
+        QueryWrapper<Reviews> countWrapper = new QueryWrapper<>();
+        countWrapper.and(w -> w.isNull("tx_hash").or().eq("tx_hash", ""));
+        long total = reviewsMapper.selectCount(countWrapper);
+        if (total == 0) {
+            return null;
+        }
+
+        int concurrency = Math.max(1, concurrencyPerSigner * chainSignerPool.size());
+        JobState job = new JobState(UUID.randomUUID().toString().replace("-", "").substring(0, 12), total, concurrency);
+        jobs.put(job.jobId, job);
+        runningJob = job;
+
+        Thread worker = new Thread(() -> run(job), "review-bulk-upload-" + job.jobId);
+        worker.setDaemon(true);
+        worker.start();
+        log.info("批量上链任务已启动 - 任务ID: {}, 待上链: {}, 并发: {}", job.jobId, total, concurrency);
+        return job.snapshot();
+    }
+
+    /**
+     * 查询任务状态
+     *
+     * @param jobId 任务ID
+     * @return 任务状态，不存在时返回null
+     */
+    public synchronized Map<String, Object> getStatus(String jobId) {
+        JobState job = jobs.get(jobId);
+        return job == null ? null : job.snapshot();
+    }
+
+    private void run(JobState job) {
+        Semaphore permits = new Semaphore(job.concurrency);
+        long lastId = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
+                queryWrapper.select("id")
+                        .gt("id", lastId)
+                        .and(w -> w.isNull("tx_hash").or().eq("tx_hash", ""))
+                        .orderByAsc("id")
+                        .last("LIMIT " + pageSize);
+                List<Object> ids = reviewsMapper.selectObjs(queryWrapper);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                for (Object id : ids) {
+                    Long reviewId = ((Number) id).longValue();
+                    lastId = reviewId;
+                    permits.acquire();
+                    job.dispatched.incrementAndGet();
+                    reviewChainQueue.enqueueForResult(reviewId).whenComplete((ok, ex) -> {
+                        try {
+                            if (ex == null) {
+                                job.done.incrementAndGet();
+                            } else {
+                                job.recordFailure(reviewId, ex);
+                            }
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            }
+            // 等待所有在途评论完成
+            permits.acquire(job.concurrency);
+            job.message = String.format("批量上链完成，成功：%d，失败：%d", job.done.get(), job.failed.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.message = "批量上链任务被中断";
+        } catch (Exception e) {
+            log.error("批量上链任务异常 - 任务ID: {}, 错误: {}", job.jobId, e.getMessage(), e);
+            job.message = "批量上链任务异常：" + e.getMessage();
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            job.finished = true;
+            log.info("批量上链任务结束 - 任务ID: {}, 成功: {}, 失败: {}", job.jobId, job.done.get(), job.failed.get());
+        }
+    }
+
+    private static class JobState {
+        final String jobId;
+        final long total;
+        final int concurrency;
+        final long startedAt = System.currentTimeMillis();
+        final AtomicLong dispatched = new AtomicLong();
+        final AtomicLong done = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final List<Map<String, Object>> failures = new ArrayList<>();
+        volatile long finishedAt;
+        volatile boolean finished;
+        volatile String message = "批量上链进行中";
+
+        JobState(String jobId, long total, int concurrency) {
+            this.jobId = jobId;
+            this.total = total;
+            this.concurrency = concurrency;
+        }
+
+        void recordFailure(Long reviewId, Throwable ex) {
+            failed.incrementAndGet();
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            synchronized (failures) {
+                if (failures.size() < MAX_FAILURE_SAMPLES) {
+                    Map<String, Object> failure = new HashMap<>();
+                    failure.put("reviewId", reviewId);
+                    failure.put("error", cause.getMessage());
+                    failures.add(failure);
+                }
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            long end = finished ? finishedAt : System.currentTimeMillis();
+            double seconds = Math.max(1, end - startedAt) / 1000.0;
+            long doneCount = done.get();
+            long failedCount = failed.get();
+
+            Map<String, Object> status = new HashMap<>();
+            status.put("jobId", jobId);
+            status.put("finished", finished);
+            status.put("message", message);
+            status.put("total", total);
+            status.put("concurrency", concurrency);
+            status.put("dispatched", dispatched.get());
+            status.put("done", doneCount);
+            status.put("failed", failedCount);
+            // total为启动时的快照，期间新增的评论也会被扫描到
+            status.put("remaining", Math.max(0, total - doneCount - failedCount));
+            status.put("txPerSecond", Math.round(doneCount / seconds * 100) / 100.0);
+            status.put("elapsedMs", end - startedAt);
+            synchronized (failures) {
+                status.put("failures", new ArrayList<>(failures));
+            }
+            return status;
+        }
+    }
+}
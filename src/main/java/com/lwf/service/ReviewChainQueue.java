@@ -0,0 +1,391 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.lwf.entity.Reviews;
+import com.lwf.mapper.ReviewsMapper;
+import com.lwf.model.bo.ReviewCoreSubmitReviewInputBO;
+import com.lwf.raw.ReviewCore;
+import com.lwf.utils.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.fisco.bcos.sdk.model.TransactionReceipt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 评论上链队列
+ * 评论在数据库事务提交后入队，由专用的调度线程批量取出，
+ * 通过签名账户池把submitReview交易流水线式分散到各账户发送，在途上限由账户池控制。
+ * 队列本身的持久化依赖reviews表：tx_hash为空的记录即为待上链，
+ * 启动时及定期扫描会把遗漏的记录重新入队。失败次数记在reviews.chain_attempts，
+ * 达到上限的记录在扫描SQL中排除，不会占满每次扫描的名额。
+ * 签名账户币天都不足时不发送交易，评论放回队首，等到最早有账户恢复时再继续。
+ */
+@Slf4j
+@Service
+public class ReviewChainQueue {
+
+    @Autowired
+    private ReviewsMapper reviewsMapper;
+
+    @Autowired
+    private ReviewCoreService reviewCoreService;
+
+    @Autowired
+    private ChainSignerPool chainSignerPool;
+
+    @Autowired
+    private CoinDayMirror coinDayMirror;
+
+    @Autowired
+    private SignerRegistry signerRegistry;
+
+    /**
+     * 每批从队列取出的评论数
+     */
+    @Value("${review.chain.batch-size:32}")
+    private int batchSize;
+
+    /**
+     * 单条评论最大上链尝试次数，超过后不再自动重试
+     */
+    @Value("${review.chain.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * 恢复扫描每次最多捞取的记录数
+     */
+    @Value("${review.chain.recover-limit:500}")
+    private int recoverLimit;
+
+    /**
+     * 签名账户币天都不足时调度线程的最长等待时间（毫秒）
+     */
+    @Value("${review.chain.defer-max-wait-ms:60000}")
+    private long deferMaxWaitMs;
+
+    private final BlockingDeque<Long> pending = new LinkedBlockingDeque<>();
+
+    // 已入队或在途的评论ID及其上链结果，避免重复提交
+    private final Map<Long, CompletableFuture<Boolean>> tracked = new ConcurrentHashMap<>();
+
+    private final AtomicLong submittedCount = new AtomicLong();
+
+    private final AtomicLong succeededCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private final AtomicLong deferredCount = new AtomicLong();
+
+    // 回执处理（解析+写库）放到独立线程池，不阻塞SDK回调线程
+    private ExecutorService completionExecutor;
+
+    private Thread dispatcher;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        completionExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "review-chain-completion");
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "review-chain-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("评论上链队列已启动, batchSize={}, signers={}", batchSize, chainSignerPool.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        completionExecutor.shutdown();
+    }
+
+    /**
+     * 在当前数据库事务提交后入队；不在事务中时立即入队
+     *
+     * @param reviewId 评论ID
+     */
+    public void enqueueAfterCommit(Long reviewId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(reviewId);
+                }
+            });
+        } else {
+            enqueue(reviewId);
+        }
+    }
+
+    /**
+     * 评论入队
+     *
+     * @param reviewId 评论ID
+     * @return 是否新入队（已在队列或在途时返回false）
+     */
+    public boolean enqueue(Long reviewId) {
+        if (reviewId == null) {
+            return false;
+        }
+        CompletableFuture<Boolean> created = new CompletableFuture<>();
+        if (tracked.putIfAbsent(reviewId, created) != null) {
+            return false;
+        }
+        pending.offer(reviewId);
+        return true;
+    }
+
+    /**
+     * 评论入队并返回上链结果
+     * 已在队列或在途时返回同一个结果，上链成功时正常完成，失败时以异常完成
+     *
+     * @param reviewId 评论ID
+     * @return 上链结果
+     */
+    public CompletableFuture<Boolean> enqueueForResult(Long reviewId) {
+        enqueue(reviewId);
+        CompletableFuture<Boolean> future = tracked.get(reviewId);
+        // 入队后恰好已完成并移除时，结果以数据库为准
+        return future != null ? future : CompletableFuture.completedFuture(isOnChain(reviewId));
+    }
+
+    /**
+     * 评论是否已在队列中或正在上链
+     */
+    public boolean isTracked(Long reviewId) {
+        return tracked.containsKey(reviewId);
+    }
+
+    /**
+     * 定期扫描未上链的评论并重新入队（应用重启、回调丢失、失败重试）
+     */
+    @Scheduled(initialDelayString = "${review.chain.recover-initial-delay-ms:10000}",
+            fixedDelayString = "${review.chain.recover-interval-ms:60000}")
+    public void recover() {
+        try {
+            QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id")
+                    .and(w -> w.isNull("tx_hash").or().eq("tx_hash", ""))
+                    .lt("chain_attempts", maxAttempts)
+                    .orderByAsc("id")
+                    .last("LIMIT " + recoverLimit);
+            int count = 0;
+            for (Object id : reviewsMapper.selectObjs(queryWrapper)) {
+                Long reviewId = ((Number) id).longValue();
+                if (enqueue(reviewId)) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                log.info("恢复扫描重新入队 {} 条未上链评论", count);
+            }
+        } catch (Exception e) {
+            log.error("恢复扫描未上链评论失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 队列运行状态
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", pending.size());
+        stats.put("signers", chainSignerPool.getStats());
+        stats.put("submitted", submittedCount.get());
+        stats.put("succeeded", succeededCount.get());
+        stats.put("failed", failedCount.get());
+        stats.put("deferred", deferredCount.get());
+        stats.put("coinDay", coinDayMirror.stats());
+        stats.put("signerRegistry", signerRegistry.stats());
+        return stats;
+    }
+
+    private void dispatchLoop() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Long first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.clear();
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+                dispatchBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("评论上链调度异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void dispatchBatch(List<Long> batch) throws InterruptedException {
+        // 一次查询取回整批评论
+        Map<Long, Reviews> reviews;
+        try {
+            reviews = reviewsMapper.selectBatchIds(batch).stream()
+                    .collect(Collectors.toMap(Reviews::getId, Function.identity()));
+        } catch (Exception e) {
+            // 查询失败时释放整批，交给恢复扫描重新入队
+            batch.forEach(id -> finish(id, e.getMessage()));
+            throw e;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Long reviewId = batch.get(i);
+            Reviews review = reviews.get(reviewId);
+            if (review == null) {
+                finish(reviewId, "评论不存在");
+                continue;
+            }
+            if (review.getTxHash() != null && !review.getTxHash().isEmpty()) {
+                // 已上链
+                finish(reviewId, null);
+                continue;
+            }
+            if (!submit(review)) {
+                // 本条及之后的评论按原顺序放回队首
+                for (int j = batch.size() - 1; j >= i; j--) {
+                    pending.offerFirst(batch.get(j));
+                }
+                deferredCount.addAndGet(batch.size() - i);
+                waitForReviewSlot();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 等待到最早有签名账户币天恢复的时间，最长deferMaxWaitMs
+     */
+    private void waitForReviewSlot() throws InterruptedException {
+        long slotAt = chainSignerPool.nextReviewSlotAt();
+        if (slotAt == Long.MAX_VALUE) {
+            log.warn("所有签名账户余额为0或未初始化币天，评论暂停上链，{}ms后重试", deferMaxWaitMs);
+        }
+        long wait = Math.min(deferMaxWaitMs, Math.max(100, slotAt - System.currentTimeMillis()));
+        log.debug("签名账户币天不足，待上链评论 {} 条，等待 {}ms", pending.size(), wait);
+        Thread.sleep(wait);
+    }
+
+    /**
+     * 提交一条评论
+     *
+     * @return 是否已发送；没有币天充足的签名账户时返回false
+     */
+    private boolean submit(Reviews review) throws InterruptedException {
+        Long reviewId = review.getId();
+        ReviewCoreSubmitReviewInputBO input = new ReviewCoreSubmitReviewInputBO();
+        input.setProductId(String.valueOf(review.getProductId()));
+        input.setContent(review.getContent());
+        input.setRating(BigInteger.valueOf(review.getRating()));
+        // 账户池额度用尽时在此阻塞，起到背压作用
+        CompletableFuture<TransactionReceipt> future = chainSignerPool.submitReviewAsync(input);
+        if (future == null) {
+            return false;
+        }
+        future.whenCompleteAsync((receipt, ex) -> {
+            if (ex != null) {
+                onFailure(reviewId, ex.getMessage());
+            } else {
+                onReceipt(reviewId, receipt);
+            }
+        }, completionExecutor);
+        submittedCount.incrementAndGet();
+        return true;
+    }
+
+    private void onReceipt(Long reviewId, TransactionReceipt receipt) {
+        try {
+            if (!receipt.isStatusOK()) {
+                onFailure(reviewId, receipt.getStatusMsg() + " " + receipt.getMessage());
+                return;
+            }
+            ReviewCore.ReviewSubmittedEventResponse event = reviewCoreService.decodeReviewSubmittedEvent(receipt);
+            if (event == null) {
+                onFailure(reviewId, "交易回执中未找到ReviewSubmitted事件, txHash: " + receipt.getTransactionHash());
+                return;
+            }
+            BigInteger blockchainReviewId = event.reviewId;
+
+            // 只更新上链相关字段，避免覆盖并发修改的其他列
+            Reviews update = new Reviews();
+            update.setId(reviewId);
+            update.setTxHash(receipt.getTransactionHash());
+            update.setBlockchainReviewId(blockchainReviewId.longValue());
+            update.setNftId("NFT_" + event.nftId);
+            reviewsMapper.updateById(update);
+
+            succeededCount.incrementAndGet();
+            finish(reviewId, null);
+            log.debug("评论上链完成 - 评论ID: {}, 链上ID: {}, txHash: {}", reviewId, blockchainReviewId,
+                    receipt.getTransactionHash());
+        } catch (Exception e) {
+            onFailure(reviewId, e.getMessage());
+        }
+    }
+
+    private void onFailure(Long reviewId, String message) {
+        failedCount.incrementAndGet();
+        log.warn("评论上链失败 - 评论ID: {}, 错误: {}", reviewId, message);
+        try {
+            reviewsMapper.update(null, new UpdateWrapper<Reviews>()
+                    .setSql("chain_attempts = chain_attempts + 1")
+                    .eq("id", reviewId));
+        } catch (Exception e) {
+            log.error("记录评论上链失败次数出错 - 评论ID: {}, 错误: {}", reviewId, e.getMessage());
+        }
+        finish(reviewId, message);
+    }
+
+    /**
+     * 结束跟踪并通知等待方
+     *
+     * @param error 失败原因，成功时为null
+     */
+    private void finish(Long reviewId, String error) {
+        CompletableFuture<Boolean> future = tracked.remove(reviewId);
+        if (future == null) {
+            return;
+        }
+        if (error == null) {
+            future.complete(true);
+        } else {
+            future.completeExceptionally(new BusinessException(error));
+        }
+    }
+
+    private boolean isOnChain(Long reviewId) {
+        Reviews review = reviewsMapper.selectById(reviewId);
+        return review != null && review.getTxHash() != null && !review.getTxHash().isEmpty();
+    }
+}
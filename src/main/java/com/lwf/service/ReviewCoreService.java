@@ -2,6 +2,7 @@ package com.lwf.service;
 
 import java.lang.Exception;
 import java.lang.String;
+import java.math.BigInteger;
 import java.util.Arrays;
 import javax.annotation.PostConstruct;
 
@@ -9,9 +10,14 @@ import com.lwf.model.bo.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.lwf.raw.ReviewCore;
+import org.fisco.bcos.sdk.abi.EventEncoder;
+import org.fisco.bcos.sdk.abi.EventValues;
 import org.fisco.bcos.sdk.client.Client;
+import org.fisco.bcos.sdk.contract.Contract;
+import org.fisco.bcos.sdk.model.TransactionReceipt;
+import org.fisco.bcos.sdk.model.callback.TransactionCallback;
 import org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor;
-import org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory;
 import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
 import org.fisco.bcos.sdk.transaction.model.dto.TransactionResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,12 +40,14 @@ public class ReviewCoreService {
   @Autowired
   private Client client;
 
+  @Autowired
+  private SignerRegistry signerRegistry;
+
   AssembleTransactionProcessor txProcessor;
 
   @PostConstruct
   public void init() throws Exception {
-    this.txProcessor = TransactionProcessorFactory.createAssembleTransactionProcessor(this.client,
-        this.client.getCryptoSuite().getCryptoKeyPair());
+    this.txProcessor = this.signerRegistry.defaultProcessor();
   }
 
   public CallResponse userReviews(ReviewCoreUserReviewsInputBO input) throws Exception {
@@ -95,6 +103,45 @@ public class ReviewCoreService {
     return this.txProcessor.sendTransactionAndGetResponse(this.address, ABI, "submitReview", input.toArgs());
   }
 
+  /**
+   * 异步提交评论交易，交易上链后由SDK回调通知，不占用调用线程
+   */
+  public void submitReviewAsync(ReviewCoreSubmitReviewInputBO input, TransactionCallback callback) throws Exception {
+    this.txProcessor.sendTransactionAsync(this.address, ABI, "submitReview", input.toArgs(), callback);
+  }
+
+  /**
+   * 从交易回执日志中解析ReviewSubmitted事件（链上评论ID、NFT ID等），无需再次调用链
+   *
+   * @return 事件内容，回执中不存在该事件时返回null
+   */
+  public ReviewCore.ReviewSubmittedEventResponse decodeReviewSubmittedEvent(TransactionReceipt receipt) {
+    if (receipt.getLogs() == null) {
+      return null;
+    }
+    EventEncoder eventEncoder = new EventEncoder(this.client.getCryptoSuite());
+    String topic0 = eventEncoder.encode(ReviewCore.REVIEWSUBMITTED_EVENT);
+    for (TransactionReceipt.Logs log : receipt.getLogs()) {
+      if (log.getTopics() == null || log.getTopics().isEmpty() || !topic0.equals(log.getTopics().get(0))
+          || (log.getAddress() != null && !log.getAddress().equalsIgnoreCase(this.address))) {
+        continue;
+      }
+      EventValues eventValues = Contract.staticExtractEventParameters(eventEncoder,
+          ReviewCore.REVIEWSUBMITTED_EVENT, log);
+      if (eventValues == null) {
+        continue;
+      }
+      ReviewCore.ReviewSubmittedEventResponse event = new ReviewCore.ReviewSubmittedEventResponse();
+      event.log = log;
+      event.reviewId = (BigInteger) eventValues.getIndexedValues().get(0).getValue();
+      event.reviewer = (String) eventValues.getIndexedValues().get(1).getValue();
+      event.productId = (String) eventValues.getNonIndexedValues().get(0).getValue();
+      event.nftId = (BigInteger) eventValues.getNonIndexedValues().get(1).getValue();
+      return event;
+    }
+    return null;
+  }
+
   public CallResponse getReview(ReviewCoreGetReviewInputBO input) throws Exception {
     return this.txProcessor.sendCall(this.client.getCryptoSuite().getCryptoKeyPair().getAddress(), this.address, ABI,
         "getReview", input.toArgs());
@@ -0,0 +1,301 @@
+package com.lwf.service;
+
+import com.lwf.utils.MinHash;
+import com.lwf.utils.SlidingWindowSketch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 评价速率异常检测
+ * 按商品、用户地址、商家以及"商品收到的新注册账号评价"四个维度，用滑动窗口计数草图统计
+ * 最近一段时间内的评价数，每次提交评价O(1)更新并打分，超过阈值的维度记为异常窗口，
+ * 供管理员查看。全部在内存中完成，不访问数据库；多节点部署时各节点独立统计。
+ * 提交前用estimate只读打分，评价保存且事务提交后才计入窗口，被拒绝或回滚的提交不计数。
+ */
+@Slf4j
+@Service
+public class ReviewVelocityDetector {
+
+    public static final String DIMENSION_PRODUCT = "product";
+
+    public static final String DIMENSION_USER = "user";
+
+    public static final String DIMENSION_MERCHANT = "merchant";
+
+    public static final String DIMENSION_FRESH_ACCOUNT = "freshAccount";
+
+    // 每个异常窗口保留的样例用户地址数
+    private static final int SAMPLE_SIZE = 10;
+
+    /**
+     * 统计窗口长度（分钟），每分钟一个时间片
+     */
+    @Value("${review.velocity.window-minutes:10}")
+    private int windowMinutes;
+
+    /**
+     * 计数草图每行的计数器个数
+     */
+    @Value("${review.velocity.sketch-width:4096}")
+    private int sketchWidth;
+
+    /**
+     * 窗口内单个商品的评价数阈值
+     */
+    @Value("${review.velocity.product-threshold:50}")
+    private long productThreshold;
+
+    /**
+     * 窗口内单个用户的评价数阈值
+     */
+    @Value("${review.velocity.user-threshold:10}")
+    private long userThreshold;
+
+    /**
+     * 窗口内单个商家的评价数阈值
+     */
+    @Value("${review.velocity.merchant-threshold:200}")
+    private long merchantThreshold;
+
+    /**
+     * 注册不满多少小时的账号视为新账号
+     */
+    @Value("${review.velocity.fresh-account-hours:24}")
+    private long freshAccountHours;
+
+    /**
+     * 窗口内单个商品收到新账号评价数的阈值
+     */
+    @Value("${review.velocity.fresh-product-threshold:10}")
+    private long freshProductThreshold;
+
+    /**
+     * 最多保留的异常窗口数
+     */
+    @Value("${review.velocity.max-flags:1000}")
+    private int maxFlags;
+
+    private SlidingWindowSketch productSketch;
+
+    private SlidingWindowSketch userSketch;
+
+    private SlidingWindowSketch merchantSketch;
+
+    private SlidingWindowSketch freshAccountSketch;
+
+    private final Map<String, FlagWindow> flags = new ConcurrentHashMap<>();
+
+    private final AtomicLong droppedFlags = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        long slotMillis = 60_000L;
+        productSketch = new SlidingWindowSketch(windowMinutes, slotMillis, sketchWidth);
+        userSketch = new SlidingWindowSketch(windowMinutes, slotMillis, sketchWidth);
+        merchantSketch = new SlidingWindowSketch(windowMinutes, slotMillis, sketchWidth);
+        freshAccountSketch = new SlidingWindowSketch(windowMinutes, slotMillis, sketchWidth);
+    }
+
+    /**
+     * 只读打分：假设本次评价计入后各维度是否超过阈值，不修改计数和异常窗口
+     *
+     * @param productId        商品ID
+     * @param merchantId       商家ID
+     * @param userAddress      评价用户地址
+     * @param accountCreatedAt 评价用户的注册时间
+     * @return 超过阈值的维度，正常时为空列表
+     */
+    public List<String> estimate(Long productId, Long merchantId, String userAddress, Date accountCreatedAt) {
+        return score(productId, merchantId, userAddress, accountCreatedAt, false);
+    }
+
+    /**
+     * 记录一次已保存的评价并打分，超过阈值的维度记入异常窗口
+     *
+     * @return 超过阈值的维度，正常时为空列表
+     */
+    public List<String> record(Long productId, Long merchantId, String userAddress, Date accountCreatedAt) {
+        return score(productId, merchantId, userAddress, accountCreatedAt, true);
+    }
+
+    /**
+     * 在当前数据库事务提交后记录；不在事务中时立即记录
+     */
+    public void recordAfterCommit(Long productId, Long merchantId, String userAddress, Date accountCreatedAt) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(productId, merchantId, userAddress, accountCreatedAt);
+                }
+            });
+        } else {
+            record(productId, merchantId, userAddress, accountCreatedAt);
+        }
+    }
+
+    private List<String> score(Long productId, Long merchantId, String userAddress, Date accountCreatedAt,
+                               boolean record) {
+        long now = System.currentTimeMillis();
+        String address = userAddress == null ? "" : userAddress.trim().toLowerCase(Locale.ROOT);
+        List<String> exceeded = new ArrayList<>(0);
+
+        if (productId != null) {
+            check(exceeded, DIMENSION_PRODUCT, String.valueOf(productId),
+                    count(productSketch, productId, now, record), productThreshold, address, now, record);
+        }
+        check(exceeded, DIMENSION_USER, address,
+                count(userSketch, MinHash.addressKey(address), now, record), userThreshold, address, now, record);
+        if (merchantId != null) {
+            check(exceeded, DIMENSION_MERCHANT, String.valueOf(merchantId),
+                    count(merchantSketch, merchantId, now, record), merchantThreshold, address, now, record);
+        }
+        boolean freshAccount = accountCreatedAt != null
+                && now - accountCreatedAt.getTime() < freshAccountHours * 3_600_000L;
+        if (freshAccount && productId != null) {
+            check(exceeded, DIMENSION_FRESH_ACCOUNT, String.valueOf(productId),
+                    count(freshAccountSketch, productId, now, record), freshProductThreshold, address, now, record);
+        }
+        return exceeded;
+    }
+
+    /**
+     * 计入时加一并返回估计值；只读时返回当前估计值加上本次
+     */
+    private static long count(SlidingWindowSketch sketch, long key, long now, boolean record) {
+        return record ? sketch.incrementAndEstimate(key, now) : sketch.estimate(key, now) + 1;
+    }
+
+    /**
+     * 异常窗口列表，按最近触发时间倒序
+     *
+     * @param activeOnly 是否只返回统计窗口内仍在触发的
+     */
+    public List<Map<String, Object>> getFlags(boolean activeOnly) {
+        long now = System.currentTimeMillis();
+        long window = productSketch.windowMillis();
+        List<FlagWindow> windows = new ArrayList<>(flags.values());
+        windows.sort(Comparator.comparingLong((FlagWindow w) -> w.lastSeen).reversed());
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (FlagWindow w : windows) {
+            boolean active = now - w.lastSeen <= window;
+            if (activeOnly && !active) {
+                continue;
+            }
+            list.add(w.toMap(active));
+        }
+        return list;
+    }
+
+    /**
+     * 检测器配置及状态
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("windowMinutes", windowMinutes);
+        stats.put("productThreshold", productThreshold);
+        stats.put("userThreshold", userThreshold);
+        stats.put("merchantThreshold", merchantThreshold);
+        stats.put("freshAccountHours", freshAccountHours);
+        stats.put("freshProductThreshold", freshProductThreshold);
+        stats.put("flags", flags.size());
+        stats.put("droppedFlags", droppedFlags.get());
+        stats.put("memoryBytes", productSketch.memoryBytes() + userSketch.memoryBytes()
+                + merchantSketch.memoryBytes() + freshAccountSketch.memoryBytes());
+        return stats;
+    }
+
+    /**
+     * 清理早已结束的异常窗口，保留3个统计窗口长度
+     */
+    @Scheduled(fixedDelay = 60_000L)
+    public void evictExpiredFlags() {
+        long expireBefore = System.currentTimeMillis() - productSketch.windowMillis() * 3;
+        flags.values().removeIf(w -> w.lastSeen < expireBefore);
+    }
+
+    private void check(List<String> exceeded, String dimension, String key, long count, long threshold,
+                       String address, long now, boolean record) {
+        if (count <= threshold) {
+            return;
+        }
+        exceeded.add(dimension);
+        if (!record) {
+            return;
+        }
+        String flagKey = dimension + ":" + key;
+        FlagWindow window = flags.get(flagKey);
+        if (window == null) {
+            if (flags.size() >= maxFlags) {
+                droppedFlags.incrementAndGet();
+                return;
+            }
+            window = flags.computeIfAbsent(flagKey, k -> {
+                log.warn("评价速率异常: {}={} 最近{}分钟 {} 条，阈值 {}", dimension, key, windowMinutes, count, threshold);
+                return new FlagWindow(dimension, key, threshold, now);
+            });
+        }
+        window.hit(count, address, now);
+    }
+
+    private static final class FlagWindow {
+        final String dimension;
+        final String key;
+        final long threshold;
+        final long firstSeen;
+        volatile long lastSeen;
+        volatile long peak;
+        final AtomicLong hits = new AtomicLong();
+        final Set<String> samples = new LinkedHashSet<>();
+
+        FlagWindow(String dimension, String key, long threshold, long now) {
+            this.dimension = dimension;
+            this.key = key;
+            this.threshold = threshold;
+            this.firstSeen = now;
+            this.lastSeen = now;
+        }
+
+        void hit(long count, String address, long now) {
+            hits.incrementAndGet();
+            lastSeen = now;
+            synchronized (this) {
+                peak = Math.max(peak, count);
+                if (samples.size() < SAMPLE_SIZE) {
+                    samples.add(address);
+                }
+            }
+        }
+
+        synchronized Map<String, Object> toMap(boolean active) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("dimension", dimension);
+            map.put("key", key);
+            map.put("threshold", threshold);
+            map.put("peakCount", peak);
+            map.put("flaggedReviews", hits.get());
+            map.put("firstSeen", new Date(firstSeen));
+            map.put("lastSeen", new Date(lastSeen));
+            map.put("active", active);
+            map.put("sampleAddresses", new ArrayList<>(samples));
+            return map;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lwf.entity.Reviews;
+import com.lwf.mapper.ReviewsMapper;
+import com.lwf.utils.BusinessException;
+import com.lwf.utils.RewardCalculator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 待上链评论奖励模拟
+ * 按上链队列的顺序（主键升序）扫描未上链评论，用本地RewardCalculator逐条计算奖励，
+ * 并按RewardPool.distributeReward的规则（余额不足时只发放剩余余额）模拟奖池消耗。
+ * 整个模拟只读取奖池余额等3个链上值，不再逐条调用合约。
+ * 代币金额均以最小单位的字符串返回，避免前端数字精度丢失。
+ */
+@Slf4j
+@Service
+public class RewardSimulator {
+
+    @Autowired
+    private ReviewsMapper reviewsMapper;
+
+    @Autowired
+    private RewardPoolService rewardPoolService;
+
+    @Autowired
+    private ReviewCoreService reviewCoreService;
+
+    @Autowired
+    private CoinDayValidatorService coinDayValidatorService;
+
+    @Autowired
+    private CoinDayMirror coinDayMirror;
+
+    /**
+     * 扫描未上链评论时每页读取的条数
+     */
+    @Value("${reward.simulation.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * 单次模拟最多计算的评论数
+     */
+    @Value("${reward.simulation.max-reviews:100000}")
+    private int maxReviews;
+
+    /**
+     * 模拟待上链评论的奖励发放
+     *
+     * @param limit    最多模拟的评论数，为空时使用上限
+     * @param coinDays 假定的发送账户币天，为空时使用链上的币天门槛（签名账户只在达到门槛时才发送评论）
+     * @return 奖励合计、实际可发放合计、奖池余额及首条奖池不足的评论等
+     */
+    public Map<String, Object> simulatePending(Integer limit, BigInteger coinDays) {
+        int max = limit == null || limit <= 0 ? maxReviews : Math.min(limit, maxReviews);
+        BigInteger poolBalance;
+        BigInteger dailyRewardAmount;
+        int minContentLength;
+        try {
+            poolBalance = (BigInteger) rewardPoolService.getPoolBalance().getReturnObject().get(0);
+            dailyRewardAmount = (BigInteger) rewardPoolService.dailyRewardAmount().getReturnObject().get(0);
+            minContentLength = ((BigInteger) reviewCoreService.minContentLength().getReturnObject().get(0)).intValue();
+            if (coinDays == null) {
+                coinDays = coinDayMirror.getMinCoinDays();
+            }
+            if (coinDays == null) {
+                coinDays = (BigInteger) coinDayValidatorService.minCoinDays().getReturnObject().get(0);
+            }
+        } catch (Exception e) {
+            throw new BusinessException("读取奖池链上状态失败：" + e.getMessage());
+        }
+
+        BigInteger remaining = poolBalance;
+        BigInteger projectedTotal = BigInteger.ZERO;
+        BigInteger payableTotal = BigInteger.ZERO;
+        int simulated = 0;
+        int fullyPaid = 0;
+        int tooShort = 0;
+        int invalidRating = 0;
+        Long firstShortfallReviewId = null;
+        long lastId = 0;
+
+        while (simulated + tooShort + invalidRating < max) {
+            QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "content", "rating")
+                    .gt("id", lastId)
+                    .and(w -> w.isNull("tx_hash").or().eq("tx_hash", ""))
+                    .orderByAsc("id")
+                    .last("LIMIT " + Math.min(pageSize, max - simulated - tooShort - invalidRating));
+            List<Reviews> page = reviewsMapper.selectList(queryWrapper);
+            if (page.isEmpty()) {
+                break;
+            }
+            for (Reviews review : page) {
+                lastId = review.getId();
+                // 与ReviewCore.submitReview的校验一致，这些评论上链会失败，不发放奖励
+                if (RewardCalculator.contentLength(review.getContent()) < minContentLength) {
+                    tooShort++;
+                    continue;
+                }
+                if (review.getRating() == null || review.getRating() < 1 || review.getRating() > 5) {
+                    invalidRating++;
+                    continue;
+                }
+                BigInteger reward = RewardCalculator.calculateReward(coinDays, review.getContent(), review.getRating());
+                BigInteger actual = reward.min(remaining);
+                remaining = remaining.subtract(actual);
+                projectedTotal = projectedTotal.add(reward);
+                payableTotal = payableTotal.add(actual);
+                simulated++;
+                if (actual.equals(reward)) {
+                    fullyPaid++;
+                } else if (firstShortfallReviewId == null) {
+                    firstShortfallReviewId = review.getId();
+                }
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 0);
+        result.put("reviews", simulated);
+        result.put("fullyPaid", fullyPaid);
+        result.put("skippedTooShort", tooShort);
+        result.put("skippedInvalidRating", invalidRating);
+        result.put("coinDays", coinDays.toString());
+        result.put("minContentLength", minContentLength);
+        result.put("poolBalance", poolBalance.toString());
+        result.put("projectedTotal", projectedTotal.toString());
+        result.put("payableTotal", payableTotal.toString());
+        result.put("shortfall", projectedTotal.subtract(payableTotal).toString());
+        result.put("remainingBalance", remaining.toString());
+        result.put("averageReward", simulated == 0 ? "0"
+                : projectedTotal.divide(BigInteger.valueOf(simulated)).toString());
+        result.put("firstShortfallReviewId", firstShortfallReviewId);
+        result.put("dailyRewardAmount", dailyRewardAmount.toString());
+        // 待上链评论的奖励合计相当于多少天的每日奖励额度，供调整setDailyReward参考
+        result.put("dailyRewardDays", dailyRewardAmount.signum() == 0 ? null
+                : new BigDecimal(projectedTotal).divide(new BigDecimal(dailyRewardAmount), 2, RoundingMode.HALF_UP));
+        return result;
+    }
+}
@@ -1,14 +1,7 @@
 package com.lwf.service;
 
-import java.lang.Exception;
-import java.lang.String;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import javax.annotation.PostConstruct;
 
-import com.lwf.service.*;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import com.lwf.config.SystemConfig;
@@ -17,6 +10,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * 按签名账户地址索引的合约服务
+ * 账户和密钥对由SignerRegistry统一推导，各Map中的服务在首次按地址取用时才创建，
+ * 同一账户的各合约服务共用一个交易处理器。
+ */
 @Configuration
 @Data
 @Slf4j
@@ -27,190 +25,90 @@ public class ServiceManager {
 	@Autowired
 	private Client client;
 
-	List<String> hexPrivateKeyList;
-
-	@PostConstruct
-	public void init() {
-		hexPrivateKeyList = Arrays.asList(this.config.getHexPrivateKey().split(","));
-	}
+	@Autowired
+	private SignerRegistry signerRegistry;
 
 	/**
 	 * @notice: must use @Qualifier("TestTokenService") with @Autowired to get this Bean
 	 */
 	@Bean("TestTokenService")
-	public Map<String, TestTokenService> initTestTokenServiceManager() throws Exception {
-		Map<String, TestTokenService> serviceMap = new ConcurrentHashMap<>(this.hexPrivateKeyList.size());
-		for (int i = 0; i < this.hexPrivateKeyList.size(); i++) {
-			String privateKey = this.hexPrivateKeyList.get(i);
-			if (privateKey.startsWith("0x") || privateKey.startsWith("0X")) {
-				privateKey = privateKey.substring(2);
-			}
-			if (privateKey.isEmpty()) {
-				continue;
-			}
-			org.fisco.bcos.sdk.crypto.CryptoSuite cryptoSuite = new org.fisco.bcos.sdk.crypto.CryptoSuite(this.client.getCryptoType());
-			org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair cryptoKeyPair = cryptoSuite.createKeyPair(privateKey);
-			String userAddress = cryptoKeyPair.getAddress();
-			log.info("++++++++hexPrivateKeyList[{}]:{},userAddress:{}", i, privateKey, userAddress);
+	public Map<String, TestTokenService> initTestTokenServiceManager() {
+		return this.signerRegistry.lazyServiceMap(userAddress -> {
 			TestTokenService testTokenService = new TestTokenService();
 			testTokenService.setAddress(this.config.getContract().getTestTokenAddress());
 			testTokenService.setClient(this.client);
-			org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor txProcessor =
-					org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory.createAssembleTransactionProcessor(this.client, cryptoKeyPair);
-			testTokenService.setTxProcessor(txProcessor);
-			serviceMap.put(userAddress, testTokenService);
-		}
-		log.info("++++++++TestTokenService map:{}", serviceMap);
-		return serviceMap;
+			testTokenService.setTxProcessor(this.signerRegistry.processor(userAddress));
+			return testTokenService;
+		});
 	}
 
 	/**
 	 * @notice: must use @Qualifier("RewardPoolService") with @Autowired to get this Bean
 	 */
 	@Bean("RewardPoolService")
-	public Map<String, RewardPoolService> initRewardPoolServiceManager() throws Exception {
-		Map<String, RewardPoolService> serviceMap = new ConcurrentHashMap<>(this.hexPrivateKeyList.size());
-		for (int i = 0; i < this.hexPrivateKeyList.size(); i++) {
-			String privateKey = this.hexPrivateKeyList.get(i);
-			if (privateKey.startsWith("0x") || privateKey.startsWith("0X")) {
-				privateKey = privateKey.substring(2);
-			}
-			if (privateKey.isEmpty()) {
-				continue;
-			}
-			org.fisco.bcos.sdk.crypto.CryptoSuite cryptoSuite = new org.fisco.bcos.sdk.crypto.CryptoSuite(this.client.getCryptoType());
-			org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair cryptoKeyPair = cryptoSuite.createKeyPair(privateKey);
-			String userAddress = cryptoKeyPair.getAddress();
-			log.info("++++++++hexPrivateKeyList[{}]:{},userAddress:{}", i, privateKey, userAddress);
+	public Map<String, RewardPoolService> initRewardPoolServiceManager() {
+		return this.signerRegistry.lazyServiceMap(userAddress -> {
 			RewardPoolService rewardPoolService = new RewardPoolService();
 			rewardPoolService.setAddress(this.config.getContract().getRewardPoolAddress());
 			rewardPoolService.setClient(this.client);
-			org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor txProcessor =
-					org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory.createAssembleTransactionProcessor(this.client, cryptoKeyPair);
-			rewardPoolService.setTxProcessor(txProcessor);
-			serviceMap.put(userAddress, rewardPoolService);
-		}
-		log.info("++++++++RewardPoolService map:{}", serviceMap);
-		return serviceMap;
+			rewardPoolService.setTxProcessor(this.signerRegistry.processor(userAddress));
+			return rewardPoolService;
+		});
 	}
 
 	/**
 	 * @notice: must use @Qualifier("ReviewNFTService") with @Autowired to get this Bean
 	 */
 	@Bean("ReviewNFTService")
-	public Map<String, ReviewNFTService> initReviewNFTServiceManager() throws Exception {
-		Map<String, ReviewNFTService> serviceMap = new ConcurrentHashMap<>(this.hexPrivateKeyList.size());
-		for (int i = 0; i < this.hexPrivateKeyList.size(); i++) {
-			String privateKey = this.hexPrivateKeyList.get(i);
-			if (privateKey.startsWith("0x") || privateKey.startsWith("0X")) {
-				privateKey = privateKey.substring(2);
-			}
-			if (privateKey.isEmpty()) {
-				continue;
-			}
-			org.fisco.bcos.sdk.crypto.CryptoSuite cryptoSuite = new org.fisco.bcos.sdk.crypto.CryptoSuite(this.client.getCryptoType());
-			org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair cryptoKeyPair = cryptoSuite.createKeyPair(privateKey);
-			String userAddress = cryptoKeyPair.getAddress();
-			log.info("++++++++hexPrivateKeyList[{}]:{},userAddress:{}", i, privateKey, userAddress);
+	public Map<String, ReviewNFTService> initReviewNFTServiceManager() {
+		return this.signerRegistry.lazyServiceMap(userAddress -> {
 			ReviewNFTService reviewNFTService = new ReviewNFTService();
 			reviewNFTService.setAddress(this.config.getContract().getReviewNFTAddress());
 			reviewNFTService.setClient(this.client);
-			org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor txProcessor =
-					org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory.createAssembleTransactionProcessor(this.client, cryptoKeyPair);
-			reviewNFTService.setTxProcessor(txProcessor);
-			serviceMap.put(userAddress, reviewNFTService);
-		}
-		log.info("++++++++ReviewNFTService map:{}", serviceMap);
-		return serviceMap;
+			reviewNFTService.setTxProcessor(this.signerRegistry.processor(userAddress));
+			return reviewNFTService;
+		});
 	}
 
 	/**
 	 * @notice: must use @Qualifier("ReviewCoreService") with @Autowired to get this Bean
 	 */
 	@Bean("ReviewCoreService")
-	public Map<String, ReviewCoreService> initReviewCoreServiceManager() throws Exception {
-		Map<String, ReviewCoreService> serviceMap = new ConcurrentHashMap<>(this.hexPrivateKeyList.size());
-		for (int i = 0; i < this.hexPrivateKeyList.size(); i++) {
-			String privateKey = this.hexPrivateKeyList.get(i);
-			if (privateKey.startsWith("0x") || privateKey.startsWith("0X")) {
-				privateKey = privateKey.substring(2);
-			}
-			if (privateKey.isEmpty()) {
-				continue;
-			}
-			org.fisco.bcos.sdk.crypto.CryptoSuite cryptoSuite = new org.fisco.bcos.sdk.crypto.CryptoSuite(this.client.getCryptoType());
-			org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair cryptoKeyPair = cryptoSuite.createKeyPair(privateKey);
-			String userAddress = cryptoKeyPair.getAddress();
-			log.info("++++++++hexPrivateKeyList[{}]:{},userAddress:{}", i, privateKey, userAddress);
+	public Map<String, ReviewCoreService> initReviewCoreServiceManager() {
+		return this.signerRegistry.lazyServiceMap(userAddress -> {
 			ReviewCoreService reviewCoreService = new ReviewCoreService();
 			reviewCoreService.setAddress(this.config.getContract().getReviewCoreAddress());
 			reviewCoreService.setClient(this.client);
-			org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor txProcessor =
-					org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory.createAssembleTransactionProcessor(this.client, cryptoKeyPair);
-			reviewCoreService.setTxProcessor(txProcessor);
-			serviceMap.put(userAddress, reviewCoreService);
-		}
-		log.info("++++++++ReviewCoreService map:{}", serviceMap);
-		return serviceMap;
+			reviewCoreService.setTxProcessor(this.signerRegistry.processor(userAddress));
+			return reviewCoreService;
+		});
 	}
 
 	/**
 	 * @notice: must use @Qualifier("CoinDayValidatorService") with @Autowired to get this Bean
 	 */
 	@Bean("CoinDayValidatorService")
-	public Map<String, CoinDayValidatorService> initCoinDayValidatorServiceManager() throws Exception {
-		Map<String, CoinDayValidatorService> serviceMap = new ConcurrentHashMap<>(this.hexPrivateKeyList.size());
-		for (int i = 0; i < this.hexPrivateKeyList.size(); i++) {
-			String privateKey = this.hexPrivateKeyList.get(i);
-			if (privateKey.startsWith("0x") || privateKey.startsWith("0X")) {
-				privateKey = privateKey.substring(2);
-			}
-			if (privateKey.isEmpty()) {
-				continue;
-			}
-			org.fisco.bcos.sdk.crypto.CryptoSuite cryptoSuite = new org.fisco.bcos.sdk.crypto.CryptoSuite(this.client.getCryptoType());
-			org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair cryptoKeyPair = cryptoSuite.createKeyPair(privateKey);
-			String userAddress = cryptoKeyPair.getAddress();
-			log.info("++++++++hexPrivateKeyList[{}]:{},userAddress:{}", i, privateKey, userAddress);
+	public Map<String, CoinDayValidatorService> initCoinDayValidatorServiceManager() {
+		return this.signerRegistry.lazyServiceMap(userAddress -> {
 			CoinDayValidatorService coinDayValidatorService = new CoinDayValidatorService();
 			coinDayValidatorService.setAddress(this.config.getContract().getCoinDayValidatorAddress());
 			coinDayValidatorService.setClient(this.client);
-			org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor txProcessor =
-					org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory.createAssembleTransactionProcessor(this.client, cryptoKeyPair);
-			coinDayValidatorService.setTxProcessor(txProcessor);
-			serviceMap.put(userAddress, coinDayValidatorService);
-		}
-		log.info("++++++++CoinDayValidatorService map:{}", serviceMap);
-		return serviceMap;
+			coinDayValidatorService.setTxProcessor(this.signerRegistry.processor(userAddress));
+			return coinDayValidatorService;
+		});
 	}
 
 	/**
 	 * @notice: must use @Qualifier("AccessControlService") with @Autowired to get this Bean
 	 */
 	@Bean("AccessControlService")
-	public Map<String, AccessControlService> initAccessControlServiceManager() throws Exception {
-		Map<String, AccessControlService> serviceMap = new ConcurrentHashMap<>(this.hexPrivateKeyList.size());
-		for (int i = 0; i < this.hexPrivateKeyList.size(); i++) {
-			String privateKey = this.hexPrivateKeyList.get(i);
-			if (privateKey.startsWith("0x") || privateKey.startsWith("0X")) {
-				privateKey = privateKey.substring(2);
-			}
-			if (privateKey.isEmpty()) {
-				continue;
-			}
-			org.fisco.bcos.sdk.crypto.CryptoSuite cryptoSuite = new org.fisco.bcos.sdk.crypto.CryptoSuite(this.client.getCryptoType());
-			org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair cryptoKeyPair = cryptoSuite.createKeyPair(privateKey);
-			String userAddress = cryptoKeyPair.getAddress();
-			log.info("++++++++hexPrivateKeyList[{}]:{},userAddress:{}", i, privateKey, userAddress);
+	public Map<String, AccessControlService> initAccessControlServiceManager() {
+		return this.signerRegistry.lazyServiceMap(userAddress -> {
 			AccessControlService accessControlService = new AccessControlService();
 			accessControlService.setAddress(this.config.getContract().getAccessControlAddress());
 			accessControlService.setClient(this.client);
-			org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor txProcessor =
-					org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory.createAssembleTransactionProcessor(this.client, cryptoKeyPair);
-			accessControlService.setTxProcessor(txProcessor);
-			serviceMap.put(userAddress, accessControlService);
-		}
-		log.info("++++++++AccessControlService map:{}", serviceMap);
-		return serviceMap;
+			accessControlService.setTxProcessor(this.signerRegistry.processor(userAddress));
+			return accessControlService;
+		});
 	}
 }
@@ -0,0 +1,203 @@
+package com.lwf.service;
+
+import com.lwf.config.SystemConfig;
+import com.lwf.utils.CachedAbiDefinitionFactory;
+import com.lwf.utils.CachedAbiTransactionProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.tuple.Pair;
+import org.fisco.bcos.sdk.client.Client;
+import org.fisco.bcos.sdk.crypto.CryptoSuite;
+import org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair;
+import org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor;
+import org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 签名账户注册表
+ * 启动时只把system.hexPrivateKey中的每个私钥推导一次得到账户地址，交易处理器在账户首次使用时才创建，
+ * 同一账户的全部合约服务共用一个处理器；链ID和群组ID只查询一次，全部处理器共用一份ABI解析缓存。
+ * 启动耗时和内存不再随“私钥数 × 合约数”增长。
+ */
+@Slf4j
+@Service
+public class SignerRegistry {
+
+    @Autowired
+    private SystemConfig config;
+
+    @Autowired
+    private Client client;
+
+    // 按配置顺序排列的账户地址 -> 密钥对
+    private Map<String, CryptoKeyPair> keyPairs;
+
+    private final Map<String, AssembleTransactionProcessor> processors = new ConcurrentHashMap<>();
+
+    private CachedAbiDefinitionFactory abiDefinitionFactory;
+
+    private volatile Pair<String, Integer> chainIdAndGroupId;
+
+    @PostConstruct
+    public void init() {
+        CryptoSuite cryptoSuite = new CryptoSuite(client.getCryptoType());
+        abiDefinitionFactory = new CachedAbiDefinitionFactory(cryptoSuite);
+        Map<String, CryptoKeyPair> map = new LinkedHashMap<>();
+        String hexPrivateKey = config.getHexPrivateKey();
+        if (hexPrivateKey != null) {
+            for (String privateKey : hexPrivateKey.split(",")) {
+                privateKey = privateKey.trim();
+                if (privateKey.startsWith("0x") || privateKey.startsWith("0X")) {
+                    privateKey = privateKey.substring(2);
+                }
+                if (privateKey.isEmpty()) {
+                    continue;
+                }
+                CryptoKeyPair keyPair = cryptoSuite.createKeyPair(privateKey);
+                map.putIfAbsent(keyPair.getAddress(), keyPair);
+            }
+        }
+        keyPairs = Collections.unmodifiableMap(map);
+        log.info("签名账户注册表已初始化, 账户={}", keyPairs.keySet());
+    }
+
+    /**
+     * 已配置的账户地址，按配置顺序
+     */
+    public Set<String> addresses() {
+        return keyPairs.keySet();
+    }
+
+    /**
+     * 账户的交易处理器，首次使用时创建
+     *
+     * @throws IllegalArgumentException 账户未配置时抛出
+     */
+    public AssembleTransactionProcessor processor(String address) {
+        CryptoKeyPair keyPair = keyPairs.get(address);
+        if (keyPair == null) {
+            throw new IllegalArgumentException("未配置的签名账户: " + address);
+        }
+        return processors.computeIfAbsent(address, key -> createProcessor(keyPair));
+    }
+
+    /**
+     * 客户端默认账户的交易处理器，该账户同时在私钥列表中时与之共用
+     */
+    public AssembleTransactionProcessor defaultProcessor() {
+        CryptoKeyPair keyPair = client.getCryptoSuite().getCryptoKeyPair();
+        return processors.computeIfAbsent(keyPair.getAddress(), key -> createProcessor(keyPair));
+    }
+
+    /**
+     * 按账户地址懒加载的服务Map，值在首次get或遍历entrySet/values时才创建，之后复用；只需地址时遍历keySet
+     *
+     * @param factory 根据账户地址创建服务
+     */
+    public <S> Map<String, S> lazyServiceMap(Function<String, S> factory) {
+        return new LazyServiceMap<>(keyPairs.keySet(), factory);
+    }
+
+    /**
+     * 注册表统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("signers", keyPairs.size());
+        stats.put("processors", processors.size());
+        stats.put("cachedAbis", abiDefinitionFactory.size());
+        return stats;
+    }
+
+    private AssembleTransactionProcessor createProcessor(CryptoKeyPair keyPair) {
+        Pair<String, Integer> ids = chainIdAndGroupId;
+        if (ids == null) {
+            // 只在首次创建处理器时查询一次
+            ids = TransactionProcessorFactory.getChainIdAndGroupId(client);
+            chainIdAndGroupId = ids;
+        }
+        AssembleTransactionProcessor processor = new CachedAbiTransactionProcessor(
+                client, keyPair, ids.getRight(), ids.getLeft(), abiDefinitionFactory);
+        log.info("已创建签名账户交易处理器: {}", keyPair.getAddress());
+        return processor;
+    }
+
+    /**
+     * 键集合固定、值按需创建的只读Map
+     */
+    private static final class LazyServiceMap<S> extends AbstractMap<String, S> {
+
+        private final Set<String> keys;
+
+        private final Function<String, S> factory;
+
+        private final Map<String, S> created = new ConcurrentHashMap<>();
+
+        LazyServiceMap(Set<String> keys, Function<String, S> factory) {
+            this.keys = keys;
+            this.factory = factory;
+        }
+
+        @Override
+        public S get(Object key) {
+            if (!keys.contains(key)) {
+                return null;
+            }
+            return created.computeIfAbsent((String) key, factory);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return keys.contains(key);
+        }
+
+        @Override
+        public int size() {
+            return keys.size();
+        }
+
+        @Override
+        public Set<Entry<String, S>> entrySet() {
+            return new AbstractSet<Entry<String, S>>() {
+                @Override
+                public Iterator<Entry<String, S>> iterator() {
+                    Iterator<String> it = keys.iterator();
+                    return new Iterator<Entry<String, S>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, S> next() {
+                            String key = it.next();
+                            return new SimpleImmutableEntry<>(key, get(key));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.size();
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "LazyServiceMap" + keys + ", created=" + created.keySet();
+        }
+    }
+}
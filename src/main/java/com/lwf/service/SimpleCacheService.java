@@ -1,48 +1,54 @@
 package com.lwf.service;
+import com.lwf.utils.TtlCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 简单缓存服务
+ * 底层为有界的TtlCache：过期由后台时间轮清理，容量满时按访问频率淘汰
+ */
 @Service
 public class SimpleCacheService {
 
-    private final Map<String, CacheItem> cache = new ConcurrentHashMap<>();
+    /**
+     * 最大缓存条目数
+     */
+    @Value("${cache.simple.maximum-size:500000}")
+    private long maximumSize;
+
+    private TtlCache<String, Object> cache;
 
-    private static class CacheItem {
-        Object value;
-        long expireTime;
+    @PostConstruct
+    public void init() {
+        cache = new TtlCache<>("simpleCache", maximumSize);
+    }
 
-        CacheItem(Object value, long expireTime) {
-            this.value = value;
-            this.expireTime = expireTime;
-        }
+    @PreDestroy
+    public void destroy() {
+        cache.shutdown();
     }
 
     /**
-     * 设置缓存
+     * 设置缓存，value为null时等同于删除该key
      */
     public void set(String key, Object value, long expireSeconds) {
-        long expireTime = System.currentTimeMillis() + (expireSeconds * 1000);
-        cache.put(key, new CacheItem(value, expireTime));
-
-        // 简单清理过期项目
-        cleanExpired();
+        if (value == null) {
+            // TtlCache不接受null值，调用方写入null按清除缓存处理，之后get同样返回null
+            cache.remove(key);
+            return;
+        }
+        cache.put(key, value, expireSeconds * 1000);
     }
 
     /**
      * 获取缓存
      */
     public Object get(String key) {
-        cleanExpired();
-
-        CacheItem item = cache.get(key);
-        if (item != null && System.currentTimeMillis() < item.expireTime) {
-            return item.value;
-        }
-
-        // 如果过期或不存在，移除并返回null
-        cache.remove(key);
-        return null;
+        return cache.get(key);
     }
 
     /**
@@ -56,17 +62,13 @@ public class SimpleCacheService {
      * 检查是否存在
      */
     public boolean exists(String key) {
-        cleanExpired();
         return cache.containsKey(key);
     }
 
     /**
-     * 清理过期缓存
+     * 缓存命中、淘汰、过期统计
      */
-    private void cleanExpired() {
-        long currentTime = System.currentTimeMillis();
-        cache.entrySet().removeIf(entry ->
-                currentTime >= entry.getValue().expireTime
-        );
+    public Map<String, Object> stats() {
+        return cache.stats();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,164 @@
+package com.lwf.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lwf.entity.Orders;
+import com.lwf.mapper.OrdersMapper;
+import com.lwf.mapper.ProductsMapper;
+import com.lwf.utils.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品库存预占
+ * 下单时用 UPDATE ... SET stock = stock - q WHERE stock >= q 原子扣减，库存不足时影响行数为0，不会超卖；
+ * 扣减成功即视为预占，订单在到期前仍为pending且未提交支付交易时由定时任务取消并归还库存。
+ * 取消订单与归还库存在同一条语句中完成并以status = 'pending'为条件，定时任务与手动取消并发时库存只归还一次。
+ * 某商品扣减失败后在本地记录短暂的售罄标记，标记期内的下单请求直接拒绝，不再排队争抢商品行锁。
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    @Autowired
+    private ProductsMapper productsMapper;
+
+    @Autowired
+    private OrdersMapper ordersMapper;
+
+    /**
+     * 预占有效期（毫秒）
+     */
+    @Value("${order.reservation.ttl-ms:900000}")
+    private long ttlMs;
+
+    /**
+     * 每次释放扫描最多处理的订单数
+     */
+    @Value("${order.reservation.release-batch-size:200}")
+    private int releaseBatchSize;
+
+    /**
+     * 扣减失败后本地售罄标记的有效期（毫秒），0表示不使用
+     */
+    @Value("${order.reservation.sold-out-hint-ms:1000}")
+    private long soldOutHintMs;
+
+    // 商品ID -> 售罄标记到期时间
+    private final Map<Long, Long> soldOutUntil = new ConcurrentHashMap<>();
+
+    private final AtomicLong reservedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong releasedCount = new AtomicLong();
+
+    /**
+     * 原子扣减商品库存，须在创建订单的事务中、订单写入之后调用，使商品行锁只持有到事务提交
+     *
+     * @return 预占到期时间
+     * @throws BusinessException 库存不足时抛出
+     */
+    public LocalDateTime reserve(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new BusinessException("购买数量必须大于0");
+        }
+        if (isSoldOut(productId)) {
+            rejectedCount.incrementAndGet();
+            throw new BusinessException("商品库存不足");
+        }
+        if (productsMapper.decrementStock(productId, quantity) == 0) {
+            // 多件购买失败时剩余库存可能仍够买少量，不标记售罄
+            if (quantity == 1 && soldOutHintMs > 0) {
+                soldOutUntil.put(productId, System.currentTimeMillis() + soldOutHintMs);
+            }
+            rejectedCount.incrementAndGet();
+            throw new BusinessException("商品库存不足");
+        }
+        reservedCount.incrementAndGet();
+        return LocalDateTime.now().plusNanos(ttlMs * 1_000_000L);
+    }
+
+    /**
+     * 库存刚被扣减失败时快速拒绝，避免售罄商品上的请求继续争抢行锁
+     */
+    public boolean isSoldOut(Long productId) {
+        Long until = soldOutUntil.get(productId);
+        if (until == null) {
+            return false;
+        }
+        if (until <= System.currentTimeMillis()) {
+            soldOutUntil.remove(productId, until);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 取消pending订单并归还其预占的库存
+     *
+     * @return 订单仍为pending并已取消时返回true
+     */
+    public boolean cancel(Orders order) {
+        return release(order, null);
+    }
+
+    /**
+     * 定期取消预占已到期且未支付的pending订单，归还库存
+     */
+    @Scheduled(initialDelayString = "${order.reservation.release-interval-ms:30000}",
+            fixedDelayString = "${order.reservation.release-interval-ms:30000}")
+    public void releaseExpired() {
+        try {
+            // 到期时间由应用写入，筛选和取消时的复核都用同一个应用时钟，不与数据库NOW()混用
+            LocalDateTime now = LocalDateTime.now();
+            QueryWrapper<Orders> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "product_id")
+                    .eq("status", "pending")
+                    .le("reserve_expire_at", now)
+                    .and(w -> w.isNull("tx_hash").or().eq("tx_hash", ""))
+                    .orderByAsc("reserve_expire_at")
+                    .last("LIMIT " + releaseBatchSize);
+            List<Orders> expired = ordersMapper.selectList(queryWrapper);
+            int count = 0;
+            for (Orders order : expired) {
+                if (release(order, now)) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                log.info("已取消 {} 个预占到期的未支付订单并归还库存", count);
+            }
+        } catch (Exception e) {
+            log.error("释放到期库存预占失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 预占统计
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("reserved", reservedCount.get());
+        stats.put("rejected", rejectedCount.get());
+        stats.put("released", releasedCount.get());
+        stats.put("soldOutHints", soldOutUntil.size());
+        return stats;
+    }
+
+    private boolean release(Orders order, LocalDateTime expiredBefore) {
+        if (ordersMapper.cancelReservation(order.getId(), expiredBefore) == 0) {
+            return false;
+        }
+        soldOutUntil.remove(order.getProductId());
+        releasedCount.incrementAndGet();
+        return true;
+    }
+}
@@ -2,16 +2,23 @@ package com.lwf.service;
 
 import java.lang.Exception;
 import java.lang.String;
+import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import javax.annotation.PostConstruct;
 
 import com.lwf.model.bo.TestTokenBalanceOfInputBO;
 import com.lwf.model.bo.TestTokenTransferInputBO;
+import com.lwf.raw.TestToken;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.fisco.bcos.sdk.abi.EventEncoder;
+import org.fisco.bcos.sdk.abi.EventValues;
 import org.fisco.bcos.sdk.client.Client;
+import org.fisco.bcos.sdk.contract.Contract;
+import org.fisco.bcos.sdk.model.TransactionReceipt;
 import org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor;
-import org.fisco.bcos.sdk.transaction.manager.TransactionProcessorFactory;
 import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
 import org.fisco.bcos.sdk.transaction.model.dto.TransactionResponse;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,12 +41,14 @@ public class TestTokenService {
   @Autowired
   private Client client;
 
+  @Autowired
+  private SignerRegistry signerRegistry;
+
   AssembleTransactionProcessor txProcessor;
 
   @PostConstruct
   public void init() throws Exception {
-    this.txProcessor = TransactionProcessorFactory.createAssembleTransactionProcessor(this.client,
-        this.client.getCryptoSuite().getCryptoKeyPair());
+    this.txProcessor = this.signerRegistry.defaultProcessor();
   }
 
   public CallResponse decimals() throws Exception {
@@ -74,4 +83,35 @@ public class TestTokenService {
     return this.txProcessor.sendCall(this.client.getCryptoSuite().getCryptoKeyPair().getAddress(), this.address, ABI,
         "name", Arrays.asList());
   }
+
+  /**
+   * 从交易回执日志中解析本合约的Transfer事件
+   *
+   * @return 转账事件，没有时返回空列表
+   */
+  public List<TestToken.TransferEventResponse> decodeTransferEvents(TransactionReceipt receipt) {
+    List<TestToken.TransferEventResponse> events = new ArrayList<>();
+    if (receipt.getLogs() == null) {
+      return events;
+    }
+    EventEncoder eventEncoder = new EventEncoder(this.client.getCryptoSuite());
+    String topic0 = eventEncoder.encode(TestToken.TRANSFER_EVENT);
+    for (TransactionReceipt.Logs log : receipt.getLogs()) {
+      if (log.getTopics() == null || log.getTopics().isEmpty() || !topic0.equals(log.getTopics().get(0))
+          || (log.getAddress() != null && !log.getAddress().equalsIgnoreCase(this.address))) {
+        continue;
+      }
+      EventValues eventValues = Contract.staticExtractEventParameters(eventEncoder, TestToken.TRANSFER_EVENT, log);
+      if (eventValues == null) {
+        continue;
+      }
+      TestToken.TransferEventResponse event = new TestToken.TransferEventResponse();
+      event.log = log;
+      event.from = (String) eventValues.getIndexedValues().get(0).getValue();
+      event.to = (String) eventValues.getIndexedValues().get(1).getValue();
+      event.value = (BigInteger) eventValues.getNonIndexedValues().get(0).getValue();
+      events.add(event);
+    }
+    return events;
+  }
 }
@@ -0,0 +1,245 @@
+package com.lwf.service;
+
+import com.lwf.entity.Reviews;
+import com.lwf.entity.dto.VoteDeltaDTO;
+import com.lwf.mapper.ReviewsMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 评价投票计数器
+ * 投票增量先累加到每条评价的LongAdder中（热点评价的并发投票分散到多个单元，互不争用），
+ * 由定时任务批量写入数据库，写入语句为helpful_votes = helpful_votes + 增量，不会覆盖并发写入。
+ * 读取时用数据库中的值加上尚未写入的增量。
+ * 增量写库前只在内存中，进程被强制结束时会丢失；定时校准（含启动后首次）按评价ID区间
+ * 从review_votes重新统计票数，修正丢失的增量。仍有计数器的评价正在被投票，本轮跳过，空闲后再校准。
+ */
+@Slf4j
+@Service
+public class VoteCounter {
+
+    // 计数器被移出后保留的轮数，确保移出前拿到引用的写入也能被写库
+    private static final int GRACE_ROUNDS = 3;
+
+    @Autowired
+    private ReviewsMapper reviewsMapper;
+
+    /**
+     * 每条批量更新语句包含的评价数
+     */
+    @Value("${review.vote.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    /**
+     * 连续多少轮没有新投票后移除该评价的计数器
+     */
+    @Value("${review.vote.idle-rounds:60}")
+    private int idleRounds;
+
+    /**
+     * 校准任务每次处理的评价ID区间长度
+     */
+    @Value("${review.vote.reconcile-range:1000}")
+    private long reconcileRange;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    // 已移出但仍在宽限期内的计数器，只由写库线程访问
+    private final List<Counter> retired = new ArrayList<>();
+
+    /**
+     * 记录一次投票
+     *
+     * @param reviewId  评价ID
+     * @param isHelpful 是否为有用投票
+     */
+    public void record(Long reviewId, boolean isHelpful) {
+        Counter counter = counters.computeIfAbsent(reviewId, Counter::new);
+        (isHelpful ? counter.helpful : counter.unhelpful).increment();
+    }
+
+    /**
+     * 把尚未写库的投票增量合并到评价的票数上
+     */
+    public void applyPending(Reviews review) {
+        if (review == null) {
+            return;
+        }
+        Counter counter = counters.get(review.getId());
+        if (counter == null) {
+            return;
+        }
+        review.setHelpfulVotes((int) (nullToZero(review.getHelpfulVotes()) + counter.pendingHelpful()));
+        review.setUnhelpfulVotes((int) (nullToZero(review.getUnhelpfulVotes()) + counter.pendingUnhelpful()));
+    }
+
+    public void applyPending(Collection<Reviews> reviews) {
+        for (Reviews review : reviews) {
+            applyPending(review);
+        }
+    }
+
+    /**
+     * 把累计的投票增量批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${review.vote.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // 同一评价可能同时存在活跃和宽限期内的计数器，按评价ID合并
+        Map<Long, VoteDeltaDTO> deltas = new LinkedHashMap<>();
+        Map<Long, List<Counter>> owners = new LinkedHashMap<>();
+        for (Counter counter : counters.values()) {
+            collect(counter, deltas, owners);
+        }
+        for (Counter counter : retired) {
+            collect(counter, deltas, owners);
+        }
+
+        List<VoteDeltaDTO> all = new ArrayList<>(deltas.values());
+        for (int from = 0; from < all.size(); from += flushBatchSize) {
+            List<VoteDeltaDTO> batch = all.subList(from, Math.min(all.size(), from + flushBatchSize));
+            try {
+                reviewsMapper.incrementVotesBatch(batch);
+            } catch (Exception e) {
+                // 写库失败时回退已写入标记，下一轮重试
+                for (VoteDeltaDTO delta : batch) {
+                    for (Counter counter : owners.get(delta.getReviewId())) {
+                        counter.rollback();
+                    }
+                }
+                log.error("投票计数写库失败，{} 条评价待重试: {}", batch.size(), e.getMessage(), e);
+            }
+        }
+
+        retired.removeIf(counter -> counter.idle >= GRACE_ROUNDS);
+        for (Counter counter : counters.values()) {
+            if (counter.idle >= idleRounds && counters.remove(counter.reviewId, counter)) {
+                counter.idle = 0;
+                retired.add(counter);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 按review_votes校准评价票数
+     *
+     * @return 修正票数的评价数
+     */
+    @Scheduled(initialDelayString = "${review.vote.reconcile-initial-delay-ms:30000}",
+            fixedDelayString = "${review.vote.reconcile-interval-ms:3600000}")
+    public int reconcile() {
+        int corrected = 0;
+        try {
+            Long maxId = reviewsMapper.selectMaxId();
+            if (maxId == null) {
+                return 0;
+            }
+            // 只在开始前写入一次：flush会累计计数器的空闲轮数，按区间反复调用会让所有计数器提前移出、宽限期失效
+            flush();
+            for (long from = 0; from <= maxId; from += reconcileRange) {
+                corrected += reconcileRange(from, from + reconcileRange);
+            }
+            if (corrected > 0) {
+                log.info("评价票数校准完成，修正 {} 条评价", corrected);
+            }
+        } catch (Exception e) {
+            log.error("评价票数校准失败: {}", e.getMessage(), e);
+        }
+        return corrected;
+    }
+
+    /**
+     * 与写库互斥，重算区间内没有计数器（活跃或宽限期内）的评价
+     * 投票记录已写入、计数器尚未建立的瞬间到达的投票可能被多计一次，由下一轮校准修正
+     */
+    private synchronized int reconcileRange(long from, long to) {
+        List<Long> skipIds = new ArrayList<>();
+        for (Long reviewId : counters.keySet()) {
+            if (reviewId >= from && reviewId < to) {
+                skipIds.add(reviewId);
+            }
+        }
+        for (Counter counter : retired) {
+            if (counter.reviewId >= from && counter.reviewId < to) {
+                skipIds.add(counter.reviewId);
+            }
+        }
+        return reviewsMapper.rebuildVotesRange(from, to, skipIds);
+    }
+
+    private void collect(Counter counter, Map<Long, VoteDeltaDTO> deltas, Map<Long, List<Counter>> owners) {
+        long helpful = counter.pendingHelpful();
+        long unhelpful = counter.pendingUnhelpful();
+        if (helpful == 0 && unhelpful == 0) {
+            counter.idle++;
+            return;
+        }
+        counter.idle = 0;
+        counter.markFlushed(helpful, unhelpful);
+        deltas.merge(counter.reviewId, new VoteDeltaDTO(counter.reviewId, helpful, unhelpful), (a, b) -> {
+            a.setHelpful(a.getHelpful() + b.getHelpful());
+            a.setUnhelpful(a.getUnhelpful() + b.getUnhelpful());
+            return a;
+        });
+        owners.computeIfAbsent(counter.reviewId, id -> new ArrayList<>(1)).add(counter);
+    }
+
+    private static long nullToZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static final class Counter {
+        final Long reviewId;
+        final LongAdder helpful = new LongAdder();
+        final LongAdder unhelpful = new LongAdder();
+        // 已写库的累计值，只由写库线程修改
+        volatile long flushedHelpful;
+        volatile long flushedUnhelpful;
+        long lastHelpful;
+        long lastUnhelpful;
+        int idle;
+
+        Counter(Long reviewId) {
+            this.reviewId = reviewId;
+        }
+
+        long pendingHelpful() {
+            return helpful.sum() - flushedHelpful;
+        }
+
+        long pendingUnhelpful() {
+            return unhelpful.sum() - flushedUnhelpful;
+        }
+
+        // 先标记为已写入再执行更新，读取方最多短暂少算，不会重复计算
+        void markFlushed(long helpfulDelta, long unhelpfulDelta) {
+            lastHelpful = helpfulDelta;
+            lastUnhelpful = unhelpfulDelta;
+            flushedHelpful += helpfulDelta;
+            flushedUnhelpful += unhelpfulDelta;
+        }
+
+        void rollback() {
+            flushedHelpful -= lastHelpful;
+            flushedUnhelpful -= lastUnhelpful;
+            lastHelpful = 0;
+            lastUnhelpful = 0;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.lwf.service;
+
+import com.lwf.entity.ReviewVotes;
+import com.lwf.mapper.ReviewVotesMapper;
+import com.lwf.utils.LongHashSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 评价投票账本
+ * 投票记录持久化在review_votes表，(review_id, user_address)唯一键保证同一用户只能投一次，
+ * 多节点部署时也由该唯一键兜底。内存中以(评价ID, 地址哈希)合成的64位key存入
+ * 原始long哈希集合，每条投票约占十几字节，重复投票无需访问数据库即可拒绝。
+ * 启动时按主键游标回放投票表重建内存索引。
+ */
+@Slf4j
+@Service
+public class VoteLedger {
+
+    @Autowired
+    private ReviewVotesMapper reviewVotesMapper;
+
+    /**
+     * 启动回放时每页读取的记录数
+     */
+    @Value("${review.vote.replay-page-size:5000}")
+    private int replayPageSize;
+
+    /**
+     * 内存索引初始容量
+     */
+    @Value("${review.vote.expected-size:100000}")
+    private int expectedSize;
+
+    private LongHashSet votes;
+
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        votes = new LongHashSet(expectedSize);
+        // 回放期间内存索引不完整，但新投票总会写库，重复投票由唯一键拦截，结果仍然正确
+        Thread replay = new Thread(this::replay, "vote-ledger-replay");
+        replay.setDaemon(true);
+        replay.start();
+    }
+
+    /**
+     * 记录一次投票
+     *
+     * @param reviewId    评价ID
+     * @param userAddress 投票用户地址
+     * @param isHelpful   是否为有用投票
+     * @return 首次投票返回true，已投过票返回false
+     */
+    public boolean record(Long reviewId, String userAddress, boolean isHelpful) {
+        String address = normalize(userAddress);
+        long key = voteKey(reviewId, address);
+        synchronized (this) {
+            if (votes.contains(key)) {
+                return false;
+            }
+        }
+
+        ReviewVotes vote = new ReviewVotes()
+                .setReviewId(reviewId)
+                .setUserAddress(address)
+                .setIsHelpful(isHelpful)
+                .setCreatedAt(LocalDateTime.now());
+        try {
+            reviewVotesMapper.insert(vote);
+        } catch (DuplicateKeyException e) {
+            // 其他节点或并发请求已写入
+            add(key);
+            return false;
+        }
+        add(key);
+        return true;
+    }
+
+    /**
+     * 用户是否已对评价投票
+     */
+    public boolean hasVoted(Long reviewId, String userAddress) {
+        long key = voteKey(reviewId, normalize(userAddress));
+        synchronized (this) {
+            return votes.contains(key);
+        }
+    }
+
+    /**
+     * 内存索引状态
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("size", votes.size());
+        stats.put("memoryBytes", votes.memoryBytes());
+        return stats;
+    }
+
+    private void replay() {
+        long lastId = 0;
+        long count = 0;
+        try {
+            while (true) {
+                List<ReviewVotes> page = reviewVotesMapper.selectAfterId(lastId, replayPageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                synchronized (this) {
+                    for (ReviewVotes vote : page) {
+                        votes.add(voteKey(vote.getReviewId(), normalize(vote.getUserAddress())));
+                    }
+                }
+                lastId = page.get(page.size() - 1).getId();
+                count += page.size();
+            }
+            loaded = true;
+            log.info("投票账本回放完成，共 {} 条投票", count);
+        } catch (Exception e) {
+            log.error("投票账本回放失败，已回放 {} 条: {}", count, e.getMessage(), e);
+        }
+    }
+
+    private synchronized void add(long key) {
+        votes.add(key);
+    }
+
+    private static String normalize(String userAddress) {
+        return userAddress == null ? "" : userAddress.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 评价ID与地址的FNV-1a哈希混合成64位key，碰撞概率可忽略
+     */
+    static long voteKey(long reviewId, String address) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < address.length(); i++) {
+            h ^= address.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        long k = h ^ (reviewId * 0x9E3779B97F4A7C15L);
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k == 0 ? 1 : k;
+    }
+}
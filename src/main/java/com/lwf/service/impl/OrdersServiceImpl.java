@@ -1,6 +1,7 @@
 package com.lwf.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.lwf.entity.Orders;
@@ -8,17 +9,22 @@ import com.lwf.entity.Products;
 import com.lwf.entity.Users;
 import com.lwf.entity.dto.OrderDTO;
 import com.lwf.mapper.OrdersMapper;
+import com.lwf.mapper.ProductsMapper;
 import com.lwf.service.IOrdersService;
 import com.lwf.service.IProductsService;
 import com.lwf.service.IUsersService;
+import com.lwf.service.IdGenerator;
+import com.lwf.service.StockReservationService;
 import com.lwf.utils.BusinessException;
+import com.lwf.utils.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> implements IOrdersService {
@@ -29,11 +35,25 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
     @Autowired
     private IUsersService usersService;
 
+    @Autowired
+    private ProductsMapper productsMapper;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
     @Override
     @Transactional
     public Map<String, Object> createOrder(OrderDTO orderDTO) {
         Map<String, Object> result = new HashMap<>();
 
+        int quantity = orderDTO.getQuantity() != null ? orderDTO.getQuantity() : 1;
+        if (quantity <= 0) {
+            throw new BusinessException("购买数量必须大于0");
+        }
+
         // 验证商品
         Products product = productsService.getById(orderDTO.getProductId());
         if (product == null) {
@@ -44,7 +64,8 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             throw new BusinessException("商品未上架");
         }
 
-        if (product.getStock() < orderDTO.getQuantity()) {
+        // 按读到的快照先行拒绝，售罄商品的请求不再去争抢商品行锁；最终以原子扣减结果为准
+        if (product.getStock() < quantity || stockReservationService.isSoldOut(product.getId())) {
             throw new BusinessException("商品库存不足");
         }
 
@@ -58,13 +79,14 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
 
         // 创建订单
         Orders order = new Orders();
-        order.setOrderId("ORD" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8));
+        order.setOrderId(idGenerator.nextOrderId());
         order.setProductId(orderDTO.getProductId());
         order.setUserId(user.getId());
         order.setUserAddress(orderDTO.getUserAddress());
         order.setMerchantId(product.getMerchantId());
         order.setProductName(orderDTO.getProductName() != null ? orderDTO.getProductName() : product.getName());
         order.setAmount(orderDTO.getAmount() != null ? orderDTO.getAmount() : product.getPrice());
+        order.setQuantity(quantity);
         order.setType("purchase");
         order.setStatus("pending");
         order.setReceiveStatus("pending");
@@ -73,13 +95,16 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         boolean saved = this.save(order);
 
         if (saved) {
-            // 更新商品库存
-            product.setStock(product.getStock() - orderDTO.getQuantity());
-            productsService.updateById(product);
+            // 最后一步原子扣减库存，商品行锁只持有到事务提交；库存不足时抛出异常，订单随事务回滚
+            LocalDateTime reserveExpireAt = stockReservationService.reserve(product.getId(), quantity);
+            this.update(new UpdateWrapper<Orders>()
+                    .set("reserve_expire_at", reserveExpireAt)
+                    .eq("id", order.getId()));
 
             result.put("code", 0);
             result.put("orderId", order.getOrderId());
             result.put("txHash", order.getTxHash());
+            result.put("reserveExpireAt", reserveExpireAt);
             result.put("message", "订单创建成功");
         } else {
             throw new BusinessException("订单创建失败");
@@ -89,20 +114,14 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
     }
 
     @Override
-    public Map<String, Object> getUserOrders(String userAddress, Integer page, Integer pageSize) {
+    public Map<String, Object> getUserOrders(String userAddress, Integer page, Integer pageSize, String cursor,
+                                             Boolean withTotal) {
         Map<String, Object> result = new HashMap<>();
 
-        Page<Orders> pageInfo = new Page<>(page, pageSize);
         QueryWrapper<Orders> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_address", userAddress)
-                .orderByDesc("created_at");
+        queryWrapper.eq("user_address", userAddress);
 
-        Page<Orders> orderPage = this.page(pageInfo, queryWrapper);
-
-        result.put("list", orderPage.getRecords());
-        result.put("total", orderPage.getTotal());
-        result.put("page", page);
-        result.put("pageSize", pageSize);
+        result.put("list", pageOrders(queryWrapper, page, pageSize, cursor, withTotal, result));
         result.put("code", 0);
 
         return result;
@@ -142,16 +161,26 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         }
 
         String oldStatus = order.getStatus();
-        order.setStatus(status);
-        this.updateById(order);
+        if ("pending".equals(oldStatus) && "cancelled".equals(status)) {
+            // 取消与归还预占库存一起完成
+            if (!stockReservationService.cancel(order)) {
+                throw new BusinessException("订单状态已变更，请刷新后重试");
+            }
+        } else {
+            // 以原状态为条件更新，避免覆盖预占到期释放等并发修改
+            boolean updated = this.update(new UpdateWrapper<Orders>()
+                    .set("status", status)
+                    .set("pending".equals(oldStatus), "reserve_expire_at", null)
+                    .eq("id", order.getId())
+                    .eq("status", oldStatus));
+            if (!updated) {
+                throw new BusinessException("订单状态已变更，请刷新后重试");
+            }
 
-        // 当订单状态从pending变为completed时，增加商品销量
-        if ("pending".equals(oldStatus) && "completed".equals(status)) {
-            Products product = productsService.getById(order.getProductId());
-            if (product != null) {
-                // 由于订单表中没有数量字段，默认每个订单增加1个销量
-                product.setSales(product.getSales() + 1);
-                productsService.updateById(product);
+            // 当订单状态从pending变为completed时，按购买数量增加商品销量
+            if ("pending".equals(oldStatus) && "completed".equals(status)) {
+                int quantity = order.getQuantity() != null ? order.getQuantity() : 1;
+                productsMapper.incrementSales(order.getProductId(), quantity);
             }
         }
 
@@ -184,7 +213,10 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         // 只有在未确认收货的情况下才更新销量
         if (!"confirmed".equals(order.getReceiveStatus())) {
             order.setReceiveStatus("confirmed");
-            this.updateById(order);
+            // 只更新收货状态，不回写整行
+            this.update(new UpdateWrapper<Orders>()
+                    .set("receive_status", "confirmed")
+                    .eq("id", order.getId()));
 
             // 确认收货时增加商品销量
             Products product = productsService.getById(order.getProductId());
@@ -227,8 +259,10 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             throw new BusinessException("交易哈希格式不正确");
         }
 
-        order.setTxHash(txHash);
-        this.updateById(order);
+        // 只更新交易哈希，整行回写可能把已被释放的预占订单改回pending
+        this.update(new UpdateWrapper<Orders>()
+                .set("tx_hash", txHash)
+                .eq("id", order.getId()));
 
         result.put("code", 0);
         result.put("orderId", orderId);
@@ -294,8 +328,9 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             throw new BusinessException("订单不存在");
         }
 
-        order.setReviewStatus(reviewStatus);
-        this.updateById(order);
+        this.update(new UpdateWrapper<Orders>()
+                .set("review_status", reviewStatus)
+                .eq("id", order.getId()));
 
         result.put("code", 0);
         result.put("orderId", orderId);
@@ -308,7 +343,8 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
     @Override
     public Map<String, Object> getMerchantOrdersByAddress(String merchantAddress, Integer page, Integer pageSize,
                                                           String orderId, String productName, String customerAddress,
-                                                          String status, String startTime, String endTime) {
+                                                          String status, String startTime, String endTime,
+                                                          String cursor, Boolean withTotal) {
         Map<String, Object> result = new HashMap<>();
         
         // 根据商家地址查询商家ID
@@ -322,7 +358,6 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
         }
         
         // 根据商家ID查询订单列表
-        Page<Orders> pageInfo = new Page<>(page, pageSize);
         QueryWrapper<Orders> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("merchant_id", merchant.getId());
         
@@ -351,16 +386,39 @@ public class OrdersServiceImpl extends ServiceImpl<OrdersMapper, Orders> impleme
             queryWrapper.le("created_at", endTime);
         }
         
-        queryWrapper.orderByDesc("created_at");
-        
-        Page<Orders> orderPage = this.page(pageInfo, queryWrapper);
-        
-        result.put("list", orderPage.getRecords());
-        result.put("total", orderPage.getTotal());
-        result.put("page", page);
-        result.put("pageSize", pageSize);
+        result.put("list", pageOrders(queryWrapper, page, pageSize, cursor, withTotal, result));
         result.put("code", 0);
         
         return result;
     }
+
+    /**
+     * 按创建时间倒序分页查询订单
+     * cursor不为null时使用游标分页（空字符串表示第一页），返回nextCursor/hasMore，默认不统计总数；
+     * 否则使用页码分页，withTotal为false时跳过COUNT查询
+     */
+    private List<Orders> pageOrders(QueryWrapper<Orders> queryWrapper, Integer page, Integer pageSize,
+                                    String cursor, Boolean withTotal, Map<String, Object> result) {
+        if (cursor != null) {
+            if (Boolean.TRUE.equals(withTotal)) {
+                result.put("total", this.count(queryWrapper));
+            }
+            List<Orders> orders = KeysetCursor.fetchPage(this, queryWrapper, cursor, pageSize);
+            String nextCursor = KeysetCursor.nextCursor(orders, pageSize, Orders::getCreatedAt, Orders::getId);
+            result.put("nextCursor", nextCursor);
+            result.put("hasMore", nextCursor != null);
+            result.put("pageSize", KeysetCursor.clampPageSize(pageSize));
+            return orders;
+        }
+
+        boolean searchCount = !Boolean.FALSE.equals(withTotal);
+        queryWrapper.orderByDesc("created_at");
+        Page<Orders> orderPage = this.page(new Page<>(page, pageSize, searchCount), queryWrapper);
+        if (searchCount) {
+            result.put("total", orderPage.getTotal());
+        }
+        result.put("page", page);
+        result.put("pageSize", pageSize);
+        return orderPage.getRecords();
+    }
 }
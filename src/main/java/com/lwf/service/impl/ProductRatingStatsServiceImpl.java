@@ -0,0 +1,131 @@
+package com.lwf.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lwf.entity.ProductRatingStats;
+import com.lwf.mapper.ProductRatingStatsMapper;
+import com.lwf.service.IProductRatingStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 商品评分汇总服务
+ * 评价提交时对product_rating_stats做单行增量更新，商品评分直接由汇总值计算，
+ * 不再对商品全部评价执行AVG；定时任务按商品ID区间从reviews表校准汇总值。
+ */
+@Slf4j
+@Service
+public class ProductRatingStatsServiceImpl extends ServiceImpl<ProductRatingStatsMapper, ProductRatingStats>
+        implements IProductRatingStatsService {
+
+    @Autowired
+    private ProductRatingStatsMapper productRatingStatsMapper;
+
+    /**
+     * 校准任务每次处理的商品ID区间长度
+     */
+    @Value("${review.rating.reconcile-range:1000}")
+    private long reconcileRange;
+
+    /**
+     * 记录一条新评分并同步商品评分
+     *
+     * @param productId 商品ID
+     * @param rating    评分1-5
+     */
+    @Override
+    public void recordRating(Long productId, Integer rating) {
+        productRatingStatsMapper.incrementRating(productId, rating);
+        productRatingStatsMapper.syncProductRating(productId);
+    }
+
+    @Override
+    public Double getAverageRating(Long productId) {
+        ProductRatingStats stats = this.getById(productId);
+        if (stats == null || stats.getReviewCount() == null || stats.getReviewCount() == 0) {
+            return 0.0;
+        }
+        return (double) stats.getRatingSum() / stats.getReviewCount();
+    }
+
+    /**
+     * 获取商品评分分布
+     *
+     * @param productId 商品ID
+     * @return 包含评价数、平均分及各星级数量和占比的Map
+     */
+    @Override
+    public Map<String, Object> getRatingDistribution(Long productId) {
+        ProductRatingStats stats = this.getById(productId);
+        long[] stars = new long[5];
+        long count = 0;
+        long sum = 0;
+        if (stats != null) {
+            stars[0] = stats.getStar1();
+            stars[1] = stats.getStar2();
+            stars[2] = stats.getStar3();
+            stars[3] = stats.getStar4();
+            stars[4] = stats.getStar5();
+            count = stats.getReviewCount();
+            sum = stats.getRatingSum();
+        }
+
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        Map<String, Object> percentages = new LinkedHashMap<>();
+        for (int star = 5; star >= 1; star--) {
+            long n = stars[star - 1];
+            distribution.put(String.valueOf(star), n);
+            percentages.put(String.valueOf(star), count == 0 ? 0.0
+                    : BigDecimal.valueOf(n * 100.0 / count).setScale(1, RoundingMode.HALF_UP).doubleValue());
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 0);
+        result.put("productId", productId);
+        result.put("reviewCount", count);
+        result.put("averageRating", count == 0 ? 0.0
+                : BigDecimal.valueOf((double) sum / count).setScale(2, RoundingMode.HALF_UP).doubleValue());
+        result.put("distribution", distribution);
+        result.put("percentages", percentages);
+        return result;
+    }
+
+    /**
+     * 按商品ID区间从评价表重新统计汇总值，并修正商品评分
+     * 每个区间一条语句，不会长时间持有大事务
+     *
+     * @return 修正评分的商品数
+     */
+    @Override
+    @Scheduled(initialDelayString = "${review.rating.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${review.rating.reconcile-interval-ms:3600000}")
+    public int reconcile() {
+        int corrected = 0;
+        try {
+            Long maxId = productRatingStatsMapper.selectMaxProductId();
+            if (maxId == null) {
+                return 0;
+            }
+            for (long from = 0; from <= maxId; from += reconcileRange) {
+                long to = from + reconcileRange;
+                productRatingStatsMapper.rebuildRange(from, to);
+                productRatingStatsMapper.resetEmptyRange(from, to);
+                corrected += productRatingStatsMapper.syncProductRatingRange(from, to);
+            }
+            if (corrected > 0) {
+                log.info("商品评分校准完成，修正 {} 个商品", corrected);
+            }
+        } catch (Exception e) {
+            log.error("商品评分校准失败: {}", e.getMessage(), e);
+        }
+        return corrected;
+    }
+}
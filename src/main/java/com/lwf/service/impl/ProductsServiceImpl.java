@@ -9,18 +9,31 @@ import com.lwf.entity.dto.ProductQueryDTO;
 import com.lwf.mapper.ProductsMapper;
 import com.lwf.service.IProductsService;
 import com.lwf.service.IUsersService;
+import com.lwf.service.ProductSearchIndex;
 import com.lwf.utils.BusinessException;
+import com.lwf.utils.KeysetCursor;
+import com.lwf.utils.TtlCache;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @Service
 public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> implements IProductsService {
 
@@ -30,6 +43,34 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
     @Autowired
     private ProductsMapper productsMapper;
 
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    /**
+     * 商品摘要缓存的最大条目数
+     */
+    @Value("${product.summary.cache-size:50000}")
+    private long summaryCacheSize;
+
+    /**
+     * 商品摘要缓存的存活时间（秒）
+     */
+    @Value("${product.summary.ttl-seconds:300}")
+    private long summaryTtlSeconds;
+
+    // 商品摘要缓存（ID、名称、商家地址），商品信息修改或删除时失效
+    private TtlCache<Long, Products> summaryCache;
+
+    @PostConstruct
+    public void initSummaryCache() {
+        summaryCache = new TtlCache<>("productSummary", summaryCacheSize);
+    }
+
+    @PreDestroy
+    public void destroySummaryCache() {
+        summaryCache.shutdown();
+    }
+
     @Override
     /**
      * 获取商品列表
@@ -40,8 +81,6 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
         // 创建结果Map，用于返回商品列表相关信息
         Map<String, Object> result = new HashMap<>();
 
-        // 创建分页对象，设置当前页码和每页大小
-        Page<Products> pageInfo = new Page<>(query.getPage(), query.getPageSize());
         // 创建查询条件构造器
         QueryWrapper<Products> queryWrapper = new QueryWrapper<>();
 
@@ -56,8 +95,15 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
 //                    .like("description", query.getKeyword());
 //        }
 
-        // 关键词搜索条件
+        // 关键词搜索优先走全文索引，索引未就绪时回退到数据库模糊查询
         if (StringUtils.hasText(query.getKeyword())) {
+            if (query.getCursor() != null) {
+                throw new BusinessException("关键词搜索不支持游标分页");
+            }
+            Map<String, Object> searched = searchByIndex(query);
+            if (searched != null) {
+                return searched;
+            }
             queryWrapper.and(wrapper -> wrapper
                     .like("name", query.getKeyword())
                     .or()
@@ -65,6 +111,25 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
             );
         }
 
+        // 游标分页：按(created_at, id)定位，不使用OFFSET
+        if (query.getCursor() != null) {
+            if ("price".equals(query.getSortBy())) {
+                throw new BusinessException("游标分页仅支持按创建时间排序");
+            }
+            if (Boolean.TRUE.equals(query.getWithTotal())) {
+                result.put("total", this.count(queryWrapper));
+            }
+            List<Products> products = KeysetCursor.fetchPage(this, queryWrapper, query.getCursor(), query.getPageSize());
+            String nextCursor = KeysetCursor.nextCursor(products, query.getPageSize(),
+                    Products::getCreatedAt, Products::getId);
+            result.put("list", products);
+            result.put("nextCursor", nextCursor);
+            result.put("hasMore", nextCursor != null);
+            result.put("pageSize", KeysetCursor.clampPageSize(query.getPageSize()));
+            result.put("code", 0);
+            return result;
+        }
+
         // 排序逻辑处理
         if ("price".equals(query.getSortBy())) {
             // 如果按价格升序排序
@@ -79,14 +144,16 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
             queryWrapper.orderByDesc("created_at");
         }
 
-        // 执行分页查询
-        Page<Products> productPage = this.page(pageInfo, queryWrapper);
-
-
+        // 执行分页查询，withTotal为false时跳过COUNT查询
+        boolean searchCount = !Boolean.FALSE.equals(query.getWithTotal());
+        Page<Products> productPage = this.page(new Page<>(query.getPage(), query.getPageSize(), searchCount),
+                queryWrapper);
 
         // 将查询结果存入结果Map中
         result.put("list", productPage.getRecords());  // 商品列表
-        result.put("total", productPage.getTotal());   // 商品总数
+        if (searchCount) {
+            result.put("total", productPage.getTotal());   // 商品总数
+        }
         result.put("code", 0);                        // 状态码，0表示成功
 
         // 返回结果
@@ -130,6 +197,7 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
         boolean saved = this.save(product);
 
         if (saved) {
+            productSearchIndex.index(product);
             result.put("code", 0);
             result.put("id", product.getId());
             result.put("status", "pending");
@@ -242,6 +310,7 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
         }
 
         this.updateById(product);
+        productSearchIndex.index(product);
 
         result.put("code", 0);
         result.put("id", productId);
@@ -260,6 +329,7 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
 
         product.setStatus(status);
         this.updateById(product);
+        productSearchIndex.index(product);
 
         result.put("code", 0);
         result.put("id", productId);
@@ -305,8 +375,10 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
         }
 
         boolean updated = this.updateById(existingProduct);
+        summaryCache.remove(productId);
 
         if (updated) {
+            productSearchIndex.index(existingProduct);
             result.put("code", 0);
             result.put("id", productId);
             result.put("status", existingProduct.getStatus());
@@ -336,8 +408,10 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
 
         // 执行删除操作
         boolean deleted = this.removeById(productId);
+        summaryCache.remove(productId);
 
         if (deleted) {
+            productSearchIndex.remove(productId);
             result.put("code", 0);
             result.put("id", productId);
             result.put("message", "商品删除成功");
@@ -372,6 +446,7 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
         boolean updated = this.updateById(existingProduct);
 
         if (updated) {
+            productSearchIndex.index(existingProduct);
             result.put("code", 0);
             result.put("id", productId);
             result.put("status", "offShelf");
@@ -408,6 +483,7 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
         boolean updated = this.updateById(existingProduct);
 
         if (updated) {
+            productSearchIndex.index(existingProduct);
             result.put("code", 0);
             result.put("id", productId);
             result.put("status", "onSale");
@@ -418,4 +494,76 @@ public class ProductsServiceImpl extends ServiceImpl<ProductsMapper, Products> i
 
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 通过全文索引搜索在售商品，只按命中的ID回表查询
+     *
+     * @return 索引未就绪或不可用时返回null
+     */
+    private Map<String, Object> searchByIndex(ProductQueryDTO query) {
+        int page = Math.max(1, query.getPage());
+        int pageSize = query.getPageSize();
+        boolean withTotal = !Boolean.FALSE.equals(query.getWithTotal());
+        ProductSearchIndex.SearchResult searchResult;
+        try {
+            searchResult = productSearchIndex.search(query.getKeyword(), "onSale", query.getSortBy(),
+                    query.getSortOrder(), (page - 1) * pageSize, pageSize, withTotal);
+        } catch (IOException e) {
+            log.error("商品索引搜索失败，回退到数据库查询: {}", e.getMessage(), e);
+            return null;
+        }
+        if (searchResult == null) {
+            return null;
+        }
+
+        // 按索引返回的顺序排列，索引与数据库短暂不一致时以数据库状态为准
+        List<Products> products = new ArrayList<>();
+        if (!searchResult.getIds().isEmpty()) {
+            Map<Long, Products> byId = new HashMap<>();
+            for (Products product : this.listByIds(searchResult.getIds())) {
+                byId.put(product.getId(), product);
+            }
+            for (Long id : searchResult.getIds()) {
+                Products product = byId.get(id);
+                if (product != null && "onSale".equals(product.getStatus())) {
+                    products.add(product);
+                }
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", products);
+        if (withTotal) {
+            result.put("total", searchResult.getTotal());
+        }
+        result.put("code", 0);
+        return result;
+    }
+
+    @Override
+    public Map<Long, Products> getProductSummaries(Collection<Long> productIds) {
+        Map<Long, Products> summaries = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            if (productId == null) {
+                continue;
+            }
+            Products summary = summaryCache.get(productId);
+            if (summary != null) {
+                summaries.put(productId, summary);
+            } else {
+                missing.add(productId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            QueryWrapper<Products> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "name", "merchant_address").in("id", missing);
+            for (Products summary : this.list(queryWrapper)) {
+                summaryCache.put(summary.getId(), summary, summaryTtlSeconds * 1000);
+                summaries.put(summary.getId(), summary);
+            }
+        }
+        return summaries;
+    }
+}
@@ -3,35 +3,48 @@ package com.lwf.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lwf.entity.ChainReviewEvents;
+import com.lwf.entity.ChainRewardEvents;
 import com.lwf.entity.Products;
 import com.lwf.entity.Reviews;
 import com.lwf.entity.Users;
 import com.lwf.entity.dto.ReviewDTO;
+import com.lwf.mapper.ChainReviewEventsMapper;
+import com.lwf.mapper.ChainRewardEventsMapper;
 import com.lwf.mapper.ReviewsMapper;
 import com.lwf.service.IOrdersService;
 import com.lwf.model.bo.*;
+import com.lwf.raw.ReviewCore;
+import com.lwf.service.ChainEventIndexer;
+import com.lwf.service.ChainSignerPool;
+import com.lwf.service.DuplicateReviewDetector;
+import com.lwf.service.IdGenerator;
+import com.lwf.service.ReviewBulkUploadJob;
+import com.lwf.service.ReviewChainQueue;
 import com.lwf.service.ReviewCoreService;
 import com.lwf.service.ReviewNFTService;
+import com.lwf.service.ReviewVelocityDetector;
 import org.fisco.bcos.sdk.transaction.model.dto.TransactionResponse;
+import com.lwf.service.IProductRatingStatsService;
 import com.lwf.service.IProductsService;
 import com.lwf.service.IReviewsService;
 import com.lwf.service.IUsersService;
-import com.lwf.service.SimpleCacheService;
+import com.lwf.service.VoteCounter;
+import com.lwf.service.VoteLedger;
 import com.lwf.utils.BusinessException;
+import com.lwf.utils.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import java.math.BigInteger;
-import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.EnableAsync;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 @EnableAsync
@@ -44,7 +57,13 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
     private IProductsService productsService;
 
     @Autowired
-    private SimpleCacheService cacheService;
+    private VoteLedger voteLedger;
+
+    @Autowired
+    private VoteCounter voteCounter;
+
+    @Autowired
+    private IProductRatingStatsService productRatingStatsService;
 
     @Autowired
     private ReviewsMapper reviewsMapper;
@@ -58,6 +77,33 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
     @Autowired
     private ReviewNFTService reviewNFTService;
 
+    @Autowired
+    private ReviewChainQueue reviewChainQueue;
+
+    @Autowired
+    private DuplicateReviewDetector duplicateReviewDetector;
+
+    @Autowired
+    private ReviewVelocityDetector reviewVelocityDetector;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ReviewBulkUploadJob reviewBulkUploadJob;
+
+    @Autowired
+    private ChainSignerPool chainSignerPool;
+
+    @Autowired
+    private ChainEventIndexer chainEventIndexer;
+
+    @Autowired
+    private ChainReviewEventsMapper chainReviewEventsMapper;
+
+    @Autowired
+    private ChainRewardEventsMapper chainRewardEventsMapper;
+
     /**
      * 提交商品评价的方法
      * 该方法处理用户提交商品评价的业务逻辑，包括验证、创建评价和更新相关数据
@@ -91,6 +137,17 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
         // throw new BusinessException("您已经评价过该商品");
         // }
 
+        // 近似重复检测：同一商品下或同一用户名下内容高度相似的评价视为模板化刷评
+        DuplicateReviewDetector.Match duplicate = duplicateReviewDetector.check(
+                reviewDTO.getProductId(), user.getAddress(), reviewDTO.getContent());
+        if (duplicate != null && duplicateReviewDetector.isRejectMode()) {
+            throw new BusinessException("评价内容与已有评价高度相似，疑似重复刷评");
+        }
+
+        // 速率异常检测：同一商品、用户或商家短时间内评价激增时不自动验证（只读打分，保存提交后再计数）
+        List<String> velocityFlags = reviewVelocityDetector.estimate(
+                product.getId(), product.getMerchantId(), user.getAddress(), user.getCreatedAt());
+
         // 创建评价对象并设置属性
         Reviews review = new Reviews();
         review.setProductId(reviewDTO.getProductId());
@@ -100,17 +157,18 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
         review.setContent(reviewDTO.getContent());
         review.setIpfsCid(reviewDTO.getIpfsCid());
         review.setImages(reviewDTO.getImages());
-        // 生成唯一的NFT ID，包含商品ID和时间戳
-        review.setNftId("NFT_" + reviewDTO.getProductId() + "_"  + System.currentTimeMillis());
+        // 上链前的NFT ID占位，包含商品ID和全局唯一ID，同一毫秒提交的评价也不会重复
+        review.setNftId(idGenerator.nextNftPlaceholder(reviewDTO.getProductId()));
         review.setHelpfulVotes(0); // 初始化有用投票数为0
         review.setUnhelpfulVotes(0); // 初始化无用投票数为0
-        review.setVerified(user.getReputationScore() >= 50); // 高信誉用户自动验证
+        // 高信誉用户自动验证，疑似重复或速率异常的不验证
+        review.setVerified(duplicate == null && velocityFlags.isEmpty() && user.getReputationScore() >= 50);
 
         boolean saved = this.save(review);
 
         if (saved) {
-            // 更新商品评分
-            updateProductRating(reviewDTO.getProductId());
+            // 增量更新商品评分汇总
+            productRatingStatsService.recordRating(reviewDTO.getProductId(), reviewDTO.getRating());
             // 更新用户评价数
             usersService.incrementReviewCount(user.getId());
 
@@ -119,13 +177,27 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
                 ordersService.updateReviewStatus(reviewDTO.getOrderId(), 1);
             }
 
-            // 🚀 异步上传到区块链（不阻塞用户操作）
-            asyncUploadToBlockchain(review.getId());
+            // 事务提交后计入速率统计
+            reviewVelocityDetector.recordAfterCommit(product.getId(), product.getMerchantId(),
+                    user.getAddress(), user.getCreatedAt());
+
+            // 事务提交后加入重复检测索引
+            duplicateReviewDetector.addAfterCommit(review.getId(), review.getProductId(),
+                    review.getUserAddress(), review.getContent());
+
+            // 🚀 事务提交后进入上链队列（不阻塞用户操作）
+            reviewChainQueue.enqueueAfterCommit(review.getId());
 
             result.put("code", 0);
             result.put("nftId", review.getNftId());
             result.put("reviewId", review.getId());
             result.put("message", "评价提交成功");
+            if (duplicate != null) {
+                result.put("suspectedDuplicateOf", duplicate.getReviewId());
+            }
+            if (!velocityFlags.isEmpty()) {
+                result.put("velocityFlags", velocityFlags);
+            }
         } else {
             throw new BusinessException("评价提交失败");
         }
@@ -134,38 +206,35 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
     }
 
     @Override
-    public Map<String, Object> getProductReviews(Long productId, Integer page, Integer pageSize) {
+    public Map<String, Object> getProductReviews(Long productId, Integer page, Integer pageSize, String cursor,
+                                                 Boolean withTotal) {
         Map<String, Object> result = new HashMap<>();
 
-        Page<Reviews> pageInfo = new Page<>(page, pageSize);
         QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("product_id", productId)
-                .orderByDesc("created_at");
+        queryWrapper.eq("product_id", productId);
 
-        Page<Reviews> reviewPage = this.page(pageInfo, queryWrapper);
+        List<Reviews> reviews = pageReviews(queryWrapper, page, pageSize, cursor, withTotal, result);
+        voteCounter.applyPending(reviews);
 
-        result.put("list", reviewPage.getRecords());
-        result.put("total", reviewPage.getTotal());
-        result.put("page", page);
-        result.put("pageSize", pageSize);
+        result.put("list", reviews);
         result.put("code", 0);
 
         return result;
     }
 
     @Override
-    public Map<String, Object> getUserReviews(String userAddress, Integer page, Integer pageSize) {
+    public Map<String, Object> getUserReviews(String userAddress, Integer page, Integer pageSize, String cursor,
+                                              Boolean withTotal) {
         Map<String, Object> result = new HashMap<>();
 
-        Page<Reviews> pageInfo = new Page<>(page, pageSize);
         QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_address", userAddress)
-                .orderByDesc("created_at");
-
-        Page<Reviews> reviewPage = this.page(pageInfo, queryWrapper);
+        queryWrapper.eq("user_address", userAddress);
 
         // 获取评价列表并补充商品信息
-        List<Reviews> reviews = reviewPage.getRecords();
+        List<Reviews> reviews = pageReviews(queryWrapper, page, pageSize, cursor, withTotal, result);
+        voteCounter.applyPending(reviews);
+        Map<Long, Products> products = productsService.getProductSummaries(
+                reviews.stream().map(Reviews::getProductId).collect(Collectors.toList()));
         List<Map<String, Object>> reviewListWithProduct = new ArrayList<>();
 
         for (Reviews review : reviews) {
@@ -186,17 +255,12 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
             reviewData.put("blockchainReviewId", review.getBlockchainReviewId());
             reviewData.put("createdAt", review.getCreatedAt());
 
-            // 获取商品信息
-            try {
-                Products product = productsService.getById(review.getProductId());
-                if (product != null) {
-                    reviewData.put("productName", product.getName());
-                    reviewData.put("productAddress", product.getMerchantAddress());
-                } else {
-                    reviewData.put("productName", "未知商品");
-                    reviewData.put("productAddress", "未知地址");
-                }
-            } catch (Exception e) {
+            // 补充商品信息
+            Products product = products.get(review.getProductId());
+            if (product != null) {
+                reviewData.put("productName", product.getName());
+                reviewData.put("productAddress", product.getMerchantAddress());
+            } else {
                 reviewData.put("productName", "未知商品");
                 reviewData.put("productAddress", "未知地址");
             }
@@ -205,14 +269,41 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
         }
 
         result.put("list", reviewListWithProduct);
-        result.put("total", reviewPage.getTotal());
-        result.put("page", page);
-        result.put("pageSize", pageSize);
         result.put("code", 0);
 
         return result;
     }
 
+    /**
+     * 按创建时间倒序分页查询评价
+     * cursor不为null时使用游标分页（空字符串表示第一页），返回nextCursor/hasMore，默认不统计总数；
+     * 否则使用页码分页，withTotal为false时跳过COUNT查询
+     */
+    private List<Reviews> pageReviews(QueryWrapper<Reviews> queryWrapper, Integer page, Integer pageSize,
+                                      String cursor, Boolean withTotal, Map<String, Object> result) {
+        if (cursor != null) {
+            if (Boolean.TRUE.equals(withTotal)) {
+                result.put("total", this.count(queryWrapper));
+            }
+            List<Reviews> reviews = KeysetCursor.fetchPage(this, queryWrapper, cursor, pageSize);
+            String nextCursor = KeysetCursor.nextCursor(reviews, pageSize, Reviews::getCreatedAt, Reviews::getId);
+            result.put("nextCursor", nextCursor);
+            result.put("hasMore", nextCursor != null);
+            result.put("pageSize", KeysetCursor.clampPageSize(pageSize));
+            return reviews;
+        }
+
+        boolean searchCount = !Boolean.FALSE.equals(withTotal);
+        queryWrapper.orderByDesc("created_at");
+        Page<Reviews> reviewPage = this.page(new Page<>(page, pageSize, searchCount), queryWrapper);
+        if (searchCount) {
+            result.put("total", reviewPage.getTotal());
+        }
+        result.put("page", page);
+        result.put("pageSize", pageSize);
+        return reviewPage.getRecords();
+    }
+
     @Override
     public boolean hasUserReviewed(Long userId, Long productId) {
         QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
@@ -223,15 +314,7 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
 
     @Override
     public Double getAverageRating(Long productId) {
-        QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("product_id", productId)
-                .select("AVG(rating) as avg_rating");
-
-        Map<String, Object> map = this.getMap(queryWrapper);
-        if (map != null && map.get("avg_rating") != null) {
-            return ((Number) map.get("avg_rating")).doubleValue();
-        }
-        return 0.0;
+        return productRatingStatsService.getAverageRating(productId);
     }
 
     @Override
@@ -253,24 +336,14 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
             throw new BusinessException("评价不存在");
         }
 
-        // 检查是否已经投过票（使用本地缓存）
-        // 构建投票键，格式为"vote:评价ID:用户地址"
-        String voteKey = "vote:" + reviewId + ":" + userAddress;
-        if (cacheService.exists(voteKey)) {
+        // 记录投票，同一用户对同一评价只能投一次（投票账本持久化，重启后仍有效）
+        if (!voteLedger.record(reviewId, userAddress, isHelpful)) {
             throw new BusinessException("您已经投过票了");
         }
 
-        // 更新投票数
-        if (isHelpful) {
-            review.setHelpfulVotes(review.getHelpfulVotes() + 1);
-        } else {
-            review.setUnhelpfulVotes(review.getUnhelpfulVotes() + 1);
-        }
-
-        this.updateById(review);
-
-        // 记录投票（30天有效期）
-        cacheService.set(voteKey, "1", 30 * 24 * 60 * 60);
+        // 累加投票数，由计数器批量写库
+        voteCounter.record(reviewId, isHelpful);
+        voteCounter.applyPending(review);
 
         result.put("code", 0);
         result.put("helpfulVotes", review.getHelpfulVotes());
@@ -280,20 +353,6 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
         return result;
     }
 
-    /**
-     * 更新商品评分
-     */
-    private void updateProductRating(Long productId) {
-        Double avgRating = getAverageRating(productId);
-        if (avgRating > 0) {
-            Products product = productsService.getById(productId);
-            if (product != null) {
-                product.setRating(BigDecimal.valueOf(avgRating).setScale(2, RoundingMode.HALF_UP));
-                productsService.updateById(product);
-            }
-        }
-    }
-
     /**
      * 将评论上传到区块链
      * 
@@ -320,30 +379,42 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
                 return result;
             }
 
+            // 已在上链队列中，避免重复提交
+            if (reviewChainQueue.isTracked(reviewId)) {
+                result.put("code", 1);
+                result.put("message", "评论正在上链中，请稍后查询");
+                return result;
+            }
+
             // 准备区块链提交数据
             ReviewCoreSubmitReviewInputBO dto = new ReviewCoreSubmitReviewInputBO();
             dto.setProductId(String.valueOf(review.getProductId()));
             dto.setContent(review.getContent());
             dto.setRating(BigInteger.valueOf(review.getRating()));
 
-            // 提交到区块链
-            TransactionResponse txResp = reviewCoreService.submitReview(dto);
+            // 提交到区块链（由签名账户池选择发送账户）
+            TransactionResponse txResp = chainSignerPool.submitReview(dto);
             String txHash = txResp.getTransactionReceipt().getTransactionHash();
 
-            // 获取区块链返回的评论ID（通过总评论数获取）
-            CallResponse totalResponse = reviewCoreService.totalReviews();
-            BigInteger blockchainReviewId = (BigInteger) totalResponse.getReturnObject().get(0);
+            // 从回执中的ReviewSubmitted事件获取链上评论ID和NFT ID（并发上链时也不会错位）
+            ReviewCore.ReviewSubmittedEventResponse event =
+                    reviewCoreService.decodeReviewSubmittedEvent(txResp.getTransactionReceipt());
+            if (event == null) {
+                throw new BusinessException("交易回执中未找到ReviewSubmitted事件，交易可能执行失败：" + txResp.getReceiptMessages());
+            }
+            BigInteger blockchainReviewId = event.reviewId;
             System.out.println("获取到的区块链评论ID: " + blockchainReviewId);
 
-            // 获取NFT ID（tokenId与blockchainReviewId相同）
-            String nftId = "NFT_" + blockchainReviewId.toString();
+            String nftId = "NFT_" + event.nftId;
             System.out.println("获取到的NFT ID: " + nftId);
-         
-            // 更新数据库中的交易哈希、区块链评论ID和NFT ID
-            review.setTxHash(txHash);
-            review.setBlockchainReviewId(blockchainReviewId.longValue());
-            review.setNftId(nftId);
-            this.updateById(review);
+
+            // 只更新交易哈希、区块链评论ID和NFT ID，避免覆盖投票数等并发写入的列
+            Reviews update = new Reviews();
+            update.setId(reviewId);
+            update.setTxHash(txHash);
+            update.setBlockchainReviewId(blockchainReviewId.longValue());
+            update.setNftId(nftId);
+            this.updateById(update);
 
             result.put("code", 0);
             result.put("message", "评论上链成功");
@@ -361,51 +432,25 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
 
     /**
      * 批量将未上链的评论上传到区块链
+     * 以后台任务方式运行，立即返回任务ID，进度通过getUploadJobStatus查询
      * 
-     * @return 包含批量上链结果的Map
+     * @return 包含任务ID及初始进度的Map
      */
     @Override
-    @Transactional
     public Map<String, Object> uploadAllUnchainedReviews() {
         Map<String, Object> result = new HashMap<>();
 
         try {
-            // 查询所有未上链的评论
-            QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
-            queryWrapper.isNull("tx_hash").or().eq("tx_hash", "");
-            List<Reviews> unchainedReviews = this.list(queryWrapper);
-
-            if (unchainedReviews.isEmpty()) {
+            Map<String, Object> job = reviewBulkUploadJob.start();
+            if (job == null) {
                 result.put("code", 1);
                 result.put("message", "没有需要上链的评论");
                 return result;
             }
 
-            int successCount = 0;
-            int failCount = 0;
-            List<Map<String, Object>> details = new ArrayList<>();
-
-            for (Reviews review : unchainedReviews) {
-                Map<String, Object> singleResult = uploadReviewToBlockchain(review.getId());
-                Map<String, Object> detail = new HashMap<>();
-                detail.put("reviewId", review.getId());
-                detail.put("result", singleResult);
-
-                if ((Integer) singleResult.get("code") == 0) {
-                    successCount++;
-                    detail.put("status", "success");
-                } else {
-                    failCount++;
-                    detail.put("status", "failed");
-                }
-                details.add(detail);
-            }
-
             result.put("code", 0);
-            result.put("message", String.format("批量上链完成，成功：%d，失败：%d", successCount, failCount));
-            result.put("successCount", successCount);
-            result.put("failCount", failCount);
-            result.put("details", details);
+            result.put("message", "批量上链任务已启动");
+            result.putAll(job);
 
         } catch (Exception e) {
             result.put("code", -1);
@@ -417,21 +462,24 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
     }
 
     /**
-     * 异步上传评论到区块链（不阻塞主流程）
-     * 
-     * @param reviewId 评论ID
+     * 查询批量上链任务进度
+     *
+     * @param jobId 任务ID
+     * @return 包含任务进度的Map
      */
-    @Async
-    public void asyncUploadToBlockchain(Long reviewId) {
-        try {
-            // 延迟2秒执行，确保数据库事务提交完成
-            Thread.sleep(2000);
-            Map<String, Object> result = uploadReviewToBlockchain(reviewId);
-            System.out.println("异步上链完成 - 评论ID: " + reviewId + ", 结果: " + result.get("message"));
-        } catch (Exception e) {
-            System.err.println("异步上链失败 - 评论ID: " + reviewId + ", 错误: " + e.getMessage());
-            e.printStackTrace();
+    @Override
+    public Map<String, Object> getUploadJobStatus(String jobId) {
+        Map<String, Object> result = new HashMap<>();
+        Map<String, Object> job = reviewBulkUploadJob.getStatus(jobId);
+        if (job == null) {
+            result.put("code", 1);
+            result.put("message", "任务不存在");
+            return result;
         }
+        result.put("code", 0);
+        result.put("message", job.get("message"));
+        result.putAll(job);
+        return result;
     }
 
     /**
@@ -454,6 +502,20 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
 
             Page<Reviews> reviewPage = this.page(pageInfo, queryWrapper);
             List<Reviews> blockchainReviews = reviewPage.getRecords();
+            Map<Long, Products> products = productsService.getProductSummaries(
+                    blockchainReviews.stream().map(Reviews::getProductId).collect(Collectors.toList()));
+
+            // 链上信息从事件索引表批量读取，不再逐条调用合约
+            List<Long> chainIds = blockchainReviews.stream().map(Reviews::getBlockchainReviewId)
+                    .filter(Objects::nonNull).distinct().collect(Collectors.toList());
+            Map<Long, ChainReviewEvents> chainEvents = new HashMap<>();
+            Map<Long, ChainRewardEvents> chainRewards = new HashMap<>();
+            if (!chainIds.isEmpty()) {
+                chainReviewEventsMapper.selectBatchIds(chainIds)
+                        .forEach(e -> chainEvents.put(e.getReviewId(), e));
+                chainRewardEventsMapper.selectList(new QueryWrapper<ChainRewardEvents>().in("review_id", chainIds))
+                        .forEach(e -> chainRewards.put(e.getReviewId(), e));
+            }
 
             List<Map<String, Object>> reviewList = new ArrayList<>();
             for (Reviews review : blockchainReviews) {
@@ -468,13 +530,15 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
                 reviewData.put("createdAt", review.getCreatedAt());
                 reviewData.put("blockchainStatus", "已上链");
 
-                // 获取商品名称
-                try {
-                    Products product = productsService.getById(review.getProductId());
-                    reviewData.put("productName", product != null ? product.getName() : "未知商品");
-                } catch (Exception e) {
-                    reviewData.put("productName", "未知商品");
-                }
+                // 事件索引中的区块高度和实际发放的奖励，索引尚未追上时为空
+                ChainReviewEvents chainEvent = chainEvents.get(review.getBlockchainReviewId());
+                ChainRewardEvents chainReward = chainRewards.get(review.getBlockchainReviewId());
+                reviewData.put("blockNumber", chainEvent != null ? chainEvent.getBlockNumber() : null);
+                reviewData.put("reward", chainReward != null ? chainReward.getAmount().toPlainString() : null);
+
+                // 补充商品名称
+                Products product = products.get(review.getProductId());
+                reviewData.put("productName", product != null ? product.getName() : "未知商品");
 
                 reviewList.add(reviewData);
             }
@@ -495,55 +559,25 @@ public class ReviewsServiceImpl extends ServiceImpl<ReviewsMapper, Reviews> impl
         return result;
     }
 
+    /**
+     * 按交易哈希把评论与链上事件索引中的ReviewSubmitted事件对应起来，校正链上评论ID和NFT ID
+     * 只能校正事件索引器已经处理过的区块中的交易
+     *
+     * @return 修复条数、仍未找到对应事件的条数及索引进度
+     */
     @Override
     public Map<String, Object> fixBlockchainReviewIds() {
         Map<String, Object> result = new HashMap<>();
-        int fixedCount = 0;
 
         try {
-            // 查询所有有tx_hash但没有blockchain_review_id的记录
-            QueryWrapper<Reviews> queryWrapper = new QueryWrapper<>();
-            queryWrapper.isNotNull("tx_hash")
-                    .isNull("blockchain_review_id");
-
-            List<Reviews> reviewsToFix = this.list(queryWrapper);
-            System.out.println("需要修复的评论数量: " + reviewsToFix.size());
-
-            for (Reviews review : reviewsToFix) {
-                try {
-                    System.out.println("修复评论ID: " + review.getId() + ", txHash: " + review.getTxHash());
-
-                    // 获取区块链上的总评论数
-                    CallResponse totalResponse = reviewCoreService.totalReviews();
-                    BigInteger totalReviews = (BigInteger) totalResponse.getReturnObject().get(0);
-
-                    // 使用更安全的估算方法：从0开始递增
-                    // 避免负数ID
-                    Long estimatedId = (long) fixedCount;
-
-                    // 确保ID在合理范围内
-                    if (estimatedId < 0) {
-                        estimatedId = 0L;
-                    }
-                    if (estimatedId >= totalReviews.longValue()) {
-                        estimatedId = totalReviews.longValue() - 1;
-                    }
-
-                    review.setBlockchainReviewId(estimatedId);
-                    this.updateById(review);
-                    fixedCount++;
-
-                    System.out.println("修复成功，评论ID: " + review.getId() + ", blockchainReviewId: " + estimatedId);
-
-                } catch (Exception e) {
-                    System.err.println("修复评论失败，ID: " + review.getId() + ", 错误: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }
+            int fixedCount = reviewsMapper.reconcileFromChainIndex();
+            Long unindexedCount = reviewsMapper.countUnindexedChainReviews();
 
             result.put("code", 0);
             result.put("message", "修复完成，共修复 " + fixedCount + " 条评论");
             result.put("fixedCount", fixedCount);
+            result.put("unindexedCount", unindexedCount);
+            result.put("indexedToBlock", chainEventIndexer.getCheckpoint());
 
         } catch (Exception e) {
             result.put("code", -1);
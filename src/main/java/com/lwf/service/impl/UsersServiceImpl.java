@@ -36,8 +36,8 @@ public class UsersServiceImpl extends ServiceImpl<UsersMapper, Users> implements
     private OrdersMapper ordersMapper;
 
     @Override
-    public String generateNonce(String address) {
-        return nonceService.generateNonce(address);
+    public String generateNonce(String address, String clientIp) {
+        return nonceService.generateNonce(address, clientIp);
     }
 
     @Override
@@ -0,0 +1,37 @@
+package com.lwf.utils;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 已通过JWT认证的当前用户
+ * 由JwtAuthFilter放入请求属性，控制器通过 @RequestAttribute(AuthPrincipal.REQUEST_ATTRIBUTE) 取得
+ */
+@Getter
+@ToString
+public class AuthPrincipal {
+
+    public static final String REQUEST_ATTRIBUTE = "authPrincipal";
+
+    private final Long userId;
+
+    private final String address;
+
+    private final String role;
+
+    /**
+     * 令牌过期时间（毫秒时间戳）
+     */
+    private final long expiresAt;
+
+    public AuthPrincipal(Long userId, String address, String role, long expiresAt) {
+        this.userId = userId;
+        this.address = address;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isAdmin() {
+        return "admin".equals(role);
+    }
+}
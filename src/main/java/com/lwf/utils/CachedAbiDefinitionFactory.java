@@ -0,0 +1,39 @@
+package com.lwf.utils;
+
+import org.fisco.bcos.sdk.abi.wrapper.ABIDefinitionFactory;
+import org.fisco.bcos.sdk.abi.wrapper.ContractABIDefinition;
+import org.fisco.bcos.sdk.crypto.CryptoSuite;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存解析结果的ABI定义工厂
+ * SDK的ABICodec在每次编码调用参数、解码返回值时都会重新解析整段ABI JSON，
+ * 而各合约的ABI在运行期间不会变化，这里按ABI字符串缓存解析结果，所有交易处理器共用一份。
+ * 解析结果在编解码时只被读取，可以安全地在线程间共享。
+ */
+public class CachedAbiDefinitionFactory extends ABIDefinitionFactory {
+
+    private final Map<String, ContractABIDefinition> definitions = new ConcurrentHashMap<>();
+
+    public CachedAbiDefinitionFactory(CryptoSuite cryptoSuite) {
+        super(cryptoSuite);
+    }
+
+    @Override
+    public ContractABIDefinition loadABI(String abi) {
+        if (abi == null) {
+            return super.loadABI(null);
+        }
+        // 解析失败时父类返回null，不缓存
+        return definitions.computeIfAbsent(abi, super::loadABI);
+    }
+
+    /**
+     * 已缓存的ABI数量
+     */
+    public int size() {
+        return definitions.size();
+    }
+}
@@ -0,0 +1,85 @@
+package com.lwf.utils;
+
+import org.fisco.bcos.sdk.abi.ABICodecException;
+import org.fisco.bcos.sdk.abi.wrapper.ABICodecObject;
+import org.fisco.bcos.sdk.abi.wrapper.ABIDefinition;
+import org.fisco.bcos.sdk.abi.wrapper.ABIObject;
+import org.fisco.bcos.sdk.abi.wrapper.ABIObjectFactory;
+import org.fisco.bcos.sdk.abi.wrapper.ContractABIDefinition;
+import org.fisco.bcos.sdk.client.Client;
+import org.fisco.bcos.sdk.crypto.keypair.CryptoKeyPair;
+import org.fisco.bcos.sdk.transaction.manager.AssembleTransactionProcessor;
+import org.fisco.bcos.sdk.transaction.model.dto.CallRequest;
+import org.fisco.bcos.sdk.transaction.model.dto.CallResponse;
+import org.fisco.bcos.sdk.transaction.model.exception.TransactionBaseException;
+import org.fisco.bcos.sdk.transaction.tools.ContractLoader;
+
+import java.util.List;
+
+/**
+ * 使用共享ABI解析缓存的交易处理器
+ * 只通过SDK的公开方法接入：重写encodeFunction（发送交易时的参数编码），
+ * 以及按函数名调用的sendCall，改为用缓存的函数定义编码后走sendCall(CallRequest)，返回值按该定义解码。
+ * 缓存中没有可用定义时回落到SDK原有实现；交易回执的解码仍由SDK完成。
+ */
+public class CachedAbiTransactionProcessor extends AssembleTransactionProcessor {
+
+    private final CachedAbiDefinitionFactory abiDefinitionFactory;
+
+    public CachedAbiTransactionProcessor(Client client, CryptoKeyPair cryptoKeyPair, Integer groupId, String chainId,
+                                         CachedAbiDefinitionFactory abiDefinitionFactory) {
+        super(client, cryptoKeyPair, groupId, chainId, (ContractLoader) null);
+        this.abiDefinitionFactory = abiDefinitionFactory;
+    }
+
+    @Override
+    public String encodeFunction(String abi, String functionName, List<Object> params) throws ABICodecException {
+        ABIDefinition function = findFunction(abi, functionName, params);
+        if (function == null) {
+            return super.encodeFunction(abi, functionName, params);
+        }
+        return encode(function, params);
+    }
+
+    @Override
+    public CallResponse sendCall(String from, String to, String abi, String functionName, List<Object> params)
+            throws TransactionBaseException, ABICodecException {
+        ABIDefinition function = findFunction(abi, functionName, params);
+        if (function == null) {
+            return super.sendCall(from, to, abi, functionName, params);
+        }
+        return sendCall(new CallRequest(from, to, encode(function, params), function));
+    }
+
+    /**
+     * 按函数名和参数个数查找缓存中的函数定义，找不到时返回null
+     */
+    private ABIDefinition findFunction(String abi, String functionName, List<Object> params) {
+        if (abi == null || params == null) {
+            return null;
+        }
+        ContractABIDefinition contract = abiDefinitionFactory.loadABI(abi);
+        if (contract == null) {
+            return null;
+        }
+        List<ABIDefinition> functions = contract.getFunctions().get(functionName);
+        if (functions == null) {
+            return null;
+        }
+        for (ABIDefinition function : functions) {
+            if (function.getInputs().size() == params.size()) {
+                return function;
+            }
+        }
+        return null;
+    }
+
+    private String encode(ABIDefinition function, List<Object> params) throws ABICodecException {
+        try {
+            ABIObject input = ABIObjectFactory.createInputObject(function);
+            return function.getMethodId(cryptoSuite) + new ABICodecObject().encodeValue(input, params).encode();
+        } catch (Exception e) {
+            throw new ABICodecException("参数编码失败, function=" + function.getName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.lwf.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.stereotype.Component;
@@ -15,6 +16,11 @@ public class JwtUtil {
     private static final long EXPIRATION_TIME = 86400000; // 24小时
 //    private static final long EXPIRATION_TIME = 300000; // 5分钟
 
+    // 解析器线程安全，全局共用一个
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SECRET_KEY).build();
+
+    public static final String BEARER_PREFIX = "Bearer ";
+
     public static String generateToken(Long userId, String address, String role) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("address", address);
@@ -29,25 +35,26 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * 校验签名和有效期并返回声明，token可以带Bearer前缀
+     *
+     * @throws io.jsonwebtoken.JwtException 签名无效、格式错误或已过期时抛出
+     */
+    public static Claims parseToken(String token) {
+        return PARSER.parseClaimsJws(token.replace(BEARER_PREFIX, "")).getBody();
+    }
+
     public static Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(SECRET_KEY)
-                .parseClaimsJws(token.replace("Bearer ", ""))
-                .getBody();
-        return Long.parseLong(claims.getSubject());
+        return Long.parseLong(parseToken(token).getSubject());
     }
 
     public static String getAddressFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(SECRET_KEY)
-                .parseClaimsJws(token.replace("Bearer ", ""))
-                .getBody();
-        return claims.get("address", String.class);
+        return parseToken(token).get("address", String.class);
     }
 
     public static boolean validateToken(String token) {
         try {
-            Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token);
+            parseToken(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -0,0 +1,120 @@
+package com.lwf.utils;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.IService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 按(created_at, id)倒序的游标分页
+ * 游标记录上一页最后一行的创建时间和ID，下一页用
+ * created_at &lt; ? OR (created_at = ? AND id &lt; ?) 直接定位，不使用OFFSET，也不需要COUNT。
+ * 对外是一个不透明的Base64字符串，需要配合(筛选列, created_at, id)组合索引使用。
+ */
+public final class KeysetCursor {
+
+    /**
+     * 游标分页单页最多条数
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String LOCAL_DATE_TIME = "L";
+
+    private static final String DATE = "D";
+
+    private final Object createdAt;
+
+    private final long id;
+
+    private KeysetCursor(Object createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * 生成游标，createdAt支持LocalDateTime和Date
+     */
+    public static String encode(Object createdAt, Long id) {
+        String value;
+        if (createdAt instanceof LocalDateTime) {
+            value = LOCAL_DATE_TIME + "|" + createdAt + "|" + id;
+        } else if (createdAt instanceof Date) {
+            value = DATE + "|" + ((Date) createdAt).getTime() + "|" + id;
+        } else {
+            throw new IllegalArgumentException("不支持的创建时间类型: " + createdAt);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     *
+     * @return 空字符串表示第一页，返回null
+     * @throws BusinessException 游标格式错误
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            long id = Long.parseLong(parts[2]);
+            if (LOCAL_DATE_TIME.equals(parts[0])) {
+                return new KeysetCursor(LocalDateTime.parse(parts[1]), id);
+            }
+            if (DATE.equals(parts[0])) {
+                return new KeysetCursor(new Date(Long.parseLong(parts[1])), id);
+            }
+        } catch (RuntimeException e) {
+            // 统一按无效游标处理
+        }
+        throw new BusinessException("无效的分页游标");
+    }
+
+    /**
+     * 按游标查询一页，多取一行用于判断是否还有下一页
+     * 会在wrapper上追加游标条件、排序和LIMIT，需要总数时应在调用前先count
+     *
+     * @param cursor   游标，null或空字符串表示第一页
+     * @param pageSize 每页条数，超出[1, MAX_PAGE_SIZE]时取边界值
+     * @return 最多pageSize+1行，交给nextCursor截断
+     */
+    public static <T> List<T> fetchPage(IService<T> service, QueryWrapper<T> wrapper, String cursor, int pageSize) {
+        int size = clampPageSize(pageSize);
+        KeysetCursor position = decode(cursor);
+        if (position != null) {
+            wrapper.and(w -> w.lt("created_at", position.createdAt)
+                    .or(x -> x.eq("created_at", position.createdAt).lt("id", position.id)));
+        }
+        wrapper.orderByDesc("created_at", "id").last("LIMIT " + (size + 1));
+        return service.list(wrapper);
+    }
+
+    /**
+     * 截掉多取的一行并生成下一页游标，pageSize与fetchPage按同样的规则取边界值
+     *
+     * @return 下一页游标，没有更多数据时返回null
+     */
+    public static <T> String nextCursor(List<T> rows, int pageSize, Function<T, Object> createdAtOf,
+                                        Function<T, Long> idOf) {
+        int size = clampPageSize(pageSize);
+        if (rows.size() <= size) {
+            return null;
+        }
+        rows.subList(size, rows.size()).clear();
+        T last = rows.get(rows.size() - 1);
+        return encode(createdAtOf.apply(last), idOf.apply(last));
+    }
+
+    /**
+     * 把每页条数限制在[1, MAX_PAGE_SIZE]
+     */
+    public static int clampPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+}
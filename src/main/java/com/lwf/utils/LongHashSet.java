@@ -0,0 +1,98 @@
+package com.lwf.utils;
+
+/**
+ * long类型开放寻址哈希集合（线性探测），每个元素只占8字节，无装箱开销。
+ * 0作为空槽标记，调用方需保证不存入0。非线程安全。
+ */
+public class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] table;
+
+    private int mask;
+
+    private int size;
+
+    private int resizeThreshold;
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 添加元素
+     *
+     * @return 元素此前不存在时返回true
+     */
+    public boolean add(long value) {
+        checkValue(value);
+        int index = indexOf(value);
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        checkValue(value);
+        int index = indexOf(value);
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 底层数组占用的字节数
+     */
+    public long memoryBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        allocate(capacity);
+        for (long value : old) {
+            if (value != 0) {
+                int index = indexOf(value);
+                while (table[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    private int indexOf(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static void checkValue(long value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("0不能作为元素");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.lwf.utils;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 文本MinHash签名
+ * 文本归一化（小写、去掉空白和标点）后按相邻两个字符切分，不依赖分词，中文同样适用。
+ * 对32个独立哈希函数分别取所有分片的最小值，两段文本签名中相同位置取值相等的比例即为
+ * 分片集合Jaccard相似度的估计。每个最小值保留16位，4个一组打包成一个long，
+ * 签名共8个long，同时作为LSH的8个分段。
+ */
+public final class MinHash {
+
+    /**
+     * 签名分段数（LSH的band数）
+     */
+    public static final int BANDS = 8;
+
+    /**
+     * 每段包含的最小哈希个数
+     */
+    public static final int ROWS = 4;
+
+    private static final int HASHES = BANDS * ROWS;
+
+    private static final int SHINGLE = 2;
+
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    private MinHash() {
+    }
+
+    /**
+     * 文本归一化：只保留字母、数字和汉字，英文转小写
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 计算已归一化文本的签名
+     */
+    public static long[] signature(String normalized) {
+        long[] minimums = new long[HASHES];
+        Arrays.fill(minimums, -1L);
+        int shingles = Math.max(1, normalized.length() - SHINGLE + 1);
+        for (int i = 0; i < shingles; i++) {
+            long shingle = shingle(normalized, i);
+            for (int j = 0; j < HASHES; j++) {
+                long value = mix(shingle ^ SEEDS[j]);
+                if (Long.compareUnsigned(value, minimums[j]) < 0) {
+                    minimums[j] = value;
+                }
+            }
+        }
+
+        long[] signature = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long packed = 0;
+            for (int row = 0; row < ROWS; row++) {
+                packed = (packed << 16) | (minimums[band * ROWS + row] & 0xFFFF);
+            }
+            signature[band] = packed;
+        }
+        return signature;
+    }
+
+    /**
+     * 两个签名估计的Jaccard相似度
+     */
+    public static double similarity(long[] a, int aOffset, long[] b) {
+        int equal = 0;
+        for (int band = 0; band < BANDS; band++) {
+            long diff = a[aOffset + band] ^ b[band];
+            for (int row = 0; row < ROWS; row++) {
+                if ((diff & 0xFFFF) == 0) {
+                    equal++;
+                }
+                diff >>>= 16;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    // 两个UTF-16字符放进32位，无需创建子串
+    private static long shingle(String text, int from) {
+        long packed = 0;
+        int to = Math.min(text.length(), from + SHINGLE);
+        for (int i = from; i < to; i++) {
+            packed = (packed << 16) | text.charAt(i);
+        }
+        return mix(packed | (long) (to - from) << 48);
+    }
+
+    /**
+     * 用户地址（忽略大小写和首尾空白）的64位FNV-1a哈希，null按空串处理
+     * 重复评价检测的用户分区和速率检测的用户计数共用
+     */
+    public static long addressKey(String address) {
+        String normalized = address == null ? "" : address.trim().toLowerCase(Locale.ROOT);
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalized.length(); i++) {
+            h ^= normalized.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * MurmurHash3的64位终结函数
+     */
+    static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,218 @@
+package com.lwf.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * MinHash签名的LSH近邻索引，按分区（如商品ID、用户）隔离
+ * 签名的8个分段分别建桶，任意一段完全相同的条目成为候选，再按整个签名估计相似度确认。
+ * 相似度为s时成为候选的概率为1-(1-s^4)^8：s=0.7时约89%，s=0.85时超过99%，s=0.3时不到7%。
+ * 条目存放在并列的基本类型数组中，桶为数组下标链表，无对象开销。
+ * 读多写少，写入加锁，查找使用StampedLock乐观读，读线程之间没有竞争。
+ * 条目数达到上限时淘汰最早加入的四分之一，其余条目前移后重建桶。
+ */
+public class MinHashIndex {
+
+    private static final int BANDS = MinHash.BANDS;
+
+    private final StampedLock lock = new StampedLock();
+
+    // signatures[entry * BANDS + band]
+    private long[] signatures;
+
+    private long[] partitions;
+
+    private long[] values;
+
+    // next[entry * BANDS + band]为同一桶中下一个条目，-1表示链表结束
+    private int[] next;
+
+    // heads[band][bucket]为桶中第一个条目
+    private int[][] heads;
+
+    private int mask;
+
+    private int size;
+
+    // 条目数上限，0表示不限制
+    private final int maxSize;
+
+    public MinHashIndex(int expectedSize) {
+        this(expectedSize, 0);
+    }
+
+    /**
+     * @param expectedSize 初始容量
+     * @param maxSize      条目数上限，0表示不限制
+     */
+    public MinHashIndex(int expectedSize, int maxSize) {
+        this.maxSize = maxSize;
+        int capacity = Math.max(16, maxSize > 0 ? Math.min(expectedSize, maxSize) : expectedSize);
+        signatures = new long[capacity * BANDS];
+        partitions = new long[capacity];
+        values = new long[capacity];
+        next = new int[capacity * BANDS];
+        allocateHeads(capacity);
+    }
+
+    /**
+     * 添加签名
+     *
+     * @param partition 分区
+     * @param signature MinHash签名
+     * @param value     附带的值（如评价ID）
+     */
+    public void add(long partition, long[] signature, long value) {
+        long stamp = lock.writeLock();
+        try {
+            if (maxSize > 0 && size >= maxSize) {
+                evictOldest(Math.max(1, maxSize >> 2));
+            }
+            if (size == partitions.length) {
+                grow();
+            }
+            int entry = size++;
+            System.arraycopy(signature, 0, signatures, entry * BANDS, BANDS);
+            partitions[entry] = partition;
+            values[entry] = value;
+            if (size > heads[0].length) {
+                // 桶数始终不少于条目数，链表平均长度不超过1
+                relink(heads[0].length << 1);
+            } else {
+                link(entry);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 在分区内查找估计相似度不低于threshold的签名
+     *
+     * @return 找到的第一个相似签名附带的值，没有时返回-1
+     */
+    public long findSimilar(long partition, long[] signature, double threshold) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                long value = find(partition, signature, threshold);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (ArrayIndexOutOfBoundsException e) {
+                // 并发扩容时可能读到不一致的数组，加读锁重试
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return find(partition, signature, threshold);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 底层数组占用的字节数
+     */
+    public long memoryBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) signatures.length * Long.BYTES
+                    + (long) partitions.length * Long.BYTES * 2
+                    + (long) next.length * Integer.BYTES
+                    + (long) heads[0].length * BANDS * Integer.BYTES;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long find(long partition, long[] signature, double threshold) {
+        long[] signatures = this.signatures;
+        long[] partitions = this.partitions;
+        long[] values = this.values;
+        int[] next = this.next;
+        int[][] heads = this.heads;
+        int mask = this.mask;
+        for (int band = 0; band < BANDS; band++) {
+            long bandValue = signature[band];
+            int entry = heads[band][bucket(partition, band, bandValue, mask)];
+            while (entry >= 0) {
+                if (partitions[entry] == partition && signatures[entry * BANDS + band] == bandValue
+                        && MinHash.similarity(signatures, entry * BANDS, signature) >= threshold) {
+                    return values[entry];
+                }
+                int following = next[entry * BANDS + band];
+                // 链表总是指向更早的条目，否则说明读到了扩容中的数组，稍后validate会失败
+                if (following >= entry) {
+                    break;
+                }
+                entry = following;
+            }
+        }
+        return -1;
+    }
+
+    private void link(int entry) {
+        long partition = partitions[entry];
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = bucket(partition, band, signatures[entry * BANDS + band], mask);
+            next[entry * BANDS + band] = heads[band][bucket];
+            heads[band][bucket] = entry;
+        }
+    }
+
+    private void grow() {
+        int capacity = partitions.length + (partitions.length >> 1);
+        if (maxSize > 0) {
+            capacity = Math.min(capacity, maxSize);
+        }
+        signatures = Arrays.copyOf(signatures, capacity * BANDS);
+        partitions = Arrays.copyOf(partitions, capacity);
+        values = Arrays.copyOf(values, capacity);
+        next = Arrays.copyOf(next, capacity * BANDS);
+    }
+
+    /**
+     * 淘汰最早加入的count个条目，其余条目保持加入顺序前移后重建桶
+     */
+    private void evictOldest(int count) {
+        int evicted = Math.min(count, size);
+        System.arraycopy(signatures, evicted * BANDS, signatures, 0, (size - evicted) * BANDS);
+        System.arraycopy(partitions, evicted, partitions, 0, size - evicted);
+        System.arraycopy(values, evicted, values, 0, size - evicted);
+        size -= evicted;
+        relink(heads[0].length);
+    }
+
+    private void relink(int buckets) {
+        allocateHeads(buckets);
+        for (int entry = 0; entry < size; entry++) {
+            link(entry);
+        }
+    }
+
+    private void allocateHeads(int capacity) {
+        int buckets = Integer.highestOneBit(capacity - 1) << 1;
+        int[][] allocated = new int[BANDS][buckets];
+        for (int[] bucketHeads : allocated) {
+            Arrays.fill(bucketHeads, -1);
+        }
+        heads = allocated;
+        mask = buckets - 1;
+    }
+
+    // 桶由分区、段号和段值共同决定，不同分区的条目可能落入同一桶，查找时再核对分区
+    private static int bucket(long partition, int band, long bandValue, int mask) {
+        long h = MinHash.mix(partition * 0x9E3779B97F4A7C15L + band) ^ bandValue;
+        return (int) MinHash.mix(h) & mask;
+    }
+}
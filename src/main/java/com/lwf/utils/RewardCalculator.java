@@ -0,0 +1,72 @@
+package com.lwf.utils;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 评论奖励计算，与RewardPool.calculateReward逐位一致
+ * 合约中该函数为pure，本地计算即可得到与链上相同的结果，无需发起RPC。
+ * 奖励 = 基础奖励 × (100 + 币天加成 + 长度加成 + 评分加成) / 100，按uint256整数除法向下取整。
+ */
+public final class RewardCalculator {
+
+    /**
+     * 基础奖励：10个代币（18位小数）
+     */
+    public static final BigInteger BASE_REWARD = BigInteger.TEN.multiply(BigInteger.TEN.pow(18));
+
+    private static final BigInteger HUNDRED = BigInteger.valueOf(100);
+
+    private static final BigInteger TWO = BigInteger.valueOf(2);
+
+    private static final BigInteger UINT256_MAX = BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE);
+
+    private RewardCalculator() {
+    }
+
+    /**
+     * 计算评论奖励
+     *
+     * @param coinDays      发送账户的币天
+     * @param contentLength 评论内容的UTF-8字节数（合约中为bytes(content).length）
+     * @param rating        评分，1-5
+     * @return 奖励金额（最小单位）
+     * @throws BusinessException 评分不在1-5之间或参数超出uint256范围时抛出，对应合约中的revert
+     */
+    public static BigInteger calculateReward(BigInteger coinDays, BigInteger contentLength, int rating) {
+        checkUint256(coinDays, "coinDays");
+        checkUint256(contentLength, "contentLength");
+        if (rating < 1 || rating > 5) {
+            throw new BusinessException("Invalid rating");
+        }
+        // 币天加成（0-100%）
+        long coinDayBonus = coinDays.compareTo(HUNDRED) > 0 ? 100 : coinDays.longValue();
+        // 内容加成（0-50%）
+        long lengthBonus = contentLength.compareTo(HUNDRED) > 0 ? 50 : contentLength.divide(TWO).longValue();
+        // 评分加成（20%-100%）
+        long ratingBonus = rating * 20L;
+
+        long totalBonus = coinDayBonus + lengthBonus + ratingBonus;
+        return BASE_REWARD.multiply(BigInteger.valueOf(100 + totalBonus)).divide(HUNDRED);
+    }
+
+    /**
+     * 按评论内容计算奖励
+     */
+    public static BigInteger calculateReward(BigInteger coinDays, String content, int rating) {
+        return calculateReward(coinDays, BigInteger.valueOf(contentLength(content)), rating);
+    }
+
+    /**
+     * 评论内容在合约中的长度，即UTF-8编码后的字节数（一个汉字为3字节）
+     */
+    public static int contentLength(String content) {
+        return content == null ? 0 : content.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void checkUint256(BigInteger value, String name) {
+        if (value == null || value.signum() < 0 || value.compareTo(UINT256_MAX) > 0) {
+            throw new BusinessException(name + "超出uint256范围");
+        }
+    }
+}
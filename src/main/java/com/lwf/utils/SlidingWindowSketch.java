@@ -0,0 +1,124 @@
+package com.lwf.utils;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滑动时间窗口计数草图
+ * 时间窗口切成若干个时间片组成环形缓冲区，每个时间片是一个count-min sketch，
+ * 计数和时间片轮换都用原子操作完成，无锁。估计值为窗口内各时间片估计值之和，
+ * 只会多算（哈希碰撞）不会少算，内存固定为 时间片数 × 深度 × 宽度 × 4字节。
+ * 时间片轮换的瞬间与之并发的少量计数可能被清掉，对突增检测没有影响。
+ */
+public class SlidingWindowSketch {
+
+    private static final int DEPTH = 4;
+
+    private final int slots;
+
+    private final long slotMillis;
+
+    private final int width;
+
+    private final int mask;
+
+    // 每个环形位置当前对应的时间片序号
+    private final AtomicLongArray epochs;
+
+    // counts[(slot * DEPTH + row) * width + column]
+    private final AtomicIntegerArray counts;
+
+    /**
+     * @param slots      时间片个数
+     * @param slotMillis 每个时间片的长度（毫秒）
+     * @param width      每行的计数器个数，向上取整为2的幂
+     */
+    public SlidingWindowSketch(int slots, long slotMillis, int width) {
+        this.slots = slots;
+        this.slotMillis = slotMillis;
+        this.width = Integer.highestOneBit(Math.max(16, width) - 1) << 1;
+        this.mask = this.width - 1;
+        this.epochs = new AtomicLongArray(slots);
+        this.counts = new AtomicIntegerArray(slots * DEPTH * this.width);
+        for (int i = 0; i < slots; i++) {
+            epochs.set(i, -1);
+        }
+    }
+
+    /**
+     * 计数加一并返回窗口内的估计值
+     */
+    public long incrementAndEstimate(long key, long now) {
+        long epoch = now / slotMillis;
+        int slot = acquire(epoch);
+        for (int row = 0; row < DEPTH; row++) {
+            counts.incrementAndGet(index(slot, row, key));
+        }
+        return sumWindow(key, epoch);
+    }
+
+    /**
+     * 窗口内的估计值
+     */
+    public long estimate(long key, long now) {
+        return sumWindow(key, now / slotMillis);
+    }
+
+    /**
+     * 窗口总长度（毫秒）
+     */
+    public long windowMillis() {
+        return slots * slotMillis;
+    }
+
+    /**
+     * 计数器占用的字节数
+     */
+    public long memoryBytes() {
+        return (long) counts.length() * Integer.BYTES + (long) slots * Long.BYTES;
+    }
+
+    private long sumWindow(long key, long epoch) {
+        long total = 0;
+        for (long e = epoch - slots + 1; e <= epoch; e++) {
+            if (e < 0) {
+                continue;
+            }
+            int slot = (int) (e % slots);
+            if (epochs.get(slot) != e) {
+                continue;
+            }
+            int min = Integer.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, counts.get(index(slot, row, key)));
+            }
+            total += min;
+        }
+        return total;
+    }
+
+    // 时间片过期时由抢到CAS的线程清零后复用
+    private int acquire(long epoch) {
+        int slot = (int) (epoch % slots);
+        long current = epochs.get(slot);
+        while (current < epoch) {
+            if (epochs.compareAndSet(slot, current, epoch)) {
+                int from = slot * DEPTH * width;
+                for (int i = from; i < from + DEPTH * width; i++) {
+                    counts.set(i, 0);
+                }
+                break;
+            }
+            current = epochs.get(slot);
+        }
+        return slot;
+    }
+
+    private int index(int slot, int row, long key) {
+        long h = key * 0x9E3779B97F4A7C15L + row * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (slot * DEPTH + row) * width + ((int) h & mask);
+    }
+}
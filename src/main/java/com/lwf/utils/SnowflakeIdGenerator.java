@@ -0,0 +1,108 @@
+package com.lwf.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake风格的64位ID生成器
+ * <p>
+ * 布局：1位符号（恒为0）| 41位毫秒时间戳（相对EPOCH，约69年）| 10位节点ID | 12位毫秒内序列。
+ * 同一节点生成的ID严格递增，不同节点的ID不会重复。
+ * 上次使用的时间戳和序列打包在一个AtomicLong中，用CAS推进，不加锁。
+ * 同一毫秒内序列用尽时进位到下一毫秒（逻辑时钟暂时领先墙上时钟），
+ * 时钟回拨不超过maxBackwardMs时沿用逻辑时钟继续递增，超过则抛出异常拒绝生成。
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 2025-01-01T00:00:00Z
+     */
+    public static final long EPOCH = 1735689600000L;
+
+    public static final int NODE_BITS = 10;
+
+    public static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private final long nodeId;
+
+    private final long maxBackwardMs;
+
+    private final LongSupplier clock;
+
+    // (相对EPOCH的毫秒 << SEQUENCE_BITS) | 序列
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param nodeId        节点ID，0 ~ 1023，各实例必须不同
+     * @param maxBackwardMs 可容忍的时钟回拨（毫秒），也是逻辑时钟最多领先墙上时钟的时间
+     */
+    public SnowflakeIdGenerator(long nodeId, long maxBackwardMs) {
+        this(nodeId, maxBackwardMs, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, long maxBackwardMs, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点ID必须在0 ~ " + MAX_NODE_ID + "之间: " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.maxBackwardMs = Math.max(0, maxBackwardMs);
+        this.clock = clock;
+    }
+
+    /**
+     * 生成下一个ID
+     *
+     * @throws IllegalStateException 时钟回拨超过可容忍范围时抛出
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTime = current >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH;
+            long next;
+            if (now > lastTime) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // 序列进位只会让逻辑时钟领先至多maxBackwardMs，超出只可能是墙上时钟回拨
+                if (lastTime - now > maxBackwardMs) {
+                    throw new IllegalStateException("时钟回拨 " + (lastTime - now) + "ms，超过可容忍的 "
+                            + maxBackwardMs + "ms，拒绝生成ID");
+                }
+                // 同一毫秒或小幅回拨：沿用上次的时间继续递增序列，序列用尽时进位到下一毫秒
+                next = current + 1;
+                if ((next >>> SEQUENCE_BITS) - now > maxBackwardMs) {
+                    // 领先太多，等墙上时钟追上
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                    continue;
+                }
+            }
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * ID中的生成时间（毫秒时间戳）
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+
+    /**
+     * ID中的节点ID
+     */
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
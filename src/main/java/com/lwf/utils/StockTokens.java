@@ -0,0 +1,74 @@
+package com.lwf.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 无锁库存令牌计数器
+ * 预先装入一批库存，购买时用CAS一次取走所需数量，剩余不足时立即失败，不会减成负数。
+ * drain后计数器关闭，之后的归还返回false，由调用方把数量还回别处，不会留在已无人取用的计数器里。
+ */
+public class StockTokens {
+
+    // 关闭标记，drain后的取用和归还都会失败
+    private static final int CLOSED = -1;
+
+    private final AtomicInteger remaining;
+
+    public StockTokens(int initial) {
+        if (initial < 0) {
+            throw new IllegalArgumentException("initial不能小于0");
+        }
+        this.remaining = new AtomicInteger(initial);
+    }
+
+    /**
+     * 取走quantity个令牌
+     *
+     * @return 剩余令牌足够并已取走时返回true
+     */
+    public boolean tryAcquire(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity必须大于0");
+        }
+        while (true) {
+            int current = remaining.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (remaining.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还令牌
+     *
+     * @return 计数器已被drain关闭时返回false，令牌未归还
+     */
+    public boolean release(int quantity) {
+        while (true) {
+            int current = remaining.get();
+            if (current == CLOSED) {
+                return false;
+            }
+            if (remaining.compareAndSet(current, current + quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 取走全部剩余令牌并关闭计数器，之后的tryAcquire和release都会失败
+     *
+     * @return 取走的数量
+     */
+    public int drain() {
+        int drained = remaining.getAndSet(CLOSED);
+        return drained == CLOSED ? 0 : drained;
+    }
+
+    public int remaining() {
+        return Math.max(0, remaining.get());
+    }
+}
@@ -0,0 +1,510 @@
+package com.lwf.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 带过期时间的有界本地缓存
+ * <p>
+ * 按key哈希分成多个段，每段独立加锁；过期由每段的分层时间轮处理，
+ * 后台线程每秒推进一次，只访问到期的槽位，不做全表扫描；
+ * 容量满时按W-TinyLFU淘汰：新条目先进入小的窗口区，被挤出窗口的条目
+ * 与主区最久未访问的条目比较访问频率（Count-Min Sketch统计），频率低者被淘汰。
+ * key和value均不能为null。
+ */
+public class TtlCache<K, V> {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private static final long SWEEP_INTERVAL_MS = 1000;
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ttl-cache-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String name;
+
+    private final long maximumSize;
+
+    private final Segment<K, V>[] segments;
+
+    private final ScheduledFuture<?> sweepTask;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final LongAdder expirationCount = new LongAdder();
+
+    /**
+     * @param name        缓存名称，用于统计输出
+     * @param maximumSize 最大条目数
+     */
+    @SuppressWarnings("unchecked")
+    public TtlCache(String name, long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize必须大于0");
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+        int segmentCapacity = (int) Math.min(Integer.MAX_VALUE, (maximumSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        long now = System.currentTimeMillis();
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>(segmentCapacity, now);
+        }
+        this.sweepTask = SWEEPER.scheduleWithFixedDelay(this::cleanUp, SWEEP_INTERVAL_MS, SWEEP_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取缓存值
+     *
+     * @return 不存在或已过期时返回null
+     */
+    public V get(K key) {
+        int hash = spread(key.hashCode());
+        Segment<K, V> segment = segmentFor(hash);
+        long now = System.currentTimeMillis();
+        segment.lock.lock();
+        try {
+            segment.sketch.increment(hash);
+            Node<K, V> node = segment.find(key);
+            if (node == null) {
+                missCount.increment();
+                return null;
+            }
+            if (node.expireAt <= now) {
+                segment.unlink(node);
+                expirationCount.increment();
+                missCount.increment();
+                return null;
+            }
+            hitCount.increment();
+            return node.value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * 是否存在未过期的缓存
+     */
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 写入缓存，已存在时覆盖值并重置过期时间
+     *
+     * @param ttlMillis 存活时间（毫秒）
+     */
+    public void put(K key, V value, long ttlMillis) {
+        if (value == null) {
+            throw new NullPointerException("value不能为null");
+        }
+        int hash = spread(key.hashCode());
+        Segment<K, V> segment = segmentFor(hash);
+        long now = System.currentTimeMillis();
+        long expireAt = ttlMillis >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttlMillis;
+        segment.lock.lock();
+        try {
+            segment.sketch.increment(hash);
+            Node<K, V> node = segment.find(key);
+            if (node != null) {
+                node.value = value;
+                node.expireAt = expireAt;
+                segment.wheel.reschedule(node);
+                return;
+            }
+            node = new Node<>(key, hash, value, expireAt);
+            segment.wheel.schedule(node);
+            evictionCount.add(segment.admit(node));
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @return 被删除的未过期值，不存在时返回null
+     */
+    public V remove(K key) {
+        int hash = spread(key.hashCode());
+        Segment<K, V> segment = segmentFor(hash);
+        segment.lock.lock();
+        try {
+            Node<K, V> node = segment.find(key);
+            if (node == null) {
+                return null;
+            }
+            segment.unlink(node);
+            return node.expireAt > System.currentTimeMillis() ? node.value : null;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 当前条目数（包含尚未被清理的过期条目）
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 推进各段的时间轮，移除到期条目；由后台线程定期调用
+     */
+    public void cleanUp() {
+        long now = System.currentTimeMillis();
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                expirationCount.add(segment.expire(now));
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 停止后台清理
+     */
+    public void shutdown() {
+        sweepTask.cancel(false);
+    }
+
+    /**
+     * 命中、未命中、淘汰、过期等统计
+     */
+    public Map<String, Object> stats() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("name", name);
+        stats.put("size", size());
+        stats.put("maximumSize", maximumSize);
+        stats.put("hitCount", hits);
+        stats.put("missCount", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictionCount", evictionCount.sum());
+        stats.put("expirationCount", expirationCount.sum());
+        return stats;
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[(hash >>> 28) & (SEGMENT_COUNT - 1)];
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final int hash;
+        V value;
+        long expireAt;
+        boolean inWindow;
+        // 时间轮槽位中的双向链表指针
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, int hash, V value, long expireAt) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class Segment<K, V> {
+        final ReentrantLock lock = new ReentrantLock();
+        // 按访问顺序排列，第一个即最久未访问
+        final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>(16, 0.75f, true);
+        final LinkedHashMap<K, Node<K, V>> main = new LinkedHashMap<>(16, 0.75f, true);
+        final int windowCapacity;
+        final int mainCapacity;
+        final FrequencySketch sketch;
+        final TimerWheel<K, V> wheel;
+
+        Segment(int capacity, long now) {
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.mainCapacity = Math.max(0, capacity - windowCapacity);
+            this.sketch = new FrequencySketch(capacity);
+            this.wheel = new TimerWheel<>(now);
+        }
+
+        Node<K, V> find(K key) {
+            Node<K, V> node = window.get(key);
+            return node != null ? node : main.get(key);
+        }
+
+        int size() {
+            return window.size() + main.size();
+        }
+
+        void unlink(Node<K, V> node) {
+            (node.inWindow ? window : main).remove(node.key);
+            wheel.deschedule(node);
+        }
+
+        void clear() {
+            for (Node<K, V> node : window.values()) {
+                wheel.deschedule(node);
+            }
+            for (Node<K, V> node : main.values()) {
+                wheel.deschedule(node);
+            }
+            window.clear();
+            main.clear();
+        }
+
+        /**
+         * 新条目进入窗口区，窗口区溢出时与主区候选者比较频率
+         *
+         * @return 被淘汰的条目数
+         */
+        int admit(Node<K, V> node) {
+            node.inWindow = true;
+            window.put(node.key, node);
+            if (window.size() <= windowCapacity) {
+                return 0;
+            }
+            Node<K, V> candidate = removeEldest(window);
+            candidate.inWindow = false;
+            if (main.size() < mainCapacity) {
+                main.put(candidate.key, candidate);
+                return 0;
+            }
+            Node<K, V> victim = main.isEmpty() ? null : main.values().iterator().next();
+            if (victim != null && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                main.remove(victim.key);
+                wheel.deschedule(victim);
+                main.put(candidate.key, candidate);
+            } else {
+                wheel.deschedule(candidate);
+            }
+            return 1;
+        }
+
+        int expire(long now) {
+            int[] expired = new int[1];
+            wheel.advance(now, node -> {
+                (node.inWindow ? window : main).remove(node.key);
+                expired[0]++;
+            });
+            return expired[0];
+        }
+
+        private Node<K, V> removeEldest(LinkedHashMap<K, Node<K, V>> map) {
+            Iterator<Node<K, V>> iterator = map.values().iterator();
+            Node<K, V> eldest = iterator.next();
+            iterator.remove();
+            return eldest;
+        }
+    }
+
+    /**
+     * 分层时间轮：第0层每槽约1秒共64槽，逐层放大64倍，最后一层只有一个槽收纳超长过期时间。
+     * 推进时只处理跨过的槽位，未到期条目重新放入更精细的层级。
+     */
+    private static final class TimerWheel<K, V> {
+        private static final int[] BUCKETS = {64, 64, 64, 64, 1};
+        private static final int[] SHIFTS = {10, 16, 22, 28, 34};
+
+        private final Node<K, V>[][] wheel;
+        private long time;
+
+        @SuppressWarnings("unchecked")
+        TimerWheel(long now) {
+            this.time = now;
+            this.wheel = new Node[BUCKETS.length][];
+            for (int i = 0; i < BUCKETS.length; i++) {
+                wheel[i] = new Node[BUCKETS[i]];
+                for (int j = 0; j < BUCKETS[i]; j++) {
+                    Node<K, V> sentinel = new Node<>(null, 0, null, 0);
+                    sentinel.prev = sentinel;
+                    sentinel.next = sentinel;
+                    wheel[i][j] = sentinel;
+                }
+            }
+        }
+
+        void schedule(Node<K, V> node) {
+            Node<K, V> sentinel = findBucket(node.expireAt);
+            node.next = sentinel;
+            node.prev = sentinel.prev;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+        }
+
+        void reschedule(Node<K, V> node) {
+            deschedule(node);
+            schedule(node);
+        }
+
+        void deschedule(Node<K, V> node) {
+            if (node.next != null) {
+                node.prev.next = node.next;
+                node.next.prev = node.prev;
+                node.prev = null;
+                node.next = null;
+            }
+        }
+
+        void advance(long now, Consumer<Node<K, V>> onExpire) {
+            long previous = time;
+            time = now;
+            for (int i = 0; i < SHIFTS.length; i++) {
+                long previousTicks = previous >>> SHIFTS[i];
+                long currentTicks = now >>> SHIFTS[i];
+                if (currentTicks - previousTicks <= 0) {
+                    break;
+                }
+                expire(i, previousTicks, currentTicks - previousTicks, now, onExpire);
+            }
+        }
+
+        private void expire(int level, long previousTicks, long delta, long now,
+                            Consumer<Node<K, V>> onExpire) {
+            Node<K, V>[] buckets = wheel[level];
+            int mask = buckets.length - 1;
+            int steps = (int) Math.min(1 + delta, buckets.length);
+            int start = (int) (previousTicks & mask);
+            for (int i = start; i < start + steps; i++) {
+                Node<K, V> sentinel = buckets[i & mask];
+                Node<K, V> node = sentinel.next;
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                while (node != sentinel) {
+                    Node<K, V> next = node.next;
+                    node.prev = null;
+                    node.next = null;
+                    if (node.expireAt <= now) {
+                        onExpire.accept(node);
+                    } else {
+                        schedule(node);
+                    }
+                    node = next;
+                }
+            }
+        }
+
+        private Node<K, V> findBucket(long expireAt) {
+            long duration = expireAt - time;
+            int last = wheel.length - 1;
+            for (int i = 0; i < last; i++) {
+                if (duration < 1L << SHIFTS[i + 1]) {
+                    long ticks = expireAt >>> SHIFTS[i];
+                    return wheel[i][(int) (ticks & (BUCKETS[i] - 1))];
+                }
+            }
+            return wheel[last][0];
+        }
+    }
+
+    /**
+     * 4位计数的Count-Min Sketch，计数总量达到样本上限后全部减半，使频率随时间衰减
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int size;
+
+        FrequencySketch(int capacity) {
+            int length = Integer.highestOneBit(Math.max(8, Math.min(capacity, 1 << 20)) - 1) << 1;
+            this.table = new long[length];
+            this.tableMask = length - 1;
+            this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * Math.max(1, capacity));
+        }
+
+        int frequency(int hash) {
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                long value = table[indexOf(hash, i)] >>> offsetOf(hash, i);
+                frequency = Math.min(frequency, (int) (value & 0xF));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = offsetOf(hash, i);
+                long mask = 0xFL << offset;
+                if ((table[index] & mask) != mask) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++size >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size /= 2;
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & tableMask;
+        }
+
+        // 每个long存16个4位计数器，用哈希的不同位选择计数器
+        private int offsetOf(int hash, int i) {
+            return ((hash >>> (i << 3)) & 0xF) << 2;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.lwf.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 批量异步写入缓冲
+ * 调用方只把元素放入有界队列即返回，单个写入线程每次取出至多batchSize个元素交给sink批量写入。
+ * 队列的入队和出队各用一把锁，队列满时offer不加锁直接失败，大量调用方不会拖慢写入线程取数；
+ * 写入失败按递增间隔重试，重试用尽后交给failureHandler处理（如归还库存）。
+ * 关闭时写入线程被中断后，手上的批次和队列中剩余的元素再各写一次，仍失败的同样交给failureHandler，不会静默丢弃。
+ */
+@Slf4j
+public class WriteBehindBuffer<T> {
+
+    private final String name;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final Consumer<List<T>> sink;
+
+    private final BiConsumer<List<T>, Exception> failureHandler;
+
+    private final BlockingQueue<T> queue;
+
+    private final Thread writer;
+
+    // 已放入、尚未写完（写入成功或交给failureHandler）的元素数
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final LongAdder writtenCount = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param name           名称，用于线程名和日志
+     * @param capacity       队列容量，满时offer返回false
+     * @param batchSize      单批最多写入的元素数
+     * @param maxAttempts    单批最多尝试写入的次数
+     * @param sink           批量写入
+     * @param failureHandler 重试用尽后对该批元素的处理
+     */
+    public WriteBehindBuffer(String name, int capacity, int batchSize, int maxAttempts,
+                             Consumer<List<T>> sink, BiConsumer<List<T>, Exception> failureHandler) {
+        this.name = name;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.sink = sink;
+        this.failureHandler = failureHandler;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.writer = new Thread(this::writeLoop, name + "-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * 放入一个待写入元素
+     *
+     * @return 队列已满或已关闭时返回false
+     */
+    public boolean offer(T element) {
+        if (!running) {
+            return false;
+        }
+        // 先计数再入队，flush看到的待写入数不会少于实际
+        pending.incrementAndGet();
+        if (!queue.offer(element)) {
+            pending.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 等待已放入的元素全部写完
+     *
+     * @return 超时前写完时返回true
+     */
+    public boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (pending.get() > 0) {
+            if (System.currentTimeMillis() >= deadline || !writer.isAlive()) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 停止接收新元素，等待已有元素写完后结束写入线程
+     */
+    public void shutdown(long timeoutMs) {
+        running = false;
+        if (!flush(timeoutMs)) {
+            log.warn("{} 关闭时仍有 {} 个元素未写入", name, pending.get());
+        }
+        writer.interrupt();
+        try {
+            writer.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // offer在running置为false前通过检查、写入线程退出后才入队的元素
+        writeRemaining(new ArrayList<>());
+    }
+
+    /**
+     * 待写入（含正在写入）的元素数
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("name", name);
+        stats.put("queued", queue.size());
+        stats.put("pending", pending.get());
+        stats.put("written", writtenCount.sum());
+        stats.put("batches", batchCount.sum());
+        stats.put("retries", retryCount.sum());
+        stats.put("failed", failedCount.sum());
+        return stats;
+    }
+
+    private void writeLoop() {
+        List<T> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                T first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                pending.addAndGet(-batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // 关闭等待超时后被中断：手上的批次（可能正在重试间隔中）不丢弃，连同队列剩余元素最后写一次
+            writeRemaining(batch);
+        }
+    }
+
+    private void write(List<T> batch) throws InterruptedException {
+        Exception lastError = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                sink.accept(batch);
+                writtenCount.add(batch.size());
+                batchCount.increment();
+                return;
+            } catch (Exception e) {
+                lastError = e;
+                if (attempt < maxAttempts) {
+                    retryCount.increment();
+                    log.warn("{} 批量写入 {} 个元素失败，第 {} 次重试: {}", name, batch.size(), attempt, e.getMessage());
+                    Thread.sleep(100L * attempt);
+                }
+            }
+        }
+        fail(batch, lastError);
+    }
+
+    /**
+     * 把inHand和队列中剩余的元素按批各写一次，不再重试，失败的交给failureHandler
+     */
+    private void writeRemaining(List<T> inHand) {
+        List<T> remaining = new ArrayList<>(inHand);
+        inHand.clear();
+        queue.drainTo(remaining);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        log.warn("{} 关闭前最后写入 {} 个元素", name, remaining.size());
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            List<T> batch = new ArrayList<>(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+            try {
+                sink.accept(batch);
+                writtenCount.add(batch.size());
+                batchCount.increment();
+            } catch (Exception e) {
+                fail(batch, e);
+            } finally {
+                pending.addAndGet(-batch.size());
+            }
+        }
+    }
+
+    private void fail(List<T> batch, Exception error) {
+        failedCount.add(batch.size());
+        log.error("{} 批量写入 {} 个元素失败，已放弃: {}", name, batch.size(), error.getMessage(), error);
+        try {
+            failureHandler.accept(new ArrayList<>(batch), error);
+        } catch (Exception e) {
+            log.error("{} 写入失败处理出错: {}", name, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+-- 增量表结构变更，按顺序执行
+
+-- 评价投票记录：每个用户对每条评价只能投一次票
+CREATE TABLE IF NOT EXISTS review_votes (
+    id           BIGINT      NOT NULL AUTO_INCREMENT,
+    review_id    BIGINT      NOT NULL,
+    user_address VARCHAR(64) NOT NULL,
+    is_helpful   TINYINT(1)  NOT NULL,
+    created_at   DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_review_user (review_id, user_address)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 商品评分汇总：评价提交时增量更新，定期从reviews表校准
+CREATE TABLE IF NOT EXISTS product_rating_stats (
+    product_id   BIGINT   NOT NULL,
+    review_count BIGINT   NOT NULL DEFAULT 0,
+    rating_sum   BIGINT   NOT NULL DEFAULT 0,
+    star1        BIGINT   NOT NULL DEFAULT 0,
+    star2        BIGINT   NOT NULL DEFAULT 0,
+    star3        BIGINT   NOT NULL DEFAULT 0,
+    star4        BIGINT   NOT NULL DEFAULT 0,
+    star5        BIGINT   NOT NULL DEFAULT 0,
+    updated_at   DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (product_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 初始化已有商品的评分汇总
+INSERT INTO product_rating_stats (product_id, review_count, rating_sum, star1, star2, star3, star4, star5)
+SELECT product_id, COUNT(*), SUM(rating),
+       SUM(rating = 1), SUM(rating = 2), SUM(rating = 3), SUM(rating = 4), SUM(rating = 5)
+FROM reviews
+GROUP BY product_id
+ON DUPLICATE KEY UPDATE review_count = VALUES(review_count), rating_sum = VALUES(rating_sum),
+                        star1 = VALUES(star1), star2 = VALUES(star2), star3 = VALUES(star3),
+                        star4 = VALUES(star4), star5 = VALUES(star5);
+
+-- 列表游标分页使用的组合索引：(筛选列, created_at, id)
+ALTER TABLE reviews  ADD INDEX idx_reviews_product_created (product_id, created_at, id);
+ALTER TABLE reviews  ADD INDEX idx_reviews_user_created (user_address, created_at, id);
+ALTER TABLE orders   ADD INDEX idx_orders_user_created (user_address, created_at, id);
+ALTER TABLE orders   ADD INDEX idx_orders_merchant_created (merchant_id, created_at, id);
+ALTER TABLE products ADD INDEX idx_products_status_created (status, created_at, id);
+
+-- 链上事件索引：ChainEventIndexer按区块区间订阅合约事件后批量写入，重复写入幂等
+CREATE TABLE IF NOT EXISTS chain_review_events (
+    review_id    BIGINT       NOT NULL,
+    reviewer     VARCHAR(64)  NOT NULL,
+    product_id   VARCHAR(128) NOT NULL,
+    nft_id       BIGINT       NOT NULL,
+    tx_hash      VARCHAR(80)  NOT NULL,
+    log_index    INT          NOT NULL,
+    block_number BIGINT       NOT NULL,
+    indexed_at   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (review_id),
+    KEY idx_chain_review_events_tx (tx_hash)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS chain_reward_events (
+    id           BIGINT         NOT NULL AUTO_INCREMENT,
+    review_id    BIGINT         NOT NULL,
+    user_address VARCHAR(64)    NOT NULL,
+    amount       DECIMAL(65, 0) NOT NULL,
+    tx_hash      VARCHAR(80)    NOT NULL,
+    log_index    INT            NOT NULL,
+    block_number BIGINT         NOT NULL,
+    indexed_at   DATETIME       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_chain_reward_events_log (tx_hash, log_index),
+    KEY idx_chain_reward_events_review (review_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+CREATE TABLE IF NOT EXISTS chain_nft_events (
+    token_id     BIGINT      NOT NULL,
+    owner        VARCHAR(64) NOT NULL,
+    review_id    BIGINT      NOT NULL,
+    tx_hash      VARCHAR(80) NOT NULL,
+    log_index    INT         NOT NULL,
+    block_number BIGINT      NOT NULL,
+    indexed_at   DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (token_id),
+    KEY idx_chain_nft_events_review (review_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 事件索引进度：每个索引器已处理到的区块高度
+CREATE TABLE IF NOT EXISTS chain_index_checkpoint (
+    name         VARCHAR(64) NOT NULL,
+    block_number BIGINT      NOT NULL,
+    updated_at   DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (name)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 库存预占：下单时原子扣减库存，订单在预占到期前仍为pending且未支付则自动取消并归还库存
+ALTER TABLE orders ADD COLUMN quantity INT NOT NULL DEFAULT 1 AFTER amount;
+ALTER TABLE orders ADD COLUMN reserve_expire_at DATETIME NULL AFTER tx_hash;
+ALTER TABLE orders ADD INDEX idx_orders_reserve_expire (status, reserve_expire_at);
+
+-- 秒杀活动：开始时从商品库存划出initial_stock放入内存令牌，结束或对账时把未售出的returned_stock还回商品库存
+-- 秒杀订单的description为 flashSale:<id>，用于对账
+CREATE TABLE IF NOT EXISTS flash_sales (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    product_id     BIGINT      NOT NULL,
+    initial_stock  INT         NOT NULL,
+    returned_stock INT         NULL,
+    status         VARCHAR(16) NOT NULL,
+    started_at     DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    stopped_at     DATETIME    NULL,
+    PRIMARY KEY (id),
+    KEY idx_flash_sales_status (status)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+ALTER TABLE orders ADD INDEX idx_orders_description (description(32));
+
+-- 登录nonce（auth.nonce.store=mysql时使用）：多实例共享，验证即删除，过期行按expires_at索引批量清理
+CREATE TABLE IF NOT EXISTS auth_nonces (
+    address    VARCHAR(64) NOT NULL,
+    nonce      VARCHAR(64) NOT NULL,
+    expires_at BIGINT      NOT NULL,
+    PRIMARY KEY (address),
+    KEY idx_auth_nonces_expires (expires_at)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 秒杀归属实例与心跳：对账只回收心跳超时的秒杀，不会误收其他实例上仍在进行的秒杀
+ALTER TABLE flash_sales
+    ADD COLUMN owner_node   INT      NULL AFTER status,
+    ADD COLUMN heartbeat_at DATETIME NULL AFTER owner_node;
+
+-- 评价上链失败次数：恢复扫描在SQL中排除达到上限的记录
+ALTER TABLE reviews ADD COLUMN chain_attempts INT NOT NULL DEFAULT 0;
@@ -0,0 +1,128 @@
+package com.lwf.benchmark;
+
+import com.lwf.utils.StockTokens;
+import com.lwf.utils.WriteBehindBuffer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 秒杀下单压测：多线程抢同一商品的库存令牌，抢到的订单进入异步写入缓冲批量落库
+ * 落库用固定耗时模拟一次批量INSERT，accepted为持续的下单速率（订单/秒），
+ * queueFull不为0说明下单速率超过了落库速率；soldOut为库存耗尽后被立即拒绝的请求
+ * 运行：mvn test-compile 后执行本类main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class FlashSaleBenchmark {
+
+    /**
+     * 每轮迭代放入的库存，用完后的请求都走售罄路径
+     */
+    @Param({"100000", "100000000"})
+    private int stock;
+
+    /**
+     * 模拟一次批量INSERT的耗时（微秒）
+     */
+    @Param({"5000"})
+    private long batchInsertMicros;
+
+    @Param({"500"})
+    private int batchSize;
+
+    private StockTokens tokens;
+
+    private WriteBehindBuffer<long[]> buffer;
+
+    private final LongAdder persisted = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        buffer = new WriteBehindBuffer<>("flash-sale-benchmark", 100_000, batchSize, 1,
+                this::insert, (batch, e) -> { });
+    }
+
+    @Setup(Level.Iteration)
+    public void refill() {
+        tokens = new StockTokens(stock);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        buffer.shutdown(60_000);
+        System.out.println("\npersisted orders: " + persisted.sum());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean placeOrder(Outcome outcome) {
+        if (!tokens.tryAcquire(1)) {
+            outcome.soldOut++;
+            return false;
+        }
+        if (!buffer.offer(new long[]{Thread.currentThread().getId(), System.nanoTime()})) {
+            tokens.release(1);
+            outcome.queueFull++;
+            return false;
+        }
+        outcome.accepted++;
+        return true;
+    }
+
+    private void insert(List<long[]> batch) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(batchInsertMicros));
+        persisted.add(batch.size());
+    }
+
+    /**
+     * 每个线程的下单结果计数，JMH按秒汇总
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+
+        public long accepted;
+
+        public long soldOut;
+
+        public long queueFull;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            accepted = 0;
+            soldOut = 0;
+            queueFull = 0;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FlashSaleBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+package com.lwf.benchmark;
+
+import com.lwf.utils.MinHash;
+import com.lwf.utils.MinHashIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 重复评价LSH索引查找基准
+ * 与生产配置一致，索引容量上限为review.duplicate.max-size的默认值100万。
+ * 每个条目约占144～176字节（签名64、分区和值16、链表32、桶头32～64），100万条约150MB；
+ * 不设上限放入1000万条时单个索引约1.6GB，检测器的商品、用户两个索引合计超过3GB。
+ * 运行：mvn test-compile 后执行本类main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class MinHashIndexBenchmark {
+
+    private static final int QUERIES = 1 << 16;
+
+    private static final double THRESHOLD = 0.7;
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"100000"})
+    private int products;
+
+    private MinHashIndex index;
+
+    private long[] hitPartitions;
+
+    private long[][] hitSignatures;
+
+    private long[] missPartitions;
+
+    private long[][] missSignatures;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        index = new MinHashIndex(size, size);
+        long[] signature = new long[MinHash.BANDS];
+        hitPartitions = new long[QUERIES];
+        hitSignatures = new long[QUERIES][];
+        for (int i = 0; i < size; i++) {
+            randomSignature(random, signature);
+            index.add(i % products, signature, i);
+            if (i < QUERIES) {
+                // 改动一段签名，模拟轻微改写后的重复评价
+                long[] similar = signature.clone();
+                similar[random.nextInt(MinHash.BANDS)] = random.nextLong();
+                hitPartitions[i] = i % products;
+                hitSignatures[i] = similar;
+            }
+        }
+
+        missPartitions = new long[QUERIES];
+        missSignatures = new long[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            missPartitions[i] = random.nextInt(products);
+            missSignatures[i] = randomSignature(random, new long[MinHash.BANDS]);
+        }
+        content = "这个商品质量非常好，物流也很快，包装完整，客服态度热情，下次还会再来购买，推荐给大家！";
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long lookupHit(Cursor cursor) {
+        int i = cursor.next();
+        return index.findSimilar(hitPartitions[i], hitSignatures[i], THRESHOLD);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long lookupMiss(Cursor cursor) {
+        int i = cursor.next();
+        return index.findSimilar(missPartitions[i], missSignatures[i], THRESHOLD);
+    }
+
+    @Benchmark
+    public long[] signature() {
+        return MinHash.signature(MinHash.normalize(content));
+    }
+
+    private static long[] randomSignature(SplittableRandom random, long[] signature) {
+        for (int band = 0; band < signature.length; band++) {
+            signature[band] = random.nextLong();
+        }
+        return signature;
+    }
+
+    /**
+     * 每个线程独立遍历查询样本
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position = (int) (Thread.currentThread().getId() * 7919);
+
+        int next() {
+            return position++ & (QUERIES - 1);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MinHashIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package com.lwf.benchmark;
+
+import com.lwf.service.MemoryNonceStore;
+import com.lwf.service.NonceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录nonce签发/验证基准，存储中保持约100万个未使用的nonce
+ * legacyGenerate为原实现（每次调用都用removeIf扫描整个Map清理过期项）的对照
+ * 运行：mvn test-compile 后执行本类main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class NonceStoreBenchmark {
+
+    private static final long TTL_MS = 300_000;
+
+    @Param({"1000000"})
+    private int outstanding;
+
+    private String[] addresses;
+
+    private String[] nonces;
+
+    private MemoryNonceStore store;
+
+    private Map<String, long[]> legacy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        addresses = new String[outstanding];
+        nonces = new String[outstanding];
+        store = new MemoryNonceStore(2L * outstanding);
+        legacy = new ConcurrentHashMap<>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < outstanding; i++) {
+            addresses[i] = String.format("0x%040x", i);
+            nonces[i] = NonceService.randomNonce();
+            store.put(addresses[i], nonces[i], TTL_MS);
+            legacy.put(addresses[i], new long[]{now});
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    /**
+     * 为已有地址签发新nonce，未使用的nonce总数不变
+     */
+    @Benchmark
+    @Threads(4)
+    public String generate(Cursor cursor) {
+        int i = cursor.next(outstanding);
+        String nonce = NonceService.randomNonce();
+        store.put(addresses[i], nonce, TTL_MS);
+        nonces[i] = nonce;
+        return nonce;
+    }
+
+    /**
+     * 验证并重新放回同一nonce，未使用的nonce总数不变
+     * 与generate并发改写同一地址时会偶尔验证失败，不影响耗时
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean verify(Cursor cursor) {
+        int i = cursor.next(outstanding);
+        String nonce = nonces[i];
+        boolean valid = store.consume(addresses[i], nonce);
+        store.put(addresses[i], nonce, TTL_MS);
+        return valid;
+    }
+
+    /**
+     * 原实现的签发：先扫描全部nonce清理过期项再写入
+     */
+    @Benchmark
+    public Object legacyGenerate(Cursor cursor) {
+        int i = cursor.next(outstanding);
+        long now = System.currentTimeMillis();
+        legacy.entrySet().removeIf(entry -> now - entry.getValue()[0] > TTL_MS);
+        return legacy.put(addresses[i], new long[]{now});
+    }
+
+    /**
+     * 每个线程独立遍历地址
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int position = (int) (Thread.currentThread().getId() * 7919);
+
+        int next(int bound) {
+            position = position + 1 < bound ? position + 1 : 0;
+            return position;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NonceStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.lwf.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RewardCalculator与RewardPool.calculateReward的一致性测试
+ */
+class RewardCalculatorTest {
+
+    private static final BigInteger UINT256_MODULUS = BigInteger.ONE.shiftLeft(256);
+
+    private static final BigInteger TOKEN = BigInteger.TEN.pow(18);
+
+    @Test
+    void matchesKnownContractResults() {
+        // 期望值按合约公式手工计算：10e18 * (100 + 币天加成 + 长度加成 + 评分加成) / 100
+        assertEquals(TOKEN.multiply(BigInteger.valueOf(12)), reward(0, 0, 1));
+        assertEquals(TOKEN.multiply(BigInteger.valueOf(23)), reward(50, 41, 3));
+        assertEquals(new BigInteger("14800000000000000000"), reward(7, 3, 2));
+        assertEquals(TOKEN.multiply(BigInteger.valueOf(35)), reward(100, 100, 5));
+        assertEquals(TOKEN.multiply(BigInteger.valueOf(35)), reward(101, 101, 5));
+    }
+
+    @Test
+    void matchesSolidityTranscriptionOnBoundaries() {
+        long[] coinDays = {0, 1, 2, 99, 100, 101, 1000, Long.MAX_VALUE};
+        long[] lengths = {0, 1, 2, 3, 19, 20, 99, 100, 101, 102, 10_000};
+        for (long c : coinDays) {
+            for (long l : lengths) {
+                for (int rating = 1; rating <= 5; rating++) {
+                    BigInteger coin = BigInteger.valueOf(c);
+                    BigInteger length = BigInteger.valueOf(l);
+                    assertEquals(solidity(coin, length, rating),
+                            RewardCalculator.calculateReward(coin, length, rating),
+                            "coinDays=" + c + ", contentLength=" + l + ", rating=" + rating);
+                }
+            }
+        }
+    }
+
+    @Test
+    void capsUint256Inputs() {
+        BigInteger max = UINT256_MODULUS.subtract(BigInteger.ONE);
+        assertEquals(solidity(max, max, 4), RewardCalculator.calculateReward(max, max, 4));
+        assertThrows(BusinessException.class, () -> RewardCalculator.calculateReward(UINT256_MODULUS, BigInteger.ZERO, 4));
+        assertThrows(BusinessException.class, () -> RewardCalculator.calculateReward(BigInteger.ONE.negate(), BigInteger.ZERO, 4));
+    }
+
+    @Test
+    void rejectsInvalidRating() {
+        assertThrows(BusinessException.class, () -> reward(100, 50, 0));
+        assertThrows(BusinessException.class, () -> reward(100, 50, 6));
+    }
+
+    @Test
+    void measuresContentInUtf8Bytes() {
+        assertEquals(12, RewardCalculator.contentLength("好评好评"));
+        assertEquals(5, RewardCalculator.contentLength("good!"));
+        assertEquals(0, RewardCalculator.contentLength(null));
+        assertEquals(reward(100, 12, 5), RewardCalculator.calculateReward(BigInteger.valueOf(100), "好评好评", 5));
+    }
+
+    private static BigInteger reward(long coinDays, long contentLength, int rating) {
+        return RewardCalculator.calculateReward(BigInteger.valueOf(coinDays), BigInteger.valueOf(contentLength), rating);
+    }
+
+    /**
+     * 逐行照搬合约代码，所有运算按uint256取模
+     */
+    private static BigInteger solidity(BigInteger coinDays, BigInteger contentLength, int rating) {
+        BigInteger baseReward = uint(BigInteger.TEN.multiply(BigInteger.TEN.pow(18)));
+        BigInteger coinDayBonus = coinDays.compareTo(BigInteger.valueOf(100)) > 0 ? BigInteger.valueOf(100) : coinDays;
+        BigInteger lengthBonus = contentLength.compareTo(BigInteger.valueOf(100)) > 0
+                ? BigInteger.valueOf(50) : contentLength.divide(BigInteger.valueOf(2));
+        BigInteger ratingBonus = uint(BigInteger.valueOf(rating).multiply(BigInteger.valueOf(20)));
+        BigInteger totalBonus = uint(coinDayBonus.add(lengthBonus).add(ratingBonus));
+        return uint(baseReward.multiply(uint(BigInteger.valueOf(100).add(totalBonus)))).divide(BigInteger.valueOf(100));
+    }
+
+    private static BigInteger uint(BigInteger value) {
+        return value.mod(UINT256_MODULUS);
+    }
+}
@@ -0,0 +1,98 @@
+package com.lwf.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SnowflakeIdGenerator的唯一性、单调性及时钟回拨处理
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH + 1_000_000L;
+
+    @Test
+    void encodesTimestampAndNode() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37, 5000, () -> NOW);
+        long id = generator.nextId();
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(id));
+        assertEquals(37, SnowflakeIdGenerator.nodeIdOf(id));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024, 0));
+    }
+
+    @Test
+    void carriesSequenceOverflowIntoNextMillisecond() {
+        // 墙上时钟停在同一毫秒，序列用尽后逻辑时钟进位
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 5000, () -> NOW);
+        long previous = -1;
+        for (int i = 0; i < 3 * (1 << SnowflakeIdGenerator.SEQUENCE_BITS); i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(NOW + 2, SnowflakeIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    void toleratesSmallClockRollbackAndRejectsLargeOne() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 100, clock::get);
+        long before = generator.nextId();
+
+        clock.set(NOW - 50);
+        long after = generator.nextId();
+        assertTrue(after > before);
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(after));
+
+        clock.set(NOW - 500);
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        clock.set(NOW + 1);
+        assertTrue(generator.nextId() > after);
+    }
+
+    @Test
+    void generatesUniqueIdsAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 5000);
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Callable<long[]> task = () -> {
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = generator.nextId();
+                        if (i > 0) {
+                            assertTrue(ids[i] > ids[i - 1]);
+                        }
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long id : future.get()) {
+                    all.add(id);
+                }
+            }
+            assertEquals(threads * perThread, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}